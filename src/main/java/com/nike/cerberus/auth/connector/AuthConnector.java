@@ -17,6 +17,8 @@
 package com.nike.cerberus.auth.connector;
 
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 public interface AuthConnector {
 
@@ -25,4 +27,32 @@ public interface AuthConnector {
     AuthResponse mfaCheck(final String stateToken, final String deviceId, final String otpToken);
 
     Set<String> getGroups(final AuthData data);
+
+    /**
+     * Asynchronous variant of {@link #authenticate(String, String)}.  Connectors that can call their identity
+     * provider without blocking should override this, by default the blocking call is made on the given executor.
+     */
+    default CompletableFuture<AuthResponse> authenticateAsync(final String username,
+                                                              final String password,
+                                                              final Executor executor) {
+        return CompletableFuture.supplyAsync(() -> authenticate(username, password), executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #mfaCheck(String, String, String)}, see
+     * {@link #authenticateAsync(String, String, Executor)}.
+     */
+    default CompletableFuture<AuthResponse> mfaCheckAsync(final String stateToken,
+                                                          final String deviceId,
+                                                          final String otpToken,
+                                                          final Executor executor) {
+        return CompletableFuture.supplyAsync(() -> mfaCheck(stateToken, deviceId, otpToken), executor);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getGroups(AuthData)}, see {@link #authenticateAsync(String, String, Executor)}.
+     */
+    default CompletableFuture<Set<String>> getGroupsAsync(final AuthData data, final Executor executor) {
+        return CompletableFuture.supplyAsync(() -> getGroups(data), executor);
+    }
 }
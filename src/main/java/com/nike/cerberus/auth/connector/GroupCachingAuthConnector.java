@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.auth.connector;
+
+import com.codahale.metrics.Counter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.name.Named;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AuthConnector decorator that caches the group memberships returned by the configured connector, keyed by user id,
+ * so that a login only needs a single round trip to the identity provider.
+ *
+ * Cached groups are served for the configured TTL.  With stale-while-revalidate enabled, groups older than the TTL
+ * are still served for the configured stale period while they are reloaded in the background.  A user removed from a
+ * group keeps that group's access in new tokens for at most the TTL plus the stale period.
+ */
+public class GroupCachingAuthConnector implements AuthConnector {
+
+    public static final String DELEGATE_AUTH_CONNECTOR_NAME = "cms.auth.connector.delegate";
+
+    public static final String CACHE_ENABLED_PROPERTY = "cms.auth.groups.cache.enabled";
+    public static final String CACHE_MAX_SIZE_PROPERTY = "cms.auth.groups.cache.maxSize";
+    public static final String CACHE_TTL_PROPERTY = "cms.auth.groups.cache.ttlSeconds";
+    public static final String CACHE_STALE_WHILE_REVALIDATE_PROPERTY = "cms.auth.groups.cache.staleWhileRevalidateSeconds";
+
+    public static final String METRIC_CACHE_HIT = "cms.auth.groups.cache.hit";
+    public static final String METRIC_CACHE_STALE_HIT = "cms.auth.groups.cache.staleHit";
+    public static final String METRIC_CACHE_MISS = "cms.auth.groups.cache.miss";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final AuthConnector delegate;
+
+    private final boolean enabled;
+
+    private final long ttlInMillis;
+
+    private final Cache<String, CachedGroups> groupsCache;
+
+    private final Set<String> refreshingUserIds = Sets.newConcurrentHashSet();
+
+    private final ExecutorService refreshExecutor;
+
+    private final Counter hitCounter;
+
+    private final Counter staleHitCounter;
+
+    private final Counter missCounter;
+
+    @Inject
+    public GroupCachingAuthConnector(@Named(DELEGATE_AUTH_CONNECTOR_NAME) final AuthConnector delegate,
+                                     final CodahaleMetricsCollector metricsCollector,
+                                     @Named(CACHE_ENABLED_PROPERTY) final boolean enabled,
+                                     @Named(CACHE_MAX_SIZE_PROPERTY) final long maxSize,
+                                     @Named(CACHE_TTL_PROPERTY) final long ttlInSeconds,
+                                     @Named(CACHE_STALE_WHILE_REVALIDATE_PROPERTY) final long staleWhileRevalidateInSeconds) {
+        this.delegate = delegate;
+        this.enabled = enabled;
+        this.ttlInMillis = TimeUnit.SECONDS.toMillis(ttlInSeconds);
+
+        this.groupsCache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlInSeconds + staleWhileRevalidateInSeconds, TimeUnit.SECONDS)
+                .build();
+
+        this.refreshExecutor = staleWhileRevalidateInSeconds > 0 ? Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder()
+                        .setNameFormat("cms-auth-groups-refresh-%d")
+                        .setDaemon(true)
+                        .build()) : null;
+
+        this.hitCounter = metricsCollector.getMetricRegistry().counter(METRIC_CACHE_HIT);
+        this.staleHitCounter = metricsCollector.getMetricRegistry().counter(METRIC_CACHE_STALE_HIT);
+        this.missCounter = metricsCollector.getMetricRegistry().counter(METRIC_CACHE_MISS);
+
+        logger.info("Auth connector group cache enabled={}, maxSize={}, ttlSeconds={}, staleWhileRevalidateSeconds={}",
+                enabled, maxSize, ttlInSeconds, staleWhileRevalidateInSeconds);
+    }
+
+    @Override
+    public AuthResponse authenticate(final String username, final String password) {
+        return delegate.authenticate(username, password);
+    }
+
+    @Override
+    public AuthResponse mfaCheck(final String stateToken, final String deviceId, final String otpToken) {
+        return delegate.mfaCheck(stateToken, deviceId, otpToken);
+    }
+
+    @Override
+    public Set<String> getGroups(final AuthData data) {
+        if (!enabled) {
+            return delegate.getGroups(data);
+        }
+
+        final Set<String> cachedGroups = getCachedGroups(data);
+        if (cachedGroups != null) {
+            return cachedGroups;
+        }
+
+        return cacheGroups(data.getUserId(), delegate.getGroups(data));
+    }
+
+    @Override
+    public CompletableFuture<AuthResponse> authenticateAsync(final String username,
+                                                             final String password,
+                                                             final Executor executor) {
+        return delegate.authenticateAsync(username, password, executor);
+    }
+
+    @Override
+    public CompletableFuture<AuthResponse> mfaCheckAsync(final String stateToken,
+                                                         final String deviceId,
+                                                         final String otpToken,
+                                                         final Executor executor) {
+        return delegate.mfaCheckAsync(stateToken, deviceId, otpToken, executor);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> getGroupsAsync(final AuthData data, final Executor executor) {
+        if (!enabled) {
+            return delegate.getGroupsAsync(data, executor);
+        }
+
+        final Set<String> cachedGroups = getCachedGroups(data);
+        if (cachedGroups != null) {
+            return CompletableFuture.completedFuture(cachedGroups);
+        }
+
+        return delegate.getGroupsAsync(data, executor).thenApply(groups -> cacheGroups(data.getUserId(), groups));
+    }
+
+    /**
+     * @return The cached groups of the user, or null if none are cached.  Kicks off a background reload when the
+     * cached groups are stale.
+     */
+    private Set<String> getCachedGroups(final AuthData data) {
+        final CachedGroups cachedGroups = groupsCache.getIfPresent(data.getUserId());
+
+        if (cachedGroups == null) {
+            missCounter.inc();
+            return null;
+        }
+
+        if (System.currentTimeMillis() - cachedGroups.getLoadedAtMillis() < ttlInMillis) {
+            hitCounter.inc();
+        } else {
+            staleHitCounter.inc();
+            refreshInBackground(data);
+        }
+
+        return cachedGroups.getGroups();
+    }
+
+    private void refreshInBackground(final AuthData data) {
+        final String userId = data.getUserId();
+        if (refreshExecutor == null || !refreshingUserIds.add(userId)) {
+            return;
+        }
+
+        // composed so that a delegate throwing before it returns a future still completes the refresh below
+        CompletableFuture.completedFuture(data)
+                .thenCompose(authData -> delegate.getGroupsAsync(authData, refreshExecutor))
+                .whenComplete((groups, throwable) -> {
+                    refreshingUserIds.remove(userId);
+
+                    if (throwable != null) {
+                        logger.error("Failed to reload the groups of user id: " + userId + ", serving the cached groups",
+                                throwable);
+                    } else {
+                        cacheGroups(userId, groups);
+                    }
+                });
+    }
+
+    private Set<String> cacheGroups(final String userId, final Set<String> groups) {
+        final Set<String> immutableGroups = ImmutableSet.copyOf(groups);
+        groupsCache.put(userId, new CachedGroups(immutableGroups, System.currentTimeMillis()));
+
+        return immutableGroups;
+    }
+
+    private static final class CachedGroups {
+
+        private final Set<String> groups;
+
+        private final long loadedAtMillis;
+
+        private CachedGroups(final Set<String> groups, final long loadedAtMillis) {
+            this.groups = groups;
+            this.loadedAtMillis = loadedAtMillis;
+        }
+
+        private Set<String> getGroups() {
+            return groups;
+        }
+
+        private long getLoadedAtMillis() {
+            return loadedAtMillis;
+        }
+    }
+}
@@ -27,9 +27,13 @@ import org.apache.commons.lang3.StringUtils;
 import javax.inject.Inject;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * OneLogin version 1 API implementation of the AuthConnector interface.
+ *
+ * The asynchronous methods call OneLogin without blocking, so they ignore the executor they are given.
  */
 public class OneLoginAuthConnector implements AuthConnector {
 
@@ -42,7 +46,16 @@ public class OneLoginAuthConnector implements AuthConnector {
 
     @Override
     public AuthResponse authenticate(String username, String password) {
-        final SessionLoginTokenData sessionLoginToken = createSessionLoginToken(username, password);
+        return toAuthResponse(createSessionLoginToken(username, password));
+    }
+
+    @Override
+    public CompletableFuture<AuthResponse> authenticateAsync(String username, String password, Executor executor) {
+        return oneLoginClient.createSessionLoginTokenAsync(username, password)
+                .thenApply(response -> toAuthResponse(toSessionLoginTokenData(username, response)));
+    }
+
+    private AuthResponse toAuthResponse(final SessionLoginTokenData sessionLoginToken) {
         final AuthData authData = new AuthData();
         final AuthResponse authResponse = new AuthResponse().setData(authData);
 
@@ -65,7 +78,16 @@ public class OneLoginAuthConnector implements AuthConnector {
 
     @Override
     public AuthResponse mfaCheck(String stateToken, String deviceId, String otpToken) {
-        final SessionLoginTokenData sessionLoginToken = verifyFactor(deviceId, stateToken, otpToken);
+        return toMfaCheckAuthResponse(verifyFactor(deviceId, stateToken, otpToken));
+    }
+
+    @Override
+    public CompletableFuture<AuthResponse> mfaCheckAsync(String stateToken, String deviceId, String otpToken, Executor executor) {
+        return oneLoginClient.verifyFactorAsync(deviceId, stateToken, otpToken)
+                .thenApply(response -> toMfaCheckAuthResponse(toSessionLoginTokenData(stateToken, response)));
+    }
+
+    private AuthResponse toMfaCheckAuthResponse(final SessionLoginTokenData sessionLoginToken) {
         final AuthData authData = new AuthData();
         final AuthResponse authResponse = new AuthResponse().setData(authData);
 
@@ -82,6 +104,12 @@ public class OneLoginAuthConnector implements AuthConnector {
         return parseLdapGroups(userData.getMemberOf());
     }
 
+    @Override
+    public CompletableFuture<Set<String>> getGroupsAsync(AuthData data, Executor executor) {
+        return oneLoginClient.getUserByIdAsync(Long.parseLong(data.getUserId()))
+                .thenApply(response -> parseLdapGroups(toUserData(response).getMemberOf()));
+    }
+
     /**
      * Takes the list of ldapGroups received from OneLogin and parses them in to a set of Strings
      *
@@ -127,8 +155,10 @@ public class OneLoginAuthConnector implements AuthConnector {
      */
     protected UserData getUserById(final long userId) {
 
-        final GetUserResponse getUserResponse = oneLoginClient.getUserById(userId);
+        return toUserData(oneLoginClient.getUserById(userId));
+    }
 
+    private UserData toUserData(final GetUserResponse getUserResponse) {
         if (getUserResponse.getStatus().isError()) {
             throw ApiException.newBuilder()
                     .withApiErrors(DefaultApiError.SERVICE_UNAVAILABLE)
@@ -151,8 +181,11 @@ public class OneLoginAuthConnector implements AuthConnector {
                                                  final String stateToken,
                                                  final String otpToken) {
 
-        final VerifyFactorResponse verifyFactorResponse = oneLoginClient.verifyFactor(deviceId, stateToken, otpToken);
+        return toSessionLoginTokenData(stateToken, oneLoginClient.verifyFactor(deviceId, stateToken, otpToken));
+    }
 
+    private SessionLoginTokenData toSessionLoginTokenData(final String stateToken,
+                                                          final VerifyFactorResponse verifyFactorResponse) {
         if (verifyFactorResponse.getStatus().isError()) {
             String msg = String.format("stateToken: %s failed to verify 2nd factor for reason: %s",
                     stateToken, verifyFactorResponse.getStatus().getMessage());
@@ -182,8 +215,11 @@ public class OneLoginAuthConnector implements AuthConnector {
      */
     protected SessionLoginTokenData createSessionLoginToken(final String username, final String password) {
 
-        final CreateSessionLoginTokenResponse createSessionLoginTokenResponse = oneLoginClient.createSessionLoginToken(username, password);
+        return toSessionLoginTokenData(username, oneLoginClient.createSessionLoginToken(username, password));
+    }
 
+    private SessionLoginTokenData toSessionLoginTokenData(final String username,
+                                                          final CreateSessionLoginTokenResponse createSessionLoginTokenResponse) {
         long statusCode = createSessionLoginTokenResponse.getStatus().getCode();
 
         if (createSessionLoginTokenResponse.getStatus().isError()) {
@@ -2,20 +2,62 @@ package com.nike.cerberus.auth.connector.onelogin;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Singleton;
 import com.nike.backstopper.exception.ApiException;
 import com.nike.cerberus.error.DefaultApiError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * Client for calling OneLogin APIs
+ *
+ * The OAuth access token used for API calls is cached until shortly before it expires and refreshed in the background
+ * once it gets close to expiring.  Concurrent refreshes are collapsed into a single token request, and a 401 from
+ * OneLogin on a user lookup drops the cached token and retries the lookup once with a new one.  Login calls are never
+ * retried, OneLogin also answers them with a 401 for bad credentials, and replaying those would count twice toward
+ * the user's lockout.  A 401 from a login call still drops the cached token, so that a token OneLogin revoked is
+ * replaced by the next call instead of failing every login until it expires.
+ *
+ * Every API call also has an asynchronous variant that does not block the calling thread while waiting on OneLogin.
  */
 @Singleton
 class OneLoginClient {
 
+    private static final long UNAUTHORIZED = 401L;
+
+    /**
+     * Cached tokens are treated as expired this long before OneLogin would expire them
+     */
+    private static final long EXPIRY_MARGIN_IN_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Cached tokens are refreshed in the background once they are this close to being treated as expired
+     */
+    private static final long REFRESH_AHEAD_IN_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("cms-onelogin-token-refresh-%d")
+            .setDaemon(true)
+            .build());
+
+    private volatile CachedAccessToken cachedAccessToken;
+
+    private CompletableFuture<GenerateTokenResponseData> inFlightRefresh;
+
     private final String clientId;
     private final String clientSecret;
     private final String subdomain;
@@ -48,11 +90,27 @@ class OneLoginClient {
                 .setPassword(password)
                 .setSubdomain(subdomain);
 
-        return httpClient.execute("api/1/login/auth",
+        return executeWithAccessToken("api/1/login/auth",
                 "POST",
-                buildAuthorizationBearerHeader(),
                 request,
-                CreateSessionLoginTokenResponse.class);
+                CreateSessionLoginTokenResponse.class,
+                CreateSessionLoginTokenResponse::getStatus);
+    }
+
+    /**
+     * Asynchronous variant of {@link #createSessionLoginToken(String, String)}
+     */
+    public CompletableFuture<CreateSessionLoginTokenResponse> createSessionLoginTokenAsync(final String username, final String password) {
+        CreateSessionLoginTokenRequest request = new CreateSessionLoginTokenRequest()
+                .setUsernameOrEmail(username)
+                .setPassword(password)
+                .setSubdomain(subdomain);
+
+        return executeWithAccessTokenAsync("api/1/login/auth",
+                "POST",
+                request,
+                CreateSessionLoginTokenResponse.class,
+                CreateSessionLoginTokenResponse::getStatus);
     }
 
     /**
@@ -66,22 +124,138 @@ class OneLoginClient {
                 .setStateToken(stateToken)
                 .setOtpToken(otpToken);
 
-        return httpClient.execute("api/1/login/verify_factor",
+        return executeWithAccessToken("api/1/login/verify_factor",
                 "POST",
-                buildAuthorizationBearerHeader(),
                 request,
-                VerifyFactorResponse.class);
+                VerifyFactorResponse.class,
+                VerifyFactorResponse::getStatus);
+    }
+
+    /**
+     * Asynchronous variant of {@link #verifyFactor(String, String, String)}
+     */
+    public CompletableFuture<VerifyFactorResponse> verifyFactorAsync(final String deviceId,
+                                                                     final String stateToken,
+                                                                     final String otpToken) {
+        VerifyFactorRequest request = new VerifyFactorRequest()
+                .setDeviceId(deviceId)
+                .setStateToken(stateToken)
+                .setOtpToken(otpToken);
+
+        return executeWithAccessTokenAsync("api/1/login/verify_factor",
+                "POST",
+                request,
+                VerifyFactorResponse.class,
+                VerifyFactorResponse::getStatus);
     }
 
     /**
      * Get info about a user
      */
     public GetUserResponse getUserById(long userId) {
-        return httpClient.execute("api/1/users/" + userId,
+        return executeWithAccessTokenAndRetry("api/1/users/" + userId,
+                "GET",
+                null,
+                GetUserResponse.class,
+                GetUserResponse::getStatus);
+    }
+
+    /**
+     * Asynchronous variant of {@link #getUserById(long)}
+     */
+    public CompletableFuture<GetUserResponse> getUserByIdAsync(long userId) {
+        return executeWithAccessTokenAndRetryAsync("api/1/users/" + userId,
                 "GET",
-                buildAuthorizationBearerHeader(),
                 null,
-                GetUserResponse.class);
+                GetUserResponse.class,
+                GetUserResponse::getStatus);
+    }
+
+    /**
+     * Executes a OneLogin API call authorized with the cached access token.  A 401 drops the token from the cache,
+     * since it may have been rejected, but the call is not retried.
+     */
+    private <M> M executeWithAccessToken(final String path,
+                                         final String method,
+                                         final Object requestBody,
+                                         final Class<M> responseClass,
+                                         final Function<M, ResponseStatus> statusGetter) {
+        final GenerateTokenResponseData accessToken = getAccessToken();
+        final M response = httpClient.execute(path, method, buildAuthorizationBearerHeader(accessToken), requestBody, responseClass);
+
+        if (isUnauthorized(response, statusGetter)) {
+            invalidateAccessToken(accessToken);
+        }
+        return response;
+    }
+
+    /**
+     * Executes a OneLogin API call authorized with the cached access token.  If OneLogin rejects the token, it is
+     * dropped from the cache and the call is retried once with a new token.  Only for calls where a 401 can mean
+     * nothing but a rejected token.
+     */
+    private <M> M executeWithAccessTokenAndRetry(final String path,
+                                                 final String method,
+                                                 final Object requestBody,
+                                                 final Class<M> responseClass,
+                                                 final Function<M, ResponseStatus> statusGetter) {
+        final GenerateTokenResponseData accessToken = getAccessToken();
+        final M response = httpClient.execute(path, method, buildAuthorizationBearerHeader(accessToken), requestBody, responseClass);
+
+        if (!isUnauthorized(response, statusGetter)) {
+            return response;
+        }
+
+        logger.info("OneLogin rejected the cached access token, requesting a new one");
+        invalidateAccessToken(accessToken);
+        return httpClient.execute(path, method, buildAuthorizationBearerHeader(), requestBody, responseClass);
+    }
+
+    /**
+     * Asynchronous variant of {@link #executeWithAccessToken(String, String, Object, Class, Function)}.  A missing or
+     * expired access token is requested on the token refresh thread rather than the calling thread.
+     */
+    private <M> CompletableFuture<M> executeWithAccessTokenAsync(final String path,
+                                                                 final String method,
+                                                                 final Object requestBody,
+                                                                 final Class<M> responseClass,
+                                                                 final Function<M, ResponseStatus> statusGetter) {
+        return getAccessTokenAsync().thenCompose(accessToken ->
+                httpClient.executeAsync(path, method, buildAuthorizationBearerHeader(accessToken), requestBody, responseClass)
+                        .thenApply(response -> {
+                            if (isUnauthorized(response, statusGetter)) {
+                                invalidateAccessToken(accessToken);
+                            }
+                            return response;
+                        }));
+    }
+
+    /**
+     * Asynchronous variant of {@link #executeWithAccessTokenAndRetry(String, String, Object, Class, Function)}.  A
+     * missing or expired access token is requested on the token refresh thread rather than the calling thread.
+     */
+    private <M> CompletableFuture<M> executeWithAccessTokenAndRetryAsync(final String path,
+                                                                         final String method,
+                                                                         final Object requestBody,
+                                                                         final Class<M> responseClass,
+                                                                         final Function<M, ResponseStatus> statusGetter) {
+        return getAccessTokenAsync().thenCompose(accessToken ->
+                httpClient.executeAsync(path, method, buildAuthorizationBearerHeader(accessToken), requestBody, responseClass)
+                        .thenCompose(response -> {
+                            if (!isUnauthorized(response, statusGetter)) {
+                                return CompletableFuture.completedFuture(response);
+                            }
+
+                            logger.info("OneLogin rejected the cached access token, requesting a new one");
+                            invalidateAccessToken(accessToken);
+                            return getAccessTokenAsync().thenCompose(newAccessToken ->
+                                    httpClient.executeAsync(path, method, buildAuthorizationBearerHeader(newAccessToken), requestBody, responseClass));
+                        }));
+    }
+
+    private <M> boolean isUnauthorized(final M response, final Function<M, ResponseStatus> statusGetter) {
+        final ResponseStatus status = response == null ? null : statusGetter.apply(response);
+        return status != null && status.getCode() == UNAUTHORIZED;
     }
 
     /**
@@ -90,11 +264,114 @@ class OneLoginClient {
      * @return Map containing the Authorization header and value.
      */
     protected Map<String, String> buildAuthorizationBearerHeader() {
+        return buildAuthorizationBearerHeader(getAccessToken());
+    }
+
+    private Map<String, String> buildAuthorizationBearerHeader(final GenerateTokenResponseData accessToken) {
         final Map<String, String> headers = Maps.newHashMap();
-        headers.put("Authorization", String.format("bearer:%s", requestAccessToken().getAccessToken()));
+        headers.put("Authorization", String.format("bearer:%s", accessToken.getAccessToken()));
         return headers;
     }
 
+    /**
+     * Returns the cached access token, requesting a new one if there is no usable cached token.  Kicks off a
+     * background refresh when the cached token is about to expire.
+     *
+     * @return Access token
+     */
+    protected GenerateTokenResponseData getAccessToken() {
+        final GenerateTokenResponseData accessToken = getCachedAccessToken();
+        if (accessToken != null) {
+            return accessToken;
+        }
+
+        try {
+            return refreshAccessToken(Runnable::run).join();
+        } catch (CompletionException ce) {
+            if (ce.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ce.getCause();
+            }
+            throw ce;
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #getAccessToken()}, a new access token is requested on the token refresh thread.
+     */
+    private CompletableFuture<GenerateTokenResponseData> getAccessTokenAsync() {
+        final GenerateTokenResponseData accessToken = getCachedAccessToken();
+        if (accessToken != null) {
+            return CompletableFuture.completedFuture(accessToken);
+        }
+
+        return refreshAccessToken(refreshExecutor);
+    }
+
+    /**
+     * @return The cached access token, or null if there is no usable cached token
+     */
+    private GenerateTokenResponseData getCachedAccessToken() {
+        final CachedAccessToken accessToken = cachedAccessToken;
+        final long now = System.currentTimeMillis();
+
+        if (accessToken == null || now >= accessToken.getExpiresAtMillis()) {
+            return null;
+        }
+
+        if (now >= accessToken.getRefreshAtMillis()) {
+            refreshAccessToken(refreshExecutor);
+        }
+        return accessToken.getData();
+    }
+
+    /**
+     * Requests a new access token on the given executor, unless a request is already in flight.
+     */
+    private CompletableFuture<GenerateTokenResponseData> refreshAccessToken(final Executor executor) {
+        final CompletableFuture<GenerateTokenResponseData> refresh;
+        synchronized (this) {
+            if (inFlightRefresh != null) {
+                return inFlightRefresh;
+            }
+            refresh = new CompletableFuture<>();
+            inFlightRefresh = refresh;
+        }
+
+        executor.execute(() -> {
+            try {
+                final long requestedAt = System.currentTimeMillis();
+                final GenerateTokenResponseData data = requestAccessToken();
+                cacheAccessToken(data, requestedAt);
+                refresh.complete(data);
+            } catch (RuntimeException e) {
+                logger.error("Failed to refresh the OneLogin access token", e);
+                refresh.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    inFlightRefresh = null;
+                }
+            }
+        });
+
+        return refresh;
+    }
+
+    private void cacheAccessToken(final GenerateTokenResponseData data, final long requestedAt) {
+        final long expiresAt = requestedAt + TimeUnit.SECONDS.toMillis(data.getExpiresIn()) - EXPIRY_MARGIN_IN_MILLIS;
+
+        // tokens without a usable lifetime are not cached
+        if (expiresAt > requestedAt) {
+            cachedAccessToken = new CachedAccessToken(data, expiresAt, Math.max(requestedAt, expiresAt - REFRESH_AHEAD_IN_MILLIS));
+        }
+    }
+
+    private synchronized void invalidateAccessToken(final GenerateTokenResponseData accessToken) {
+        final CachedAccessToken current = cachedAccessToken;
+        if (current != null && current.getData() == accessToken) {
+            cachedAccessToken = null;
+        }
+    }
+
     /**
      * Requests an access token using the configured client id and secret.
      *
@@ -124,5 +401,30 @@ class OneLoginClient {
         return headers;
     }
 
+    private static final class CachedAccessToken {
+
+        private final GenerateTokenResponseData data;
+
+        private final long expiresAtMillis;
+
+        private final long refreshAtMillis;
+
+        private CachedAccessToken(final GenerateTokenResponseData data, final long expiresAtMillis, final long refreshAtMillis) {
+            this.data = data;
+            this.expiresAtMillis = expiresAtMillis;
+            this.refreshAtMillis = refreshAtMillis;
+        }
+
+        private GenerateTokenResponseData getData() {
+            return data;
+        }
 
+        private long getExpiresAtMillis() {
+            return expiresAtMillis;
+        }
+
+        private long getRefreshAtMillis() {
+            return refreshAtMillis;
+        }
+    }
 }
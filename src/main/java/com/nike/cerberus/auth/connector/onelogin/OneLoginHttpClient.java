@@ -1,5 +1,7 @@
 package com.nike.cerberus.auth.connector.onelogin;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Timer;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
@@ -7,6 +9,7 @@ import com.google.common.collect.Sets;
 import com.nike.backstopper.exception.ApiException;
 import com.nike.cerberus.error.DefaultApiError;
 import com.nike.cerberus.server.config.guice.OneLoginGuiceModule;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
 import okhttp3.*;
 import okhttp3.Request;
 import org.apache.commons.lang3.StringUtils;
@@ -21,9 +24,14 @@ import java.net.URI;
 import java.nio.charset.Charset;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A HttpClient for interacting with OneLogin
+ *
+ * Requests can either be executed on the calling thread, or enqueued on the OkHttp dispatcher of the OneLogin client
+ * so that the caller is not blocked while waiting on OneLogin.  The latency of every request is recorded.
  */
 @Singleton
 public class OneLoginHttpClient {
@@ -34,15 +42,22 @@ public class OneLoginHttpClient {
 
     private static final String DEFAULT_ONELOGIN_API_URI_TEMPLATE = "https://api.%s.onelogin.com/";
 
+    public static final String METRIC_REQUEST_LATENCY = "cms.onelogin.http.latency";
+    public static final String METRIC_REQUEST_ERROR = "cms.onelogin.http.error";
+
     private final URI oneloginApiUri;
 
     private final OkHttpClient httpClient;
     private final ObjectMapper objectMapper;
 
+    private final Timer latencyTimer;
+    private final Counter errorCounter;
+
     @Inject
     public OneLoginHttpClient(@Named("auth.connector.onelogin.api_region") final String oneloginApiRegion,
                               final OkHttpClient httpClient,
-                              @Named(OneLoginGuiceModule.ONE_LOGIN_OBJECT_MAPPER_NAME) final ObjectMapper objectMapper) {
+                              @Named(OneLoginGuiceModule.ONE_LOGIN_OBJECT_MAPPER_NAME) final ObjectMapper objectMapper,
+                              final CodahaleMetricsCollector metricsCollector) {
         Preconditions.checkArgument(VALID_API_REGIONS.contains(oneloginApiRegion),
                 "OneLogin API region is invalid! Valid values: %s, %s",
                 VALID_API_REGIONS.toArray());
@@ -51,6 +66,9 @@ public class OneLoginHttpClient {
 
         this.httpClient = httpClient;
         this.objectMapper = objectMapper;
+
+        this.latencyTimer = metricsCollector.getMetricRegistry().timer(METRIC_REQUEST_LATENCY);
+        this.errorCounter = metricsCollector.getMetricRegistry().counter(METRIC_REQUEST_ERROR);
     }
 
     /**
@@ -68,15 +86,72 @@ public class OneLoginHttpClient {
                             final Map<String, String> headers,
                             final Object requestBody,
                             final Class<M> responseClass) {
+        final long startNanos = System.nanoTime();
         try {
             Request request = buildRequest(buildUrl(path), method, headers, requestBody);
             Response response =  httpClient.newCall(request).execute();
             return parseResponseBody(response, responseClass);
         } catch (IOException e) {
+            errorCounter.inc();
             throw toApiException(e);
+        } finally {
+            recordLatency(startNanos);
         }
     }
 
+    /**
+     * Enqueues the HTTP request based on the input parameters on the OkHttp dispatcher, the calling thread is not
+     * blocked while waiting on the response.
+     *
+     * @param path        The Path to execute the request against
+     * @param method      The HTTP method for the request
+     * @param headers     HTTP Headers to include in the request
+     * @param requestBody The request body of the HTTP request
+     * @param responseClass The class of the response object
+     * @return Future of the response from the server
+     */
+    public <M> CompletableFuture<M> executeAsync(final String path,
+                                                 final String method,
+                                                 final Map<String, String> headers,
+                                                 final Object requestBody,
+                                                 final Class<M> responseClass) {
+        final CompletableFuture<M> future = new CompletableFuture<>();
+        final Request request;
+        try {
+            request = buildRequest(buildUrl(path), method, headers, requestBody);
+        } catch (IOException e) {
+            future.completeExceptionally(toApiException(e));
+            return future;
+        }
+
+        final long startNanos = System.nanoTime();
+        httpClient.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                recordLatency(startNanos);
+                errorCounter.inc();
+                future.completeExceptionally(toApiException(e));
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try {
+                    future.complete(parseResponseBody(response, responseClass));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    recordLatency(startNanos);
+                }
+            }
+        });
+
+        return future;
+    }
+
+    private void recordLatency(final long startNanos) {
+        latencyTimer.update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
     /**
      * Builds the full URL for preforming an operation against Vault.
      *
@@ -16,24 +16,87 @@
 
 package com.nike.cerberus.aws;
 
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.Request;
+import com.amazonaws.Response;
+import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
+import com.amazonaws.client.builder.ExecutorFactory;
+import com.amazonaws.handlers.HandlerContextKey;
+import com.amazonaws.handlers.RequestHandler2;
 import com.amazonaws.regions.Region;
 import com.amazonaws.regions.Regions;
+import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.retry.PredefinedRetryPolicies;
+import com.amazonaws.services.kms.AWSKMSAsync;
+import com.amazonaws.services.kms.AWSKMSAsyncClientBuilder;
 import com.amazonaws.services.kms.AWSKMSClient;
+import com.amazonaws.util.AWSRequestMetrics;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.name.Named;
 import com.nike.backstopper.exception.ApiException;
 import com.nike.cerberus.error.DefaultApiError;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
 
+import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Factory for AWS KMS clients.  Caches clients by region as they are requested.
+ *
+ * All clients share a connection pool size, timeouts and retry policy from config, and record per region latency,
+ * error and throttling metrics for every KMS call.  Throttling is counted for every attempt, including those the
+ * retry policy recovered from, so that it shows well before calls start failing.
+ *
+ * The async clients make their blocking KMS calls on a fixed size pool of their own, so each region's async client
+ * has at most the configured number of KMS calls in flight and queues the rest.
  */
 @Singleton
 public class KmsClientFactory {
 
+    public static final String MAX_CONNECTIONS_PROPERTY = "cms.kms.client.maxConnections";
+    public static final String CONNECTION_TIMEOUT_PROPERTY = "cms.kms.client.connectionTimeoutMillis";
+    public static final String SOCKET_TIMEOUT_PROPERTY = "cms.kms.client.socketTimeoutMillis";
+    public static final String MAX_ERROR_RETRIES_PROPERTY = "cms.kms.client.maxErrorRetries";
+    public static final String ASYNC_THREADS_PROPERTY = "cms.kms.client.asyncThreads";
+
+    private static final String METRIC_PREFIX = "cms.kms.client";
+
+    private static final HandlerContextKey<Long> REQUEST_START_NANOS = new HandlerContextKey<>("RequestStartNanos");
+
     private final Map<Region, AWSKMSClient> kmsClientMap = Maps.newConcurrentMap();
 
+    private final Map<Region, AWSKMSAsync> kmsAsyncClientMap = Maps.newConcurrentMap();
+
+    private final MetricRegistry metricRegistry;
+
+    private final ClientConfiguration clientConfiguration;
+
+    private final int asyncThreads;
+
+    @Inject
+    public KmsClientFactory(final CodahaleMetricsCollector metricsCollector,
+                            @Named(MAX_CONNECTIONS_PROPERTY) final int maxConnections,
+                            @Named(CONNECTION_TIMEOUT_PROPERTY) final int connectionTimeoutInMillis,
+                            @Named(SOCKET_TIMEOUT_PROPERTY) final int socketTimeoutInMillis,
+                            @Named(MAX_ERROR_RETRIES_PROPERTY) final int maxErrorRetries,
+                            @Named(ASYNC_THREADS_PROPERTY) final int asyncThreads) {
+        this.metricRegistry = metricsCollector.getMetricRegistry();
+        this.asyncThreads = asyncThreads;
+        this.clientConfiguration = new ClientConfiguration()
+                .withMaxConnections(maxConnections)
+                .withConnectionTimeout(connectionTimeoutInMillis)
+                .withSocketTimeout(socketTimeoutInMillis)
+                // the default policy backs off longer after throttling errors than after other retryable errors
+                .withRetryPolicy(PredefinedRetryPolicies.getDefaultRetryPolicyWithCustomMaxRetries(maxErrorRetries));
+    }
+
     /**
      * Returns a KMS client for the given region.  Clients are cached by region.
      *
@@ -41,16 +104,30 @@ public class KmsClientFactory {
      * @return AWS KMS client
      */
     public AWSKMSClient getClient(Region region) {
-        AWSKMSClient client = kmsClientMap.get(region);
-
-        if (client == null) {
-            final AWSKMSClient newClient = new AWSKMSClient();
-            newClient.setRegion(region);
-            kmsClientMap.put(region, newClient);
-            client = newClient;
-        }
+        return kmsClientMap.computeIfAbsent(region, r -> {
+            final AWSKMSClient client = new AWSKMSClient(new DefaultAWSCredentialsProviderChain(), clientConfiguration,
+                    new ThrottleMetricCollector(throttleCounter(r)));
+            client.setRegion(r);
+            client.addRequestHandler(new MetricsRequestHandler(r));
+            return client;
+        });
+    }
 
-        return client;
+    /**
+     * Returns an asynchronous KMS client for the given region.  Clients are cached by region.  The KMS calls of the
+     * client still block, on the client's own pool of threads rather than on the caller's.
+     *
+     * @param region Region to configure a client for
+     * @return AWS KMS async client
+     */
+    public AWSKMSAsync getAsyncClient(Region region) {
+        return kmsAsyncClientMap.computeIfAbsent(region, r -> AWSKMSAsyncClientBuilder.standard()
+                .withRegion(r.getName())
+                .withClientConfiguration(clientConfiguration)
+                .withRequestHandlers(new MetricsRequestHandler(r))
+                .withMetricsCollector(new ThrottleMetricCollector(throttleCounter(r)))
+                .withExecutorFactory(asyncExecutorFactory(r))
+                .build());
     }
 
     /**
@@ -71,4 +148,81 @@ public class KmsClientFactory {
                     .build();
         }
     }
+
+    private ExecutorFactory asyncExecutorFactory(final Region region) {
+        return () -> Executors.newFixedThreadPool(asyncThreads, new ThreadFactoryBuilder()
+                .setNameFormat("cms-kms-async-" + region.getName() + "-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+    private Counter throttleCounter(final Region region) {
+        return metricRegistry.counter(MetricRegistry.name(METRIC_PREFIX, region.getName(), "throttle"));
+    }
+
+    /**
+     * Records the latency of every KMS call made in a region, and counts the calls that failed after all retries.
+     */
+    private final class MetricsRequestHandler extends RequestHandler2 {
+
+        private final Timer latencyTimer;
+
+        private final Counter errorCounter;
+
+        private MetricsRequestHandler(final Region region) {
+            final String regionPrefix = MetricRegistry.name(METRIC_PREFIX, region.getName());
+            this.latencyTimer = metricRegistry.timer(MetricRegistry.name(regionPrefix, "latency"));
+            this.errorCounter = metricRegistry.counter(MetricRegistry.name(regionPrefix, "error"));
+        }
+
+        @Override
+        public void beforeRequest(final Request<?> request) {
+            request.addHandlerContext(REQUEST_START_NANOS, System.nanoTime());
+        }
+
+        @Override
+        public void afterResponse(final Request<?> request, final Response<?> response) {
+            recordLatency(request);
+        }
+
+        @Override
+        public void afterError(final Request<?> request, final Response<?> response, final Exception e) {
+            recordLatency(request);
+            errorCounter.inc();
+        }
+
+        private void recordLatency(final Request<?> request) {
+            final Long startNanos = request.getHandlerContext(REQUEST_START_NANOS);
+            if (startNanos != null) {
+                latencyTimer.update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Counts every throttled attempt of the KMS calls made in a region.  Request handlers only see the final outcome
+     * of a call, the SDK request metrics count each throttled attempt, including the ones that were retried.
+     */
+    static final class ThrottleMetricCollector extends RequestMetricCollector {
+
+        private final Counter throttleCounter;
+
+        ThrottleMetricCollector(final Counter throttleCounter) {
+            this.throttleCounter = throttleCounter;
+        }
+
+        @Override
+        public void collectMetrics(final Request<?> request, final Response<?> response) {
+            final AWSRequestMetrics requestMetrics = request.getAWSRequestMetrics();
+            if (requestMetrics == null) {
+                return;
+            }
+
+            final Number throttledAttempts = requestMetrics.getTimingInfo()
+                    .getCounter(AWSRequestMetrics.Field.ThrottleException.name());
+            if (throttledAttempts != null) {
+                throttleCounter.inc(throttledAttempts.longValue());
+            }
+        }
+    }
 }
@@ -19,9 +19,11 @@ package com.nike.cerberus.dao;
 import com.nike.cerberus.mapper.AwsIamRoleMapper;
 import com.nike.cerberus.record.AwsIamRoleKmsKeyRecord;
 import com.nike.cerberus.record.AwsIamRolePermissionRecord;
+import com.nike.cerberus.record.AwsIamRolePermissionWithArnRecord;
 import com.nike.cerberus.record.AwsIamRoleRecord;
 
 import javax.inject.Inject;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -53,6 +55,15 @@ public class AwsIamRoleDao {
         return awsIamRoleMapper.getIamRolePermissions(safeDepositBoxId);
     }
 
+    public List<AwsIamRolePermissionWithArnRecord> getIamRolePermissionsWithArn(final String safeDepositBoxId) {
+        return awsIamRoleMapper.getIamRolePermissionsWithArn(safeDepositBoxId);
+    }
+
+    public List<AwsIamRolePermissionWithArnRecord> getIamRolePermissionsWithArn(
+            final Collection<String> safeDepositBoxIds) {
+        return awsIamRoleMapper.getIamRolePermissionsWithArnBySafeDepositBoxIds(safeDepositBoxIds);
+    }
+
     public int createIamRolePermission(final AwsIamRolePermissionRecord record) {
         return awsIamRoleMapper.createIamRolePermission(record);
     }
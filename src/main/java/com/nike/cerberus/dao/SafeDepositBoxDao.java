@@ -21,6 +21,7 @@ import com.nike.cerberus.record.SafeDepositBoxRecord;
 import com.nike.cerberus.record.SafeDepositBoxRoleRecord;
 
 import javax.inject.Inject;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -53,6 +54,12 @@ public class SafeDepositBoxDao {
         return safeDepositBoxMapper.getSafeDepositBoxes(limit, offset);
     }
 
+    public List<SafeDepositBoxRecord> getSafeDepositBoxesAfter(final int limit,
+                                                               final OffsetDateTime createdTs,
+                                                               final String id) {
+        return safeDepositBoxMapper.getSafeDepositBoxesAfter(limit, createdTs, id);
+    }
+
     public Integer getSafeDepositBoxCount() {
         return safeDepositBoxMapper.count();
     }
@@ -18,9 +18,11 @@ package com.nike.cerberus.dao;
 
 import com.nike.cerberus.mapper.UserGroupMapper;
 import com.nike.cerberus.record.UserGroupPermissionRecord;
+import com.nike.cerberus.record.UserGroupPermissionWithNameRecord;
 import com.nike.cerberus.record.UserGroupRecord;
 
 import javax.inject.Inject;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -56,6 +58,15 @@ public class UserGroupDao {
         return userGroupMapper.getUserGroupPermissions(safeDepositBoxId);
     }
 
+    public List<UserGroupPermissionWithNameRecord> getUserGroupPermissionsWithName(final String safeDepositBoxId) {
+        return userGroupMapper.getUserGroupPermissionsWithName(safeDepositBoxId);
+    }
+
+    public List<UserGroupPermissionWithNameRecord> getUserGroupPermissionsWithName(
+            final Collection<String> safeDepositBoxIds) {
+        return userGroupMapper.getUserGroupPermissionsWithNameBySafeDepositBoxIds(safeDepositBoxIds);
+    }
+
     public int createUserGroupPermission(final UserGroupPermissionRecord record) {
         return userGroupMapper.createUserGroupPermission(record);
     }
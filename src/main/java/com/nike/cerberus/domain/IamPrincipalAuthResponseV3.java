@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.domain;
+
+/**
+ * Wraps the KMS encrypted IAM principal auth response returned by the v3 IAM principal auth endpoint, along with
+ * the encoding of the decrypted payload.
+ */
+public class IamPrincipalAuthResponseV3 {
+
+    /**
+     * The decrypted payload is the auth response as JSON without indentation.
+     */
+    public static final String PAYLOAD_ENCODING_JSON = "json";
+
+    /**
+     * The decrypted payload is the auth response as JSON without indentation, gzip compressed.
+     */
+    public static final String PAYLOAD_ENCODING_GZIP = "gzip";
+
+    private String authData;
+
+    private String payloadEncoding;
+
+    public String getAuthData() {
+        return authData;
+    }
+
+    public void setAuthData(String authData) {
+        this.authData = authData;
+    }
+
+    public String getPayloadEncoding() {
+        return payloadEncoding;
+    }
+
+    public void setPayloadEncoding(String payloadEncoding) {
+        this.payloadEncoding = payloadEncoding;
+    }
+}
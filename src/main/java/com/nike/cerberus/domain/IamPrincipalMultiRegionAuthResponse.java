@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.domain;
+
+import java.util.Map;
+
+/**
+ * Wraps the KMS encrypted IAM principal auth responses of several regions, keyed by region.  Every region's auth
+ * response holds the same Vault token.
+ */
+public class IamPrincipalMultiRegionAuthResponse {
+
+    private Map<String, String> authData;
+
+    public Map<String, String> getAuthData() {
+        return authData;
+    }
+
+    public void setAuthData(Map<String, String> authData) {
+        this.authData = authData;
+    }
+}
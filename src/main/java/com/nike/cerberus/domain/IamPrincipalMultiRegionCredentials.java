@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.domain;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+import static com.nike.cerberus.util.AwsIamRoleArnParser.AWS_IAM_PRINCIPAL_ARN_REGEX;
+
+/**
+ * Represents the IAM principal credentials sent during authentication in several regions at once.
+ */
+public class IamPrincipalMultiRegionCredentials {
+
+    public static final int MAX_REGIONS = 20;
+
+    @Pattern(regexp = AWS_IAM_PRINCIPAL_ARN_REGEX, message = "AUTH_IAM_PRINCIPAL_INVALID")
+    private String iamPrincipalArn;
+
+    @NotNull(message = "AUTH_IAM_PRINCIPAL_AWS_REGIONS_INVALID")
+    @Size(min = 1, max = MAX_REGIONS, message = "AUTH_IAM_PRINCIPAL_AWS_REGIONS_INVALID")
+    private List<String> regions;
+
+    public String getIamPrincipalArn() {
+        return iamPrincipalArn;
+    }
+
+    public void setIamPrincipalArn(String iamPrincipalArn) {
+        this.iamPrincipalArn = iamPrincipalArn;
+    }
+
+    public List<String> getRegions() {
+        return regions;
+    }
+
+    public void setRegions(List<String> regions) {
+        this.regions = regions;
+    }
+}
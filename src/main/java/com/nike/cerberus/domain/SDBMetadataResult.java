@@ -26,6 +26,7 @@ public class SDBMetadataResult {
     private int offset = 0;
     private int sdbCountInResult;
     private int totalSDBCount;
+    private String nextCursor;
     private List<SDBMetadata> safeDepositBoxMetadata;
 
     public boolean isHasNext() {
@@ -76,6 +77,14 @@ public class SDBMetadataResult {
         this.totalSDBCount = totalSDBCount;
     }
 
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
     public List<SDBMetadata> getSafeDepositBoxMetadata() {
         return safeDepositBoxMetadata;
     }
@@ -43,8 +43,23 @@ public abstract class AdminStandardEndpoint<I, O> extends StandardEndpoint<I, O>
                                                             final Executor longRunningTaskExecutor,
                                                             final ChannelHandlerContext ctx) {
 
-        final Optional<SecurityContext> securityContext =
-                CmsRequestSecurityValidator.getSecurityContextForRequest(request);
+        final CompletableFuture<Optional<SecurityContext>> securityContextFuture =
+                CmsRequestSecurityValidator.getSecurityContextFutureForRequest(request);
+
+        // token validation may still be in flight on the token validation executor, avoid blocking the worker thread
+        if (!securityContextFuture.isDone()) {
+            return securityContextFuture.thenCompose(securityContext ->
+                    executeIfAdmin(request, longRunningTaskExecutor, ctx, securityContext));
+        }
+
+        return executeIfAdmin(request, longRunningTaskExecutor, ctx,
+                CmsRequestSecurityValidator.getSecurityContextForRequest(request));
+    }
+
+    private CompletableFuture<ResponseInfo<O>> executeIfAdmin(final RequestInfo<I> request,
+                                                              final Executor longRunningTaskExecutor,
+                                                              final ChannelHandlerContext ctx,
+                                                              final Optional<SecurityContext> securityContext) {
 
         String principal = securityContext.isPresent() ?
                 securityContext.get().getUserPrincipal() instanceof VaultAuthPrincipal ?
@@ -43,6 +43,7 @@ public class GetSDBMetadata extends AdminStandardEndpoint<Void, SDBMetadataResul
 
     protected static final String OFFSET_QUERY_KEY = "offset";
     protected static final String LIMIT_QUERY_KEY = "limit";
+    protected static final String CURSOR_QUERY_KEY = "cursor";
     protected static final int DEFAULT_OFFSET = 0;
     protected static final int DEFAULT_LIMIT = 100;
 
@@ -65,7 +66,12 @@ public class GetSDBMetadata extends AdminStandardEndpoint<Void, SDBMetadataResul
         );
     }
 
-    private FullResponseInfo<SDBMetadataResult> getMetadata(RequestInfo<Void> request) {
+    protected FullResponseInfo<SDBMetadataResult> getMetadata(RequestInfo<Void> request) {
+        String cursor = request.getQueryParamSingle(CURSOR_QUERY_KEY);
+        if (cursor != null) {
+            return ResponseInfo.newBuilder(metadataService.getSDBMetadata(getLimit(request), cursor)).build();
+        }
+
         return ResponseInfo.newBuilder(metadataService.getSDBMetadata(getLimit(request), getOffset(request)))
                 .build();
     }
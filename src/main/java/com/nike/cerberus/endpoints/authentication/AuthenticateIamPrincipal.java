@@ -53,6 +53,15 @@ public class AuthenticateIamPrincipal extends StandardEndpoint<IamPrincipalCrede
     public CompletableFuture<ResponseInfo<IamRoleAuthResponse>> execute(final RequestInfo<IamPrincipalCredentials> request,
                                                                         final Executor longRunningTaskExecutor,
                                                                         final ChannelHandlerContext ctx) {
+        if (authenticationService.isIamAuthAsyncEnabled()) {
+            logAuthEvent(request.getContent());
+            final Executor tracingExecutor =
+                    runnable -> longRunningTaskExecutor.execute(AsyncNettyHelper.runnableWithTracingAndMdc(runnable, ctx));
+
+            return authenticationService.authenticateAsync(request.getContent(), tracingExecutor)
+                    .thenApply(authResponse -> ResponseInfo.newBuilder(authResponse).build());
+        }
+
         return CompletableFuture.supplyAsync(
                 AsyncNettyHelper.supplierWithTracingAndMdc(() -> authenticate(request), ctx),
                 longRunningTaskExecutor
@@ -60,13 +69,16 @@ public class AuthenticateIamPrincipal extends StandardEndpoint<IamPrincipalCrede
     }
 
     private ResponseInfo<IamRoleAuthResponse> authenticate(RequestInfo<IamPrincipalCredentials> request) {
-        IamPrincipalCredentials credentials = request.getContent();
-        log.info("IAM Auth Event: the IAM principal {} in attempting to authenticate in region {}",
-                credentials.getIamPrincipalArn(), credentials.getRegion());
+        logAuthEvent(request.getContent());
 
         return ResponseInfo.newBuilder(authenticationService.authenticate(request.getContent())).build();
     }
 
+    private void logAuthEvent(IamPrincipalCredentials credentials) {
+        log.info("IAM Auth Event: the IAM principal {} in attempting to authenticate in region {}",
+                credentials.getIamPrincipalArn(), credentials.getRegion());
+    }
+
     @Override
     public Matcher requestMatcher() {
         return Matcher.match("/v2/auth/iam-principal", HttpMethod.POST);
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.nike.cerberus.endpoints.authentication;
+
+import com.nike.cerberus.domain.IamPrincipalMultiRegionAuthResponse;
+import com.nike.cerberus.domain.IamPrincipalMultiRegionCredentials;
+import com.nike.cerberus.service.AuthenticationService;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.StandardEndpoint;
+import com.nike.riposte.util.AsyncNettyHelper;
+import com.nike.riposte.util.Matcher;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpMethod;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Authentication endpoint for IAM principals that work in several regions.  A single client token is created and
+ * returned encrypted via KMS once per requested region, replacing one authentication per region.
+ */
+public class AuthenticateIamPrincipalMultiRegion
+        extends StandardEndpoint<IamPrincipalMultiRegionCredentials, IamPrincipalMultiRegionAuthResponse> {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final AuthenticationService authenticationService;
+
+    @Inject
+    public AuthenticateIamPrincipalMultiRegion(final AuthenticationService authenticationService) {
+        this.authenticationService = authenticationService;
+    }
+
+    @Override
+    public CompletableFuture<ResponseInfo<IamPrincipalMultiRegionAuthResponse>> execute(
+            final RequestInfo<IamPrincipalMultiRegionCredentials> request,
+            final Executor longRunningTaskExecutor,
+            final ChannelHandlerContext ctx) {
+        final IamPrincipalMultiRegionCredentials credentials = request.getContent();
+        log.info("IAM Auth Event: the IAM principal {} in attempting to authenticate in regions {}",
+                credentials.getIamPrincipalArn(), credentials.getRegions());
+
+        final Executor tracingExecutor =
+                runnable -> longRunningTaskExecutor.execute(AsyncNettyHelper.runnableWithTracingAndMdc(runnable, ctx));
+
+        return authenticationService.authenticateAsync(credentials, tracingExecutor)
+                .thenApply(authResponse -> ResponseInfo.newBuilder(authResponse).build());
+    }
+
+    @Override
+    public Matcher requestMatcher() {
+        return Matcher.match("/v2/auth/iam-principal/multi-region", HttpMethod.POST);
+    }
+}
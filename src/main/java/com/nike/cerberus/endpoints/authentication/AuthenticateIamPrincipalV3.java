@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.endpoints.authentication;
+
+import com.nike.cerberus.domain.IamPrincipalAuthResponseV3;
+import com.nike.cerberus.domain.IamPrincipalCredentials;
+import com.nike.cerberus.service.AuthenticationService;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.StandardEndpoint;
+import com.nike.riposte.util.AsyncNettyHelper;
+import com.nike.riposte.util.Matcher;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpMethod;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Authentication endpoint for IAM principals that returns a compactly encoded auth response.  The auth response is
+ * serialized without indentation, and gzip compressed when enabled, before it is encrypted via KMS, so that its
+ * policies and metadata fit under the size KMS can encrypt.  The encoding of the decrypted payload is returned
+ * along with the encrypted auth response.
+ */
+public class AuthenticateIamPrincipalV3 extends StandardEndpoint<IamPrincipalCredentials, IamPrincipalAuthResponseV3> {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final AuthenticationService authenticationService;
+
+    @Inject
+    public AuthenticateIamPrincipalV3(final AuthenticationService authenticationService) {
+        this.authenticationService = authenticationService;
+    }
+
+    @Override
+    public CompletableFuture<ResponseInfo<IamPrincipalAuthResponseV3>> execute(final RequestInfo<IamPrincipalCredentials> request,
+                                                                               final Executor longRunningTaskExecutor,
+                                                                               final ChannelHandlerContext ctx) {
+        if (authenticationService.isIamAuthAsyncEnabled()) {
+            logAuthEvent(request.getContent());
+            final Executor tracingExecutor =
+                    runnable -> longRunningTaskExecutor.execute(AsyncNettyHelper.runnableWithTracingAndMdc(runnable, ctx));
+
+            return authenticationService.authenticateCompactAsync(request.getContent(), tracingExecutor)
+                    .thenApply(authResponse -> ResponseInfo.newBuilder(authResponse).build());
+        }
+
+        return CompletableFuture.supplyAsync(
+                AsyncNettyHelper.supplierWithTracingAndMdc(() -> authenticate(request), ctx),
+                longRunningTaskExecutor
+        );
+    }
+
+    private ResponseInfo<IamPrincipalAuthResponseV3> authenticate(RequestInfo<IamPrincipalCredentials> request) {
+        logAuthEvent(request.getContent());
+
+        return ResponseInfo.newBuilder(authenticationService.authenticateCompact(request.getContent())).build();
+    }
+
+    private void logAuthEvent(IamPrincipalCredentials credentials) {
+        log.info("IAM Auth Event: the IAM principal {} in attempting to authenticate in region {}",
+                credentials.getIamPrincipalArn(), credentials.getRegion());
+    }
+
+    @Override
+    public Matcher requestMatcher() {
+        return Matcher.match("/v3/auth/iam-principal", HttpMethod.POST);
+    }
+}
@@ -54,6 +54,15 @@ public class AuthenticateIamRole extends StandardEndpoint<IamRoleCredentials, Ia
     public CompletableFuture<ResponseInfo<IamRoleAuthResponse>> execute(final RequestInfo<IamRoleCredentials> request,
                                                                         final Executor longRunningTaskExecutor,
                                                                         final ChannelHandlerContext ctx) {
+        if (authenticationService.isIamAuthAsyncEnabled()) {
+            logAuthEvent(request.getContent());
+            final Executor tracingExecutor =
+                    runnable -> longRunningTaskExecutor.execute(AsyncNettyHelper.runnableWithTracingAndMdc(runnable, ctx));
+
+            return authenticationService.authenticateAsync(request.getContent(), tracingExecutor)
+                    .thenApply(authResponse -> ResponseInfo.newBuilder(authResponse).build());
+        }
+
         return CompletableFuture.supplyAsync(
                 AsyncNettyHelper.supplierWithTracingAndMdc(() -> authenticate(request), ctx),
                 longRunningTaskExecutor
@@ -62,12 +71,15 @@ public class AuthenticateIamRole extends StandardEndpoint<IamRoleCredentials, Ia
     }
 
     private ResponseInfo<IamRoleAuthResponse> authenticate(RequestInfo<IamRoleCredentials> request) {
-        IamRoleCredentials credentials = request.getContent();
+        logAuthEvent(request.getContent());
+
+        return ResponseInfo.newBuilder(authenticationService.authenticate(request.getContent())).build();
+    }
+
+    private void logAuthEvent(IamRoleCredentials credentials) {
         log.info("IAM Auth Event: the IAM principal {} in attempting to authenticate in region {}",
                 String.format(AwsIamRoleArnParser.AWS_IAM_ROLE_ARN_TEMPLATE,
                         credentials.getAccountId(), credentials.getRoleName()), credentials.getRegion());
-
-        return ResponseInfo.newBuilder(authenticationService.authenticate(request.getContent())).build();
     }
 
     @Override
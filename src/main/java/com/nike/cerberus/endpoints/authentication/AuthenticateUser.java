@@ -57,6 +57,16 @@ public class AuthenticateUser extends StandardEndpoint<Void, AuthResponse> {
     public CompletableFuture<ResponseInfo<AuthResponse>> execute(final RequestInfo<Void> request,
                                                                  final Executor longRunningTaskExecutor,
                                                                  final ChannelHandlerContext ctx) {
+        if (authenticationService.isUserAuthAsyncEnabled()) {
+            final UserCredentials credentials = extractCredentials(request.getHeaders().get(HttpHeaders.AUTHORIZATION));
+            logAuthEvent(credentials);
+            final Executor tracingExecutor =
+                    runnable -> longRunningTaskExecutor.execute(AsyncNettyHelper.runnableWithTracingAndMdc(runnable, ctx));
+
+            return authenticationService.authenticateAsync(credentials, tracingExecutor)
+                    .thenApply(authResponse -> ResponseInfo.newBuilder(authResponse).build());
+        }
+
         return CompletableFuture.supplyAsync(
                 AsyncNettyHelper.supplierWithTracingAndMdc(() -> authenticate(request), ctx),
                 longRunningTaskExecutor
@@ -66,11 +76,15 @@ public class AuthenticateUser extends StandardEndpoint<Void, AuthResponse> {
     private ResponseInfo<AuthResponse> authenticate(RequestInfo<Void> request) {
         final UserCredentials credentials = extractCredentials(request.getHeaders().get(HttpHeaders.AUTHORIZATION));
 
-        log.info("User Auth Event: the principal: {} is attempting to authenticate", credentials.getUsername());
+        logAuthEvent(credentials);
 
         return ResponseInfo.newBuilder(authenticationService.authenticate(credentials)).build();
     }
 
+    private void logAuthEvent(UserCredentials credentials) {
+        log.info("User Auth Event: the principal: {} is attempting to authenticate", credentials.getUsername());
+    }
+
     @Override
     public Matcher requestMatcher() {
         return Matcher.match("/v2/auth/user", HttpMethod.GET);
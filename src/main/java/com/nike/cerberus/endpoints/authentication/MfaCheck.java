@@ -47,6 +47,14 @@ public class MfaCheck extends StandardEndpoint<MfaCheckRequest, AuthResponse> {
     public CompletableFuture<ResponseInfo<AuthResponse>> execute(final RequestInfo<MfaCheckRequest> request,
                                                                  final Executor longRunningTaskExecutor,
                                                                  final ChannelHandlerContext ctx) {
+        if (authenticationService.isUserAuthAsyncEnabled()) {
+            final Executor tracingExecutor =
+                    runnable -> longRunningTaskExecutor.execute(AsyncNettyHelper.runnableWithTracingAndMdc(runnable, ctx));
+
+            return authenticationService.mfaCheckAsync(request.getContent(), tracingExecutor)
+                    .thenApply(authResponse -> ResponseInfo.newBuilder(authResponse).build());
+        }
+
         return CompletableFuture.supplyAsync(
                 AsyncNettyHelper.supplierWithTracingAndMdc(
                         () -> ResponseInfo.newBuilder(authenticationService.mfaCheck(request.getContent())).build(),
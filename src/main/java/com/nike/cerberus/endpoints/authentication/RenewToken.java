@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.endpoints.authentication;
+
+import com.nike.backstopper.exception.ApiException;
+import com.nike.cerberus.error.DefaultApiError;
+import com.nike.cerberus.security.CmsRequestSecurityValidator;
+import com.nike.cerberus.security.VaultAuthPrincipal;
+import com.nike.cerberus.service.AuthenticationService;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import com.nike.riposte.server.http.StandardEndpoint;
+import com.nike.riposte.util.AsyncNettyHelper;
+import com.nike.riposte.util.Matcher;
+import com.nike.vault.client.model.VaultAuthResponse;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpMethod;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.ws.rs.core.SecurityContext;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Renews the token supplied in the Vault token header, extending its lease without a full re-authentication.
+ */
+public class RenewToken extends StandardEndpoint<Void, VaultAuthResponse> {
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final AuthenticationService authenticationService;
+
+    @Inject
+    public RenewToken(final AuthenticationService authenticationService) {
+        this.authenticationService = authenticationService;
+    }
+
+    @Override
+    public CompletableFuture<ResponseInfo<VaultAuthResponse>> execute(final RequestInfo<Void> request,
+                                                                      final Executor longRunningTaskExecutor,
+                                                                      final ChannelHandlerContext ctx) {
+        return CompletableFuture.supplyAsync(
+                AsyncNettyHelper.supplierWithTracingAndMdc(() -> renewToken(request), ctx),
+                longRunningTaskExecutor
+        );
+    }
+
+    public ResponseInfo<VaultAuthResponse> renewToken(final RequestInfo<Void> request) {
+        final Optional<SecurityContext> securityContext =
+                CmsRequestSecurityValidator.getSecurityContextForRequest(request);
+
+        if (securityContext.isPresent()) {
+            final VaultAuthPrincipal vaultAuthPrincipal =
+                    (VaultAuthPrincipal) securityContext.get().getUserPrincipal();
+            log.info("Renew Token Auth Event: the principal: {} is attempting to renew its token", vaultAuthPrincipal.getName());
+
+            return ResponseInfo.newBuilder(authenticationService.renewToken(vaultAuthPrincipal)).build();
+        }
+
+        throw ApiException.newBuilder().withApiErrors(DefaultApiError.AUTH_VAULT_TOKEN_INVALID).build();
+    }
+
+    @Override
+    public Matcher requestMatcher() {
+        return Matcher.match("/v2/auth/token/renew", HttpMethod.POST);
+    }
+}
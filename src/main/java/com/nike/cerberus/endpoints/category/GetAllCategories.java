@@ -17,6 +17,7 @@
 package com.nike.cerberus.endpoints.category;
 
 import com.nike.cerberus.domain.Category;
+import com.nike.cerberus.security.CmsRequestSecurityValidator;
 import com.nike.cerberus.service.CategoryService;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
@@ -48,7 +49,10 @@ public class GetAllCategories extends StandardEndpoint<Void, List<Category>> {
                                                                    Executor longRunningTaskExecutor,
                                                                    ChannelHandlerContext ctx) {
         return CompletableFuture.supplyAsync(
-                AsyncNettyHelper.supplierWithTracingAndMdc(this::getAllCategories, ctx),
+                AsyncNettyHelper.supplierWithTracingAndMdc(() -> {
+                    CmsRequestSecurityValidator.awaitSecurityValidation(request);
+                    return getAllCategories();
+                }, ctx),
                 longRunningTaskExecutor
         );
     }
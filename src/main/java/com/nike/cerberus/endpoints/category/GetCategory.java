@@ -17,6 +17,7 @@
 package com.nike.cerberus.endpoints.category;
 
 import com.nike.cerberus.domain.Category;
+import com.nike.cerberus.security.CmsRequestSecurityValidator;
 import com.nike.cerberus.service.CategoryService;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
@@ -52,6 +53,7 @@ public class GetCategory extends StandardEndpoint<Void, Category> {
                                                              ChannelHandlerContext ctx) {
         return CompletableFuture.supplyAsync(
                 AsyncNettyHelper.supplierWithTracingAndMdc(() -> {
+                    CmsRequestSecurityValidator.awaitSecurityValidation(request);
                     String id = request.getPathParam(PATH_PARAM_ID);
                     return getCategory(id);
                 }, ctx),
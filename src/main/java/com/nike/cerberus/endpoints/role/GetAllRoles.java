@@ -17,6 +17,7 @@
 package com.nike.cerberus.endpoints.role;
 
 import com.nike.cerberus.domain.Role;
+import com.nike.cerberus.security.CmsRequestSecurityValidator;
 import com.nike.cerberus.service.RoleService;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
@@ -48,7 +49,10 @@ public class GetAllRoles extends StandardEndpoint<Void, List<Role>> {
                                                                final Executor longRunningTaskExecutor,
                                                                final ChannelHandlerContext ctx) {
         return CompletableFuture.supplyAsync(
-                AsyncNettyHelper.supplierWithTracingAndMdc(() -> ResponseInfo.newBuilder(roleService.getAllRoles()).build(), ctx),
+                AsyncNettyHelper.supplierWithTracingAndMdc(() -> {
+                    CmsRequestSecurityValidator.awaitSecurityValidation(request);
+                    return ResponseInfo.newBuilder(roleService.getAllRoles()).build();
+                }, ctx),
                 longRunningTaskExecutor
         );
     }
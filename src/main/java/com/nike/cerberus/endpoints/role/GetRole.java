@@ -17,6 +17,7 @@
 package com.nike.cerberus.endpoints.role;
 
 import com.nike.cerberus.domain.Role;
+import com.nike.cerberus.security.CmsRequestSecurityValidator;
 import com.nike.cerberus.service.RoleService;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
@@ -52,7 +53,10 @@ public class GetRole extends StandardEndpoint<Void, Role> {
                                                          Executor longRunningTaskExecutor,
                                                          ChannelHandlerContext ctx) {
         return CompletableFuture.supplyAsync(
-                AsyncNettyHelper.supplierWithTracingAndMdc(() -> getRole(request.getPathParam(PATH_PARAM_ID)), ctx),
+                AsyncNettyHelper.supplierWithTracingAndMdc(() -> {
+                    CmsRequestSecurityValidator.awaitSecurityValidation(request);
+                    return getRole(request.getPathParam(PATH_PARAM_ID));
+                }, ctx),
                 longRunningTaskExecutor
         );
     }
@@ -22,7 +22,7 @@ import com.nike.cerberus.domain.SafeDepositBoxV1;
 import com.nike.cerberus.error.DefaultApiError;
 import com.nike.cerberus.security.CmsRequestSecurityValidator;
 import com.nike.cerberus.security.VaultAuthPrincipal;
-import com.nike.cerberus.service.SafeDepositBoxService;
+import com.nike.cerberus.service.SafeDepositBoxChangeService;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
 import com.nike.riposte.server.http.StandardEndpoint;
@@ -56,11 +56,11 @@ public class CreateSafeDepositBoxV1 extends StandardEndpoint<SafeDepositBoxV1, M
 
     public static final String HEADER_X_REFRESH_TOKEN = "X-Refresh-Token";
 
-    private final SafeDepositBoxService safeDepositBoxService;
+    private final SafeDepositBoxChangeService safeDepositBoxChangeService;
 
     @Inject
-    public CreateSafeDepositBoxV1(final SafeDepositBoxService safeDepositBoxService) {
-        this.safeDepositBoxService = safeDepositBoxService;
+    public CreateSafeDepositBoxV1(final SafeDepositBoxChangeService safeDepositBoxChangeService) {
+        this.safeDepositBoxChangeService = safeDepositBoxChangeService;
     }
 
     @Override
@@ -84,8 +84,8 @@ public class CreateSafeDepositBoxV1 extends StandardEndpoint<SafeDepositBoxV1, M
             log.info("Create SDB Event: the principal: {} is attempting to create sdb name: '{}'",
                     vaultAuthPrincipal.getName(), request.getContent().getName());
 
-            final String id =
-                    safeDepositBoxService.createSafeDepositBoxV1(request.getContent(), vaultAuthPrincipal.getName());
+            final String id = safeDepositBoxChangeService.createSafeDepositBoxV1(
+                    request.getContent(), vaultAuthPrincipal.getName());
 
             final String location = basePath + "/" + id;
             final Map<String, String> map = Maps.newHashMap();
@@ -24,7 +24,7 @@ import com.nike.cerberus.domain.SafeDepositBoxV2;
 import com.nike.cerberus.error.DefaultApiError;
 import com.nike.cerberus.security.CmsRequestSecurityValidator;
 import com.nike.cerberus.security.VaultAuthPrincipal;
-import com.nike.cerberus.service.SafeDepositBoxService;
+import com.nike.cerberus.service.SafeDepositBoxChangeService;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
 import com.nike.riposte.server.http.StandardEndpoint;
@@ -53,11 +53,11 @@ public class CreateSafeDepositBoxV2 extends StandardEndpoint<SafeDepositBoxV2, S
 
     public static final String HEADER_X_REFRESH_TOKEN = "X-Refresh-Token";
 
-    private final SafeDepositBoxService safeDepositBoxService;
+    private final SafeDepositBoxChangeService safeDepositBoxChangeService;
 
     @Inject
-    public CreateSafeDepositBoxV2(final SafeDepositBoxService safeDepositBoxService) {
-        this.safeDepositBoxService = safeDepositBoxService;
+    public CreateSafeDepositBoxV2(final SafeDepositBoxChangeService safeDepositBoxChangeService) {
+        this.safeDepositBoxChangeService = safeDepositBoxChangeService;
     }
 
     @Override
@@ -77,8 +77,8 @@ public class CreateSafeDepositBoxV2 extends StandardEndpoint<SafeDepositBoxV2, S
 
         if (securityContext.isPresent()) {
             final VaultAuthPrincipal vaultAuthPrincipal = (VaultAuthPrincipal) securityContext.get().getUserPrincipal();
-            final SafeDepositBoxV2 safeDepositBox =
-                    safeDepositBoxService.createSafeDepositBoxV2(request.getContent(), vaultAuthPrincipal.getName());
+            final SafeDepositBoxV2 safeDepositBox = safeDepositBoxChangeService.createSafeDepositBoxV2(
+                    request.getContent(), vaultAuthPrincipal.getName());
 
             final String location = basePath + "/" + safeDepositBox.getId();
 
@@ -21,6 +21,7 @@ import com.nike.backstopper.exception.ApiException;
 import com.nike.cerberus.error.DefaultApiError;
 import com.nike.cerberus.security.CmsRequestSecurityValidator;
 import com.nike.cerberus.security.VaultAuthPrincipal;
+import com.nike.cerberus.service.SafeDepositBoxChangeService;
 import com.nike.cerberus.service.SafeDepositBoxService;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
@@ -52,9 +53,13 @@ public class DeleteSafeDepositBox extends StandardEndpoint<Void, Void> {
 
     private final SafeDepositBoxService safeDepositBoxService;
 
+    private final SafeDepositBoxChangeService safeDepositBoxChangeService;
+
     @Inject
-    public DeleteSafeDepositBox(final SafeDepositBoxService safeDepositBoxService) {
+    public DeleteSafeDepositBox(final SafeDepositBoxService safeDepositBoxService,
+                                final SafeDepositBoxChangeService safeDepositBoxChangeService) {
         this.safeDepositBoxService = safeDepositBoxService;
+        this.safeDepositBoxChangeService = safeDepositBoxChangeService;
     }
 
     @Override
@@ -79,7 +84,7 @@ public class DeleteSafeDepositBox extends StandardEndpoint<Void, Void> {
             log.info("Delete SDB Event: the principal: {} is attempting to delete sdb name: '{}' and id: '{}'",
                     vaultAuthPrincipal.getName(), sdbName, sdbId);
 
-            safeDepositBoxService.deleteSafeDepositBox(vaultAuthPrincipal.getUserGroups(), sdbId);
+            safeDepositBoxChangeService.deleteSafeDepositBox(vaultAuthPrincipal.getUserGroups(), sdbId);
             return ResponseInfo.<Void>newBuilder().withHttpStatusCode(HttpResponseStatus.OK.code())
                     .withHeaders(new DefaultHttpHeaders().set(HEADER_X_REFRESH_TOKEN, Boolean.TRUE.toString()))
                     .build();
@@ -21,6 +21,7 @@ import com.nike.cerberus.domain.SafeDepositBoxV1;
 import com.nike.cerberus.error.DefaultApiError;
 import com.nike.cerberus.security.CmsRequestSecurityValidator;
 import com.nike.cerberus.security.VaultAuthPrincipal;
+import com.nike.cerberus.service.SafeDepositBoxChangeService;
 import com.nike.cerberus.service.SafeDepositBoxService;
 import com.nike.cerberus.validation.group.Updatable;
 import com.nike.riposte.server.http.RequestInfo;
@@ -53,9 +54,13 @@ public class UpdateSafeDepositBoxV1 extends StandardEndpoint<SafeDepositBoxV1, V
 
     private final SafeDepositBoxService safeDepositBoxService;
 
+    private final SafeDepositBoxChangeService safeDepositBoxChangeService;
+
     @Inject
-    public UpdateSafeDepositBoxV1(final SafeDepositBoxService safeDepositBoxService) {
+    public UpdateSafeDepositBoxV1(final SafeDepositBoxService safeDepositBoxService,
+                                  final SafeDepositBoxChangeService safeDepositBoxChangeService) {
         this.safeDepositBoxService = safeDepositBoxService;
+        this.safeDepositBoxChangeService = safeDepositBoxChangeService;
     }
 
     @Override
@@ -82,7 +87,7 @@ public class UpdateSafeDepositBoxV1 extends StandardEndpoint<SafeDepositBoxV1, V
             log.info("Update SDB Event: the principal: {} is attempting to update sdb name: '{}' and id: '{}'",
                     vaultAuthPrincipal.getName(), sdbName, sdbId);
 
-            safeDepositBoxService.updateSafeDepositBoxV1(request.getContent(),
+            safeDepositBoxChangeService.updateSafeDepositBoxV1(request.getContent(),
                     vaultAuthPrincipal.getUserGroups(),
                     vaultAuthPrincipal.getName(),
                     sdbId);
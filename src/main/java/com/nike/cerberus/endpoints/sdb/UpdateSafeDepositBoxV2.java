@@ -22,7 +22,7 @@ import com.nike.cerberus.domain.SafeDepositBoxV2;
 import com.nike.cerberus.error.DefaultApiError;
 import com.nike.cerberus.security.CmsRequestSecurityValidator;
 import com.nike.cerberus.security.VaultAuthPrincipal;
-import com.nike.cerberus.service.SafeDepositBoxService;
+import com.nike.cerberus.service.SafeDepositBoxChangeService;
 import com.nike.cerberus.validation.group.Updatable;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
@@ -47,11 +47,11 @@ public class UpdateSafeDepositBoxV2 extends StandardEndpoint<SafeDepositBoxV2, S
 
     public static final String HEADER_X_REFRESH_TOKEN = "X-Refresh-Token";
 
-    private final SafeDepositBoxService safeDepositBoxService;
+    private final SafeDepositBoxChangeService safeDepositBoxChangeService;
 
     @Inject
-    public UpdateSafeDepositBoxV2(final SafeDepositBoxService safeDepositBoxService) {
-        this.safeDepositBoxService = safeDepositBoxService;
+    public UpdateSafeDepositBoxV2(final SafeDepositBoxChangeService safeDepositBoxChangeService) {
+        this.safeDepositBoxChangeService = safeDepositBoxChangeService;
     }
 
     @Override
@@ -70,7 +70,7 @@ public class UpdateSafeDepositBoxV2 extends StandardEndpoint<SafeDepositBoxV2, S
 
         if (securityContext.isPresent()) {
             final VaultAuthPrincipal vaultAuthPrincipal = (VaultAuthPrincipal) securityContext.get().getUserPrincipal();
-            SafeDepositBoxV2 safeDepositBoxV2 = safeDepositBoxService.updateSafeDepositBoxV2(request.getContent(),
+            SafeDepositBoxV2 safeDepositBoxV2 = safeDepositBoxChangeService.updateSafeDepositBoxV2(request.getContent(),
                     vaultAuthPrincipal.getUserGroups(),
                     vaultAuthPrincipal.getName(),
                     request.getPathParam("id"));
@@ -222,6 +222,26 @@ public enum DefaultApiError implements ApiError {
      */
     AUTHENTICATION_ERROR_INVALID_REGION(99229, "Invalid AWS region provided during authentication.", HttpServletResponse.SC_BAD_REQUEST),
 
+    /**
+     * Token renewal would extend the token past its configured max lifetime
+     */
+    AUTH_VAULT_TOKEN_RENEWAL_LIMIT_REACHED(99230, "Token has reached its max lifetime, authenticate again for a new token.", HttpServletResponse.SC_BAD_REQUEST),
+
+    /**
+     * Token was not issued by CMS or can not be renewed by Vault
+     */
+    AUTH_VAULT_TOKEN_NOT_RENEWABLE(99231, "Token can not be renewed.", HttpServletResponse.SC_BAD_REQUEST),
+
+    /**
+     * Multi-region IAM authentication requested no regions or too many
+     */
+    AUTH_IAM_PRINCIPAL_AWS_REGIONS_INVALID(99232, "Between 1 and 20 AWS regions must be given.", HttpServletResponse.SC_BAD_REQUEST),
+
+    /**
+     * The permissions of the principal changed since the token was issued
+     */
+    AUTH_VAULT_TOKEN_PERMISSIONS_CHANGED(99233, "Permissions changed since the token was issued, authenticate again for a new token.", HttpServletResponse.SC_BAD_REQUEST),
+
     /**
      * Generic not found error.
      */
@@ -18,9 +18,11 @@ package com.nike.cerberus.mapper;
 
 import com.nike.cerberus.record.AwsIamRoleKmsKeyRecord;
 import com.nike.cerberus.record.AwsIamRolePermissionRecord;
+import com.nike.cerberus.record.AwsIamRolePermissionWithArnRecord;
 import com.nike.cerberus.record.AwsIamRoleRecord;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -48,6 +50,11 @@ public interface AwsIamRoleMapper {
 
     List<AwsIamRolePermissionRecord> getIamRolePermissions(@Param("safeDepositBoxId") String safeDepositBoxId);
 
+    List<AwsIamRolePermissionWithArnRecord> getIamRolePermissionsWithArn(@Param("safeDepositBoxId") String safeDepositBoxId);
+
+    List<AwsIamRolePermissionWithArnRecord> getIamRolePermissionsWithArnBySafeDepositBoxIds(
+            @Param("safeDepositBoxIds") Collection<String> safeDepositBoxIds);
+
     int deleteIamRolePermissions(@Param("safeDepositBoxId") String safeDepositBoxId);
 
     int updateIamRoleKmsKey(@Param("record") AwsIamRoleKmsKeyRecord record);
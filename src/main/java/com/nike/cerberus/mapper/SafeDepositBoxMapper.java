@@ -20,6 +20,7 @@ import com.nike.cerberus.record.SafeDepositBoxRecord;
 import com.nike.cerberus.record.SafeDepositBoxRoleRecord;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Set;
 
@@ -48,6 +49,10 @@ public interface SafeDepositBoxMapper {
 
     List<SafeDepositBoxRecord> getSafeDepositBoxes(@Param("limit") int limit, @Param("offset") int offset);
 
+    List<SafeDepositBoxRecord> getSafeDepositBoxesAfter(@Param("limit") int limit,
+                                                        @Param("createdTs") OffsetDateTime createdTs,
+                                                        @Param("id") String id);
+
     int count();
 
     String getSafeDepositBoxIdByName(@Param("name") String name);
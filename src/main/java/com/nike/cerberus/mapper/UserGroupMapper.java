@@ -17,9 +17,11 @@
 package com.nike.cerberus.mapper;
 
 import com.nike.cerberus.record.UserGroupPermissionRecord;
+import com.nike.cerberus.record.UserGroupPermissionWithNameRecord;
 import com.nike.cerberus.record.UserGroupRecord;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -45,5 +47,10 @@ public interface UserGroupMapper {
 
     List<UserGroupPermissionRecord> getUserGroupPermissions(@Param("safeDepositBoxId") String safeDepositBoxId);
 
+    List<UserGroupPermissionWithNameRecord> getUserGroupPermissionsWithName(@Param("safeDepositBoxId") String safeDepositBoxId);
+
+    List<UserGroupPermissionWithNameRecord> getUserGroupPermissionsWithNameBySafeDepositBoxIds(
+            @Param("safeDepositBoxIds") Collection<String> safeDepositBoxIds);
+
     int deleteUserGroupPermissions(@Param("safeDepositBoxId") String safeDepositBoxId);
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.record;
+
+import java.time.OffsetDateTime;
+
+/**
+ * POJO for representing an AWS_IAM_ROLE_PERMISSIONS record joined with the ARN of its IAM principal.  This is used to
+ * load the IAM principal permissions of a safe deposit box in a single query.
+ */
+public class AwsIamRolePermissionWithArnRecord {
+
+    private String id;
+
+    private String roleId;
+
+    private String awsIamRoleId;
+
+    private String awsIamRoleArn;
+
+    private String sdboxId;
+
+    private OffsetDateTime createdTs;
+
+    private OffsetDateTime lastUpdatedTs;
+
+    private String createdBy;
+
+    private String lastUpdatedBy;
+
+    public String getId() {
+        return id;
+    }
+
+    public AwsIamRolePermissionWithArnRecord setId(String id) {
+        this.id = id;
+        return this;
+    }
+
+    public String getRoleId() {
+        return roleId;
+    }
+
+    public AwsIamRolePermissionWithArnRecord setRoleId(String roleId) {
+        this.roleId = roleId;
+        return this;
+    }
+
+    public String getAwsIamRoleId() {
+        return awsIamRoleId;
+    }
+
+    public AwsIamRolePermissionWithArnRecord setAwsIamRoleId(String awsIamRoleId) {
+        this.awsIamRoleId = awsIamRoleId;
+        return this;
+    }
+
+    public String getAwsIamRoleArn() {
+        return awsIamRoleArn;
+    }
+
+    public AwsIamRolePermissionWithArnRecord setAwsIamRoleArn(String awsIamRoleArn) {
+        this.awsIamRoleArn = awsIamRoleArn;
+        return this;
+    }
+
+    public String getSdboxId() {
+        return sdboxId;
+    }
+
+    public AwsIamRolePermissionWithArnRecord setSdboxId(String sdboxId) {
+        this.sdboxId = sdboxId;
+        return this;
+    }
+
+    public OffsetDateTime getCreatedTs() {
+        return createdTs;
+    }
+
+    public AwsIamRolePermissionWithArnRecord setCreatedTs(OffsetDateTime createdTs) {
+        this.createdTs = createdTs;
+        return this;
+    }
+
+    public OffsetDateTime getLastUpdatedTs() {
+        return lastUpdatedTs;
+    }
+
+    public AwsIamRolePermissionWithArnRecord setLastUpdatedTs(OffsetDateTime lastUpdatedTs) {
+        this.lastUpdatedTs = lastUpdatedTs;
+        return this;
+    }
+
+    public String getCreatedBy() {
+        return createdBy;
+    }
+
+    public AwsIamRolePermissionWithArnRecord setCreatedBy(String createdBy) {
+        this.createdBy = createdBy;
+        return this;
+    }
+
+    public String getLastUpdatedBy() {
+        return lastUpdatedBy;
+    }
+
+    public AwsIamRolePermissionWithArnRecord setLastUpdatedBy(String lastUpdatedBy) {
+        this.lastUpdatedBy = lastUpdatedBy;
+        return this;
+    }
+}
@@ -18,7 +18,6 @@ package com.nike.cerberus.security;
 
 import com.nike.backstopper.exception.ApiException;
 import com.nike.cerberus.error.DefaultApiError;
-import com.nike.vault.client.VaultAdminClient;
 import com.nike.vault.client.VaultClientException;
 import com.nike.vault.client.VaultServerException;
 import com.nike.vault.client.model.VaultClientTokenResponse;
@@ -31,10 +30,17 @@ import javax.ws.rs.core.SecurityContext;
 import java.net.URI;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * Request validator responsible for validating that the X-Vault-Token header is present and valid.
  * The client token entity will also be placed in the request context to be referenced downstream.
+ *
+ * When constructed with a token validation executor, the Vault lookup is performed on that executor instead of the
+ * Netty worker thread and the pending result is placed in the request context.  Endpoints resolve it through
+ * {@link #getSecurityContextForRequest(RequestInfo)} or {@link #getSecurityContextFutureForRequest(RequestInfo)}.
  */
 public class CmsRequestSecurityValidator implements RequestSecurityValidator {
 
@@ -42,14 +48,25 @@ public class CmsRequestSecurityValidator implements RequestSecurityValidator {
 
     public static final String SECURITY_CONTEXT_ATTR_KEY = "vaultSecurityContext";
 
+    public static final String SECURITY_CONTEXT_FUTURE_ATTR_KEY = "vaultSecurityContextFuture";
+
     private final Collection<Endpoint<?>> endpointsToValidate;
 
-    private final VaultAdminClient vaultAdminClient;
+    private final VaultTokenLookupCache vaultTokenLookupCache;
+
+    private final Executor tokenValidationExecutor;
+
+    public CmsRequestSecurityValidator(final Collection<Endpoint<?>> endpointsToValidate,
+                                       final VaultTokenLookupCache vaultTokenLookupCache) {
+        this(endpointsToValidate, vaultTokenLookupCache, null);
+    }
 
     public CmsRequestSecurityValidator(final Collection<Endpoint<?>> endpointsToValidate,
-                                       final VaultAdminClient vaultAdminClient) {
+                                       final VaultTokenLookupCache vaultTokenLookupCache,
+                                       final Executor tokenValidationExecutor) {
         this.endpointsToValidate = endpointsToValidate;
-        this.vaultAdminClient = vaultAdminClient;
+        this.vaultTokenLookupCache = vaultTokenLookupCache;
+        this.tokenValidationExecutor = tokenValidationExecutor;
     }
 
     @Override
@@ -60,13 +77,23 @@ public class CmsRequestSecurityValidator implements RequestSecurityValidator {
             throw new ApiException(DefaultApiError.AUTH_VAULT_TOKEN_INVALID);
         }
 
+        if (tokenValidationExecutor == null) {
+            requestInfo.addRequestAttribute(SECURITY_CONTEXT_ATTR_KEY, buildSecurityContext(vaultToken, requestInfo));
+        } else {
+            final CompletableFuture<SecurityContext> securityContextFuture = CompletableFuture.supplyAsync(
+                    () -> buildSecurityContext(vaultToken, requestInfo),
+                    tokenValidationExecutor
+            );
+            requestInfo.addRequestAttribute(SECURITY_CONTEXT_FUTURE_ATTR_KEY, securityContextFuture);
+        }
+    }
+
+    private SecurityContext buildSecurityContext(final String vaultToken, final RequestInfo<?> requestInfo) {
         try {
-            final VaultClientTokenResponse clientTokenResponse = vaultAdminClient.lookupToken(vaultToken);
+            final VaultClientTokenResponse clientTokenResponse = vaultTokenLookupCache.lookupToken(vaultToken);
 
             final VaultAuthPrincipal principal = new VaultAuthPrincipal(clientTokenResponse);
-            final VaultSecurityContext securityContext = new VaultSecurityContext(principal,
-                    URI.create(requestInfo.getUri()).getScheme());
-            requestInfo.addRequestAttribute(SECURITY_CONTEXT_ATTR_KEY, securityContext);
+            return new VaultSecurityContext(principal, URI.create(requestInfo.getUri()).getScheme());
         } catch (VaultServerException vse) {
             throw ApiException.newBuilder()
                     .withApiErrors(DefaultApiError.AUTH_VAULT_TOKEN_INVALID)
@@ -85,13 +112,71 @@ public class CmsRequestSecurityValidator implements RequestSecurityValidator {
         return endpointsToValidate;
     }
 
+    /**
+     * Returns the security context for the request.  If token validation is still pending, this blocks until it
+     * completes and rethrows any validation failure, so it must not be called from a Netty worker thread.
+     *
+     * @param requestInfo The request
+     * @return The security context, if the request was validated
+     */
     public static Optional<SecurityContext> getSecurityContextForRequest(RequestInfo<?> requestInfo) {
         final Object securityContext = requestInfo.getRequestAttributes().get(SECURITY_CONTEXT_ATTR_KEY);
 
-        if (securityContext == null) {
-            return Optional.empty();
-        } else {
+        if (securityContext != null) {
             return Optional.of((SecurityContext) securityContext);
         }
+
+        final CompletableFuture<SecurityContext> securityContextFuture = getPendingSecurityContext(requestInfo);
+
+        if (securityContextFuture == null) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(securityContextFuture.join());
+        } catch (CompletionException ce) {
+            if (ce.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ce.getCause();
+            }
+            throw ce;
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #getSecurityContextForRequest(RequestInfo)}.  The returned future is already
+     * complete unless token validation is still pending.
+     *
+     * @param requestInfo The request
+     * @return Future of the security context, if the request was validated
+     */
+    public static CompletableFuture<Optional<SecurityContext>> getSecurityContextFutureForRequest(RequestInfo<?> requestInfo) {
+        final Object securityContext = requestInfo.getRequestAttributes().get(SECURITY_CONTEXT_ATTR_KEY);
+
+        if (securityContext != null) {
+            return CompletableFuture.completedFuture(Optional.of((SecurityContext) securityContext));
+        }
+
+        final CompletableFuture<SecurityContext> securityContextFuture = getPendingSecurityContext(requestInfo);
+
+        if (securityContextFuture == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        return securityContextFuture.thenApply(Optional::of);
+    }
+
+    /**
+     * Waits for any pending token validation and rethrows its failure.  Protected endpoints that never inspect the
+     * security context must call this before doing any work.
+     *
+     * @param requestInfo The request
+     */
+    public static void awaitSecurityValidation(RequestInfo<?> requestInfo) {
+        getSecurityContextForRequest(requestInfo);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<SecurityContext> getPendingSecurityContext(RequestInfo<?> requestInfo) {
+        return (CompletableFuture<SecurityContext>) requestInfo.getRequestAttributes().get(SECURITY_CONTEXT_FUTURE_ATTR_KEY);
     }
 }
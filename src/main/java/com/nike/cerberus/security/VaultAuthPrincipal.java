@@ -49,6 +49,8 @@ public class VaultAuthPrincipal implements Principal {
 
     public static final String METADATA_KEY_AWS_REGION = "aws_region";
 
+    public static final String METADATA_KEY_ISSUED_AT = "issued_at";
+
     private final VaultClientTokenResponse clientToken;
 
     private final Set<String> userGroupSet;
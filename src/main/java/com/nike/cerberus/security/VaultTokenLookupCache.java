@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.security;
+
+import com.codahale.metrics.Counter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.collect.Maps;
+import com.google.inject.name.Named;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
+import com.nike.vault.client.VaultAdminClient;
+import com.nike.vault.client.model.VaultClientTokenResponse;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through cache for Vault token lookups.  Entries are keyed by a hash of the token so that raw tokens are never
+ * held as map keys, and each entry expires after the configured max age or the token's remaining TTL, whichever
+ * comes first.  Only successful lookups are cached.
+ *
+ * Concurrent lookups of the same token are coalesced into a single in-flight Vault call whose result (or failure) is
+ * shared by every waiting caller.  Coalescing is independent of the cache and applies even when caching is disabled.
+ */
+@Singleton
+public class VaultTokenLookupCache {
+
+    public static final String CACHE_ENABLED_PROPERTY = "cms.auth.token.cache.enabled";
+    public static final String CACHE_MAX_SIZE_PROPERTY = "cms.auth.token.cache.maxSize";
+    public static final String CACHE_MAX_AGE_PROPERTY = "cms.auth.token.cache.maxAgeSeconds";
+    public static final String LOOKUP_COALESCING_ENABLED_PROPERTY = "cms.auth.token.lookup.coalescing.enabled";
+
+    public static final String METRIC_CACHE_HIT = "cms.auth.token.cache.hit";
+    public static final String METRIC_CACHE_MISS = "cms.auth.token.cache.miss";
+    public static final String METRIC_CACHE_EVICTION = "cms.auth.token.cache.eviction";
+    public static final String METRIC_LOOKUP_COALESCED = "cms.auth.token.lookup.coalesced";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final VaultAdminClient vaultAdminClient;
+
+    private final boolean enabled;
+
+    private final long maxAgeInMillis;
+
+    private final boolean coalescingEnabled;
+
+    private final Cache<String, CachedTokenLookup> cache;
+
+    private final ConcurrentMap<String, CompletableFuture<VaultClientTokenResponse>> inFlightLookups =
+            Maps.newConcurrentMap();
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    private final Counter evictionCounter;
+
+    private final Counter coalescedCounter;
+
+    @Inject
+    public VaultTokenLookupCache(final VaultAdminClient vaultAdminClient,
+                                 final CodahaleMetricsCollector metricsCollector,
+                                 @Named(CACHE_ENABLED_PROPERTY) final boolean enabled,
+                                 @Named(CACHE_MAX_SIZE_PROPERTY) final long maxSize,
+                                 @Named(CACHE_MAX_AGE_PROPERTY) final long maxAgeInSeconds,
+                                 @Named(LOOKUP_COALESCING_ENABLED_PROPERTY) final boolean coalescingEnabled) {
+        this.vaultAdminClient = vaultAdminClient;
+        this.enabled = enabled;
+        this.coalescingEnabled = coalescingEnabled;
+        this.maxAgeInMillis = TimeUnit.SECONDS.toMillis(maxAgeInSeconds);
+
+        this.hitCounter = metricsCollector.getMetricRegistry().counter(METRIC_CACHE_HIT);
+        this.missCounter = metricsCollector.getMetricRegistry().counter(METRIC_CACHE_MISS);
+        this.evictionCounter = metricsCollector.getMetricRegistry().counter(METRIC_CACHE_EVICTION);
+        this.coalescedCounter = metricsCollector.getMetricRegistry().counter(METRIC_LOOKUP_COALESCED);
+
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(maxAgeInSeconds, TimeUnit.SECONDS)
+                .removalListener(notification -> {
+                    if (notification.getCause() != RemovalCause.REPLACED) {
+                        evictionCounter.inc();
+                    }
+                })
+                .build();
+
+        logger.info("Vault token lookup cache enabled={}, maxSize={}, maxAgeSeconds={}, coalescingEnabled={}",
+                enabled, maxSize, maxAgeInSeconds, coalescingEnabled);
+    }
+
+    /**
+     * Looks up the given Vault token, serving the response from the cache when a live entry exists.
+     *
+     * @param vaultToken The Vault token to look up
+     * @return The token lookup response from Vault
+     */
+    public VaultClientTokenResponse lookupToken(final String vaultToken) {
+        final String key = hashToken(vaultToken);
+
+        if (!enabled) {
+            return coalescedLookup(key, vaultToken);
+        }
+
+        final CachedTokenLookup cachedTokenLookup = cache.getIfPresent(key);
+
+        if (cachedTokenLookup != null) {
+            if (!cachedTokenLookup.isExpired()) {
+                hitCounter.inc();
+                return cachedTokenLookup.getResponse();
+            }
+            cache.invalidate(key);
+        }
+
+        missCounter.inc();
+        final VaultClientTokenResponse response = coalescedLookup(key, vaultToken);
+        cache.put(key, new CachedTokenLookup(response, calculateExpiration(response)));
+
+        return response;
+    }
+
+    /**
+     * Performs the Vault lookup, joining an identical lookup that is already in flight instead of issuing another.
+     */
+    private VaultClientTokenResponse coalescedLookup(final String key, final String vaultToken) {
+        if (!coalescingEnabled) {
+            return vaultAdminClient.lookupToken(vaultToken);
+        }
+
+        final CompletableFuture<VaultClientTokenResponse> lookup = new CompletableFuture<>();
+        final CompletableFuture<VaultClientTokenResponse> inFlightLookup = inFlightLookups.putIfAbsent(key, lookup);
+
+        if (inFlightLookup != null) {
+            coalescedCounter.inc();
+            try {
+                return inFlightLookup.join();
+            } catch (CompletionException ce) {
+                if (ce.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ce.getCause();
+                }
+                throw ce;
+            }
+        }
+
+        try {
+            final VaultClientTokenResponse response = vaultAdminClient.lookupToken(vaultToken);
+            lookup.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            lookup.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLookups.remove(key, lookup);
+        }
+    }
+
+    /**
+     * Removes any cached lookup for the given token.  Must be called whenever CMS revokes a token so that this
+     * node stops honoring it immediately.
+     *
+     * @param vaultToken The Vault token to evict
+     */
+    public void evict(final String vaultToken) {
+        if (enabled) {
+            cache.invalidate(hashToken(vaultToken));
+        }
+    }
+
+    /**
+     * Caps the lifetime of a cache entry at the token's remaining TTL.  Tokens without a TTL (e.g. root tokens)
+     * are only bound by the configured max age.
+     */
+    private long calculateExpiration(final VaultClientTokenResponse response) {
+        final long ttlInMillis = TimeUnit.SECONDS.toMillis(response.getTtl());
+        final long cacheTimeInMillis = ttlInMillis > 0 ? Math.min(ttlInMillis, maxAgeInMillis) : maxAgeInMillis;
+
+        return System.currentTimeMillis() + cacheTimeInMillis;
+    }
+
+    private String hashToken(final String vaultToken) {
+        return DigestUtils.sha256Hex(vaultToken);
+    }
+
+    private static final class CachedTokenLookup {
+
+        private final VaultClientTokenResponse response;
+
+        private final long expiresAtMillis;
+
+        private CachedTokenLookup(final VaultClientTokenResponse response, final long expiresAtMillis) {
+            this.response = response;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        private VaultClientTokenResponse getResponse() {
+            return response;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAtMillis;
+        }
+    }
+}
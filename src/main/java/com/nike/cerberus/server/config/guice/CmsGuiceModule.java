@@ -18,6 +18,7 @@
 package com.nike.cerberus.server.config.guice;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.name.Names;
 import com.nike.backstopper.apierror.projectspecificinfo.ProjectApiErrors;
 import com.nike.cerberus.config.CmsEnvPropertiesLoader;
@@ -26,9 +27,12 @@ import com.nike.cerberus.endpoints.admin.GetSDBMetadata;
 import com.nike.cerberus.endpoints.admin.PutSDBMetadata;
 import com.nike.cerberus.endpoints.authentication.AuthenticateIamRole;
 import com.nike.cerberus.endpoints.authentication.AuthenticateIamPrincipal;
+import com.nike.cerberus.endpoints.authentication.AuthenticateIamPrincipalMultiRegion;
+import com.nike.cerberus.endpoints.authentication.AuthenticateIamPrincipalV3;
 import com.nike.cerberus.endpoints.authentication.AuthenticateUser;
 import com.nike.cerberus.endpoints.authentication.MfaCheck;
 import com.nike.cerberus.endpoints.authentication.RefreshUserToken;
+import com.nike.cerberus.endpoints.authentication.RenewToken;
 import com.nike.cerberus.endpoints.authentication.RevokeToken;
 import com.nike.cerberus.endpoints.category.CreateCategory;
 import com.nike.cerberus.endpoints.category.DeleteCategory;
@@ -46,7 +50,9 @@ import com.nike.cerberus.endpoints.sdb.UpdateSafeDepositBoxV1;
 import com.nike.cerberus.endpoints.sdb.UpdateSafeDepositBoxV2;
 import com.nike.cerberus.error.DefaultApiErrorsImpl;
 import com.nike.cerberus.auth.connector.AuthConnector;
+import com.nike.cerberus.auth.connector.GroupCachingAuthConnector;
 import com.nike.cerberus.security.CmsRequestSecurityValidator;
+import com.nike.cerberus.security.VaultTokenLookupCache;
 import com.nike.cerberus.util.UuidSupplier;
 import com.nike.cerberus.vault.CmsVaultCredentialsProvider;
 import com.nike.cerberus.vault.CmsVaultUrlResolver;
@@ -82,6 +88,8 @@ import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import javax.inject.Named;
@@ -127,8 +135,12 @@ public class CmsGuiceModule extends AbstractModule {
         {
             Class<?> clazz = Class.forName(className);
             bind(AuthConnector.class)
+                    .annotatedWith(Names.named(GroupCachingAuthConnector.DELEGATE_AUTH_CONNECTOR_NAME))
                     .to(clazz.asSubclass(AuthConnector.class))
                     .asEagerSingleton();
+            bind(AuthConnector.class)
+                    .to(GroupCachingAuthConnector.class)
+                    .asEagerSingleton();
         } catch(ClassNotFoundException nfe) {
             throw new IllegalArgumentException("invalid class: " + className, nfe);
         } catch(ClassCastException cce) {
@@ -172,7 +184,10 @@ public class CmsGuiceModule extends AbstractModule {
             RefreshUserToken refreshUserToken,
             AuthenticateIamRole authenticateIamRole,
             AuthenticateIamPrincipal authenticateIamPrincipal,
+            AuthenticateIamPrincipalMultiRegion authenticateIamPrincipalMultiRegion,
+            AuthenticateIamPrincipalV3 authenticateIamPrincipalV3,
             RevokeToken revokeToken,
+            RenewToken renewToken,
             GetAllRoles getAllRoles,
             GetRole getRole,
             GetSafeDepositBoxes getSafeDepositBoxes,
@@ -191,6 +206,7 @@ public class CmsGuiceModule extends AbstractModule {
                 // Cerberus endpoints
                 getAllCategories, getCategory, createCategory, deleteCategory,
                 authenticateUser, authenticateIamPrincipal, mfaCheck, refreshUserToken, authenticateIamRole, revokeToken,
+                renewToken, authenticateIamPrincipalMultiRegion, authenticateIamPrincipalV3,
                 getAllRoles, getRole,
                 getSafeDepositBoxes, getSafeDepositBoxV1, getSafeDepositBoxV2,
                 deleteSafeDepositBox, updateSafeDepositBoxV1, updateSafeDepositBoxV2, createSafeDepositBoxV1, createSafeDepositBoxV2,
@@ -291,15 +307,27 @@ public class CmsGuiceModule extends AbstractModule {
                 || i instanceof AuthenticateUser
                 || i instanceof MfaCheck
                 || i instanceof AuthenticateIamRole
-                || i instanceof AuthenticateIamPrincipal)).collect(Collectors.toList());
+                || i instanceof AuthenticateIamPrincipal
+                || i instanceof AuthenticateIamPrincipalMultiRegion
+                || i instanceof AuthenticateIamPrincipalV3)).collect(Collectors.toList());
     }
 
     @Provides
     @Singleton
     public CmsRequestSecurityValidator authRequestSecurityValidator(
             @Named("authProtectedEndpoints") List<Endpoint<?>> authProtectedEndpoints,
-            VaultAdminClient vaultAdminClient) {
-        return new CmsRequestSecurityValidator(authProtectedEndpoints, vaultAdminClient);
+            VaultTokenLookupCache vaultTokenLookupCache,
+            @Named("cms.auth.token.validation.async.enabled") boolean asyncTokenValidationEnabled,
+            @Named("cms.auth.token.validation.async.threads") int asyncTokenValidationThreads) {
+
+        if (!asyncTokenValidationEnabled) {
+            return new CmsRequestSecurityValidator(authProtectedEndpoints, vaultTokenLookupCache);
+        }
+
+        logger.info("Asynchronous Vault token validation enabled, threads={}", asyncTokenValidationThreads);
+        final ExecutorService tokenValidationExecutor = Executors.newFixedThreadPool(asyncTokenValidationThreads,
+                new ThreadFactoryBuilder().setNameFormat("cms-token-validation-%d").setDaemon(true).build());
+        return new CmsRequestSecurityValidator(authProtectedEndpoints, vaultTokenLookupCache, tokenValidationExecutor);
     }
 
     @Provides
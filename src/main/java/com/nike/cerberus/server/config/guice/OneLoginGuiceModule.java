@@ -4,12 +4,16 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -19,6 +23,11 @@ public class OneLoginGuiceModule extends AbstractModule {
 
     public static final String ONE_LOGIN_OBJECT_MAPPER_NAME = "OneLoginObjectMapper";
 
+    public static final String MAX_REQUESTS_PROPERTY = "auth.connector.onelogin.http.max_requests";
+    public static final String MAX_REQUESTS_PER_HOST_PROPERTY = "auth.connector.onelogin.http.max_requests_per_host";
+    public static final String MAX_IDLE_CONNECTIONS_PROPERTY = "auth.connector.onelogin.http.max_idle_connections";
+    public static final String KEEP_ALIVE_PROPERTY = "auth.connector.onelogin.http.keep_alive_seconds";
+
     private static final int DEFAULT_TIMEOUT = 15;
 
     private static final TimeUnit DEFAULT_TIMEOUT_UNIT = TimeUnit.SECONDS;
@@ -42,13 +51,29 @@ public class OneLoginGuiceModule extends AbstractModule {
         return objectMapper;
     }
 
+    /**
+     * The client gets its own dispatcher and connection pool, so that asynchronous calls to a slow OneLogin are
+     * limited separately from everything else.
+     */
     @Provides
     @Singleton
-    public OkHttpClient getOkHttpClient() {
+    public OkHttpClient getOkHttpClient(@Named(MAX_REQUESTS_PROPERTY) final int maxRequests,
+                                        @Named(MAX_REQUESTS_PER_HOST_PROPERTY) final int maxRequestsPerHost,
+                                        @Named(MAX_IDLE_CONNECTIONS_PROPERTY) final int maxIdleConnections,
+                                        @Named(KEEP_ALIVE_PROPERTY) final long keepAliveInSeconds) {
+        final Dispatcher dispatcher = new Dispatcher(Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+                .setNameFormat("cms-onelogin-http-%d")
+                .setDaemon(true)
+                .build()));
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+
         return new OkHttpClient.Builder()
                 .connectTimeout(DEFAULT_TIMEOUT, DEFAULT_TIMEOUT_UNIT)
                 .writeTimeout(DEFAULT_TIMEOUT, DEFAULT_TIMEOUT_UNIT)
                 .readTimeout(DEFAULT_TIMEOUT, DEFAULT_TIMEOUT_UNIT)
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveInSeconds, TimeUnit.SECONDS))
                 .build();
     }
 
@@ -20,11 +20,15 @@ import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.regions.Region;
 import com.amazonaws.regions.Regions;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.kms.AWSKMSAsync;
 import com.amazonaws.services.kms.AWSKMSClient;
 import com.amazonaws.services.kms.model.EncryptRequest;
 import com.amazonaws.services.kms.model.EncryptResult;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
@@ -40,9 +44,12 @@ import com.nike.cerberus.auth.connector.AuthStatus;
 import com.nike.cerberus.aws.KmsClientFactory;
 import com.nike.cerberus.dao.AwsIamRoleDao;
 import com.nike.cerberus.dao.SafeDepositBoxDao;
+import com.nike.cerberus.domain.IamPrincipalAuthResponseV3;
 import com.nike.cerberus.domain.IamRoleAuthResponse;
 import com.nike.cerberus.domain.IamRoleCredentials;
 import com.nike.cerberus.domain.IamPrincipalCredentials;
+import com.nike.cerberus.domain.IamPrincipalMultiRegionAuthResponse;
+import com.nike.cerberus.domain.IamPrincipalMultiRegionCredentials;
 import com.nike.cerberus.domain.MfaCheckRequest;
 import com.nike.cerberus.domain.UserCredentials;
 import com.nike.cerberus.error.DefaultApiError;
@@ -50,27 +57,31 @@ import com.nike.cerberus.record.AwsIamRoleKmsKeyRecord;
 import com.nike.cerberus.record.AwsIamRoleRecord;
 import com.nike.cerberus.record.SafeDepositBoxRoleRecord;
 import com.nike.cerberus.security.VaultAuthPrincipal;
+import com.nike.cerberus.security.VaultTokenLookupCache;
 import com.nike.cerberus.util.AwsIamRoleArnParser;
 import com.nike.cerberus.util.DateTimeSupplier;
+import com.nike.cerberus.vault.VaultTokenRenewalClient;
 import com.nike.vault.client.VaultAdminClient;
-import com.nike.vault.client.VaultServerException;
 import com.nike.vault.client.model.VaultAuthResponse;
 import com.nike.vault.client.model.VaultTokenAuthRequest;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
-import java.time.OffsetDateTime;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.zip.GZIPOutputStream;
 
 import static com.nike.cerberus.util.AwsIamRoleArnParser.AWS_IAM_ROLE_ARN_TEMPLATE;
 
@@ -87,6 +98,11 @@ public class AuthenticationService {
     public static final String ADMIN_IAM_ROLES_PROPERTY = "cms.admin.roles";
     public static final String USER_TOKEN_TTL_OVERRIDE = "cms.user.token.ttl.override";
     public static final String IAM_TOKEN_TTL_OVERRIDE = "cms.iam.token.ttl.override";
+    public static final String IAM_AUTH_ASYNC_ENABLED_PROPERTY = "cms.auth.iam.async.enabled";
+    public static final String USER_AUTH_ASYNC_ENABLED_PROPERTY = "cms.auth.user.async.enabled";
+    public static final String TOKEN_RENEWAL_MAX_TTL_PROPERTY = "cms.auth.token.renewal.maxTtlSeconds";
+    public static final String TOKEN_RENEWAL_INCREMENT_PROPERTY = "cms.auth.token.renewal.incrementSeconds";
+    public static final String IAM_AUTH_PAYLOAD_COMPRESSION_ENABLED_PROPERTY = "cms.auth.iam.payload.compression.enabled";
     public static final String LOOKUP_SELF_POLICY = "lookup-self";
     public static final String DEFAULT_TOKEN_TTL = "1h";
     public static final int KMS_SIZE_LIMIT = 4096;
@@ -99,9 +115,18 @@ public class AuthenticationService {
     private final VaultAdminClient vaultAdminClient;
     private final VaultPolicyService vaultPolicyService;
     private final ObjectMapper objectMapper;
+    private final ObjectWriter compactObjectWriter;
     private final String adminGroup;
     private final DateTimeSupplier dateTimeSupplier;
     private final AwsIamRoleArnParser awsIamRoleArnParser;
+    private final VaultTokenLookupCache vaultTokenLookupCache;
+    private final PolicySetCache policySetCache;
+    private final KmsKeyRecordCache kmsKeyRecordCache;
+    private final KmsPolicyValidationScheduler kmsPolicyValidationScheduler;
+    private final KmsKeyProvisioningService kmsKeyProvisioningService;
+    private final VaultTokenRenewalClient vaultTokenRenewalClient;
+    private final IamTokenReuseCache iamTokenReuseCache;
+    private final TokenRevocationQueue tokenRevocationQueue;
 
     @Inject(optional=true)
     @Named(ADMIN_IAM_ROLES_PROPERTY)
@@ -117,6 +142,26 @@ public class AuthenticationService {
     @Named(IAM_TOKEN_TTL_OVERRIDE)
     String iamTokenTTL = DEFAULT_TOKEN_TTL;
 
+    @Inject(optional=true)
+    @Named(IAM_AUTH_ASYNC_ENABLED_PROPERTY)
+    boolean iamAuthAsyncEnabled = false;
+
+    @Inject(optional=true)
+    @Named(USER_AUTH_ASYNC_ENABLED_PROPERTY)
+    boolean userAuthAsyncEnabled = false;
+
+    @Inject(optional=true)
+    @Named(TOKEN_RENEWAL_MAX_TTL_PROPERTY)
+    long tokenRenewalMaxTtlInSeconds = 3600;
+
+    @Inject(optional=true)
+    @Named(TOKEN_RENEWAL_INCREMENT_PROPERTY)
+    long tokenRenewalIncrementInSeconds = 3600;
+
+    @Inject(optional=true)
+    @Named(IAM_AUTH_PAYLOAD_COMPRESSION_ENABLED_PROPERTY)
+    boolean iamAuthPayloadCompressionEnabled = true;
+
     @Inject
     public AuthenticationService(final SafeDepositBoxDao safeDepositBoxDao,
                                  final AwsIamRoleDao awsIamRoleDao,
@@ -128,7 +173,15 @@ public class AuthenticationService {
                                  final ObjectMapper objectMapper,
                                  @Named(ADMIN_GROUP_PROPERTY) final String adminGroup,
                                  final DateTimeSupplier dateTimeSupplier,
-                                 final AwsIamRoleArnParser awsIamRoleArnParser) {
+                                 final AwsIamRoleArnParser awsIamRoleArnParser,
+                                 final VaultTokenLookupCache vaultTokenLookupCache,
+                                 final PolicySetCache policySetCache,
+                                 final KmsKeyRecordCache kmsKeyRecordCache,
+                                 final KmsPolicyValidationScheduler kmsPolicyValidationScheduler,
+                                 final KmsKeyProvisioningService kmsKeyProvisioningService,
+                                 final VaultTokenRenewalClient vaultTokenRenewalClient,
+                                 final IamTokenReuseCache iamTokenReuseCache,
+                                 final TokenRevocationQueue tokenRevocationQueue) {
 
         this.safeDepositBoxDao = safeDepositBoxDao;
         this.awsIamRoleDao = awsIamRoleDao;
@@ -138,9 +191,18 @@ public class AuthenticationService {
         this.vaultAdminClient = vaultAdminClient;
         this.vaultPolicyService = vaultPolicyService;
         this.objectMapper = objectMapper;
+        this.compactObjectWriter = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
         this.adminGroup = adminGroup;
         this.dateTimeSupplier = dateTimeSupplier;
         this.awsIamRoleArnParser = awsIamRoleArnParser;
+        this.vaultTokenLookupCache = vaultTokenLookupCache;
+        this.policySetCache = policySetCache;
+        this.kmsKeyRecordCache = kmsKeyRecordCache;
+        this.kmsPolicyValidationScheduler = kmsPolicyValidationScheduler;
+        this.kmsKeyProvisioningService = kmsKeyProvisioningService;
+        this.vaultTokenRenewalClient = vaultTokenRenewalClient;
+        this.iamTokenReuseCache = iamTokenReuseCache;
+        this.tokenRevocationQueue = tokenRevocationQueue;
     }
 
     /**
@@ -162,6 +224,20 @@ public class AuthenticationService {
         return authResponse;
     }
 
+    /**
+     * Asynchronous variant of {@link #authenticate(UserCredentials)}.  The auth connector is called with its
+     * asynchronous methods, only the Vault token creation is run on the given executor.
+     *
+     * @param credentials User credentials for the authenticating user
+     * @param executor Executor for the blocking stages of the authentication
+     * @return Future of the auth response
+     */
+    public CompletableFuture<AuthResponse> authenticateAsync(final UserCredentials credentials, final Executor executor) {
+        return authServiceConnector.authenticateAsync(credentials.getUsername(),
+                new String(credentials.getPassword(), Charset.defaultCharset()), executor)
+                .thenCompose(authResponse -> generateClientTokenAsync(authResponse, credentials.getUsername(), executor));
+    }
+
     /**
      * Enables a user to execute an MFA check to complete authentication and get a Vault token.
      *
@@ -181,6 +257,42 @@ public class AuthenticationService {
         return authResponse;
     }
 
+    /**
+     * Asynchronous variant of {@link #mfaCheck(MfaCheckRequest)}, see {@link #authenticateAsync(UserCredentials, Executor)}.
+     *
+     * @param mfaCheckRequest Request containing the MFA token details
+     * @param executor Executor for the blocking stages of the authentication
+     * @return Future of the auth response
+     */
+    public CompletableFuture<AuthResponse> mfaCheckAsync(final MfaCheckRequest mfaCheckRequest, final Executor executor) {
+        return authServiceConnector.mfaCheckAsync(mfaCheckRequest.getStateToken(),
+                mfaCheckRequest.getDeviceId(),
+                mfaCheckRequest.getOtpToken(), executor)
+                .thenCompose(authResponse ->
+                        generateClientTokenAsync(authResponse, authResponse.getData().getUsername(), executor));
+    }
+
+    /**
+     * @return True if the user authentication endpoints should use the asynchronous authentication methods
+     */
+    public boolean isUserAuthAsyncEnabled() {
+        return userAuthAsyncEnabled;
+    }
+
+    private CompletableFuture<AuthResponse> generateClientTokenAsync(final AuthResponse authResponse,
+                                                                     final String username,
+                                                                     final Executor executor) {
+        if (authResponse.getStatus() != AuthStatus.SUCCESS) {
+            return CompletableFuture.completedFuture(authResponse);
+        }
+
+        return authServiceConnector.getGroupsAsync(authResponse.getData(), executor)
+                .thenApplyAsync(groups -> {
+                    authResponse.getData().setClientToken(generateToken(username, groups));
+                    return authResponse;
+                }, executor);
+    }
+
     /**
      * Enables an IAM role to authenticate and get back an encrypted payload that the role is only able to decrypt with
      * KMS.
@@ -189,34 +301,241 @@ public class AuthenticationService {
      */
     public IamRoleAuthResponse authenticate(IamRoleCredentials credentials) {
 
-        final String iamPrincipalArn = String.format(AWS_IAM_ROLE_ARN_TEMPLATE, credentials.getAccountId(),
-                credentials.getRoleName());
-        final String region = credentials.getRegion();
+        final IamPrincipalCredentials iamPrincipalCredentials = toIamPrincipalCredentials(credentials);
+
+        return toIamRoleAuthResponse(authenticate(iamPrincipalCredentials,
+                generateIamRoleAuthMetadata(iamPrincipalCredentials), IamAuthPayloadFormat.PRETTY_JSON));
+    }
+
+    /**
+     * Asynchronous variant of {@link #authenticate(IamRoleCredentials)}, see
+     * {@link #authenticateAsync(IamPrincipalCredentials, Executor)}.
+     *
+     * @param credentials IAM role credentials
+     * @param executor Executor for the blocking stages of the authentication
+     * @return Future of the encrypted auth response
+     */
+    public CompletableFuture<IamRoleAuthResponse> authenticateAsync(IamRoleCredentials credentials, Executor executor) {
+
+        final IamPrincipalCredentials iamPrincipalCredentials = toIamPrincipalCredentials(credentials);
+
+        return authenticateAsync(iamPrincipalCredentials, generateIamRoleAuthMetadata(iamPrincipalCredentials),
+                IamAuthPayloadFormat.PRETTY_JSON, executor)
+                .thenApply(this::toIamRoleAuthResponse);
+    }
+
+    public IamRoleAuthResponse authenticate(IamPrincipalCredentials credentials) {
+
+        return toIamRoleAuthResponse(authenticate(credentials, generateIamPrincipalAuthMetadata(credentials),
+                IamAuthPayloadFormat.PRETTY_JSON));
+    }
+
+    /**
+     * Asynchronous variant of {@link #authenticate(IamPrincipalCredentials)}.  The database lookups and Vault token
+     * creation run on the given executor, the KMS encrypt call is made with the async KMS client so that the request
+     * thread is released while waiting on KMS.  The KMS call itself still blocks a thread of the async client's pool,
+     * see {@link KmsClientFactory#getAsyncClient(Region)}.
+     *
+     * @param credentials IAM principal credentials
+     * @param executor Executor for the blocking stages of the authentication
+     * @return Future of the encrypted auth response
+     */
+    public CompletableFuture<IamRoleAuthResponse> authenticateAsync(IamPrincipalCredentials credentials, Executor executor) {
+
+        return authenticateAsync(credentials, generateIamPrincipalAuthMetadata(credentials),
+                IamAuthPayloadFormat.PRETTY_JSON, executor)
+                .thenApply(this::toIamRoleAuthResponse);
+    }
+
+    /**
+     * Variant of {@link #authenticate(IamPrincipalCredentials)} that serializes the auth response without
+     * indentation, and gzip compresses it when compression is enabled, before it is encrypted.  This keeps the auth
+     * response of principals with many policies or long metadata under the size KMS can encrypt, where the pretty
+     * printed auth response would have its policies and metadata truncated.
+     *
+     * @param credentials IAM principal credentials
+     * @return Encrypted auth response and the encoding of the decrypted payload
+     */
+    public IamPrincipalAuthResponseV3 authenticateCompact(IamPrincipalCredentials credentials) {
+
+        final IamAuthPayloadFormat format = getCompactIamAuthPayloadFormat();
+        return toIamPrincipalAuthResponseV3(authenticate(credentials, generateIamPrincipalAuthMetadata(credentials),
+                format), format);
+    }
+
+    /**
+     * Asynchronous variant of {@link #authenticateCompact(IamPrincipalCredentials)}, see
+     * {@link #authenticateAsync(IamPrincipalCredentials, Executor)}.
+     *
+     * @param credentials IAM principal credentials
+     * @param executor Executor for the blocking stages of the authentication
+     * @return Future of the encrypted auth response and the encoding of the decrypted payload
+     */
+    public CompletableFuture<IamPrincipalAuthResponseV3> authenticateCompactAsync(IamPrincipalCredentials credentials,
+                                                                                 Executor executor) {
 
+        final IamAuthPayloadFormat format = getCompactIamAuthPayloadFormat();
+        return authenticateAsync(credentials, generateIamPrincipalAuthMetadata(credentials), format, executor)
+                .thenApply(encryptedAuthResponse -> toIamPrincipalAuthResponseV3(encryptedAuthResponse, format));
+    }
+
+    /**
+     * Authenticates an IAM principal in several regions at once.  The KMS keys of the regions are looked up in
+     * parallel, a single Vault token is created for the principal, and the auth response is encrypted with the key
+     * of every region concurrently through the async KMS client of each region.  The token is only created once the
+     * key of every region was found, the key lookup is what verifies that the principal is configured for an SDB.
+     *
+     * @param credentials IAM principal ARN and the regions to authenticate in
+     * @param executor Executor for the blocking stages of the authentication
+     * @return Future of the encrypted auth response of each region, keyed by region
+     */
+    public CompletableFuture<IamPrincipalMultiRegionAuthResponse> authenticateAsync(IamPrincipalMultiRegionCredentials credentials,
+                                                                                  Executor executor) {
+        final String iamPrincipalArn = credentials.getIamPrincipalArn();
+        if (credentials.getRegions().stream().anyMatch(StringUtils::isBlank)) {
+            throw ApiException.newBuilder()
+                    .withApiErrors(DefaultApiError.AUTHENTICATION_ERROR_INVALID_REGION)
+                    .withExceptionMessage("Blank region given for principal: " + iamPrincipalArn)
+                    .build();
+        }
+        final List<String> regions = ImmutableSet.copyOf(credentials.getRegions()).asList();
+        // fail before any key is provisioned or token created
+        regions.forEach(this::getRegion);
+
+        final Map<String, CompletableFuture<String>> keyIds = Maps.newLinkedHashMap();
+        regions.forEach(region -> keyIds.put(region, CompletableFuture.supplyAsync(() -> {
+            final IamPrincipalCredentials regionCredentials = new IamPrincipalCredentials();
+            regionCredentials.setIamPrincipalArn(iamPrincipalArn);
+            regionCredentials.setRegion(region);
+            return getKeyIdForAuthentication(regionCredentials);
+        }, executor)));
+
+        final CompletableFuture<Void> allKeyIds =
+                CompletableFuture.allOf(keyIds.values().toArray(new CompletableFuture[keyIds.size()]));
+
+        final CompletableFuture<byte[]> authResponseJson = allKeyIds.thenApplyAsync(found -> {
+            final Map<String, String> metadata =
+                    generateCommonVaultPrincipalAuthMetadata(iamPrincipalArn, StringUtils.join(regions, ','));
+            metadata.put(VaultAuthPrincipal.METADATA_KEY_AWS_IAM_PRINCIPAL_ARN, iamPrincipalArn);
+            final VaultAuthResponse authResponse =
+                    createIamPrincipalToken(buildCompleteSetOfPolicies(iamPrincipalArn), metadata);
+            return serializeIamAuthResponse(authResponse, iamPrincipalArn, IamAuthPayloadFormat.PRETTY_JSON);
+        }, executor);
+
+        final Map<String, CompletableFuture<byte[]>> encryptedAuthResponses = Maps.newLinkedHashMap();
+        keyIds.forEach((region, keyId) -> encryptedAuthResponses.put(region,
+                keyId.thenCombine(authResponseJson, (id, json) -> encryptAsync(region, id, json))
+                        .thenCompose(encrypted -> encrypted)));
+
+        return CompletableFuture
+                .allOf(encryptedAuthResponses.values().toArray(new CompletableFuture[encryptedAuthResponses.size()]))
+                .thenApply(allEncrypted -> {
+                    final Map<String, String> authData = Maps.newLinkedHashMap();
+                    encryptedAuthResponses.forEach((region, encrypted) ->
+                            authData.put(region, Base64.encodeBase64String(encrypted.join())));
+                    final IamPrincipalMultiRegionAuthResponse authResponse = new IamPrincipalMultiRegionAuthResponse();
+                    authResponse.setAuthData(authData);
+                    return authResponse;
+                });
+    }
+
+    /**
+     * @return True if the IAM authentication endpoints should use the asynchronous authentication methods
+     */
+    public boolean isIamAuthAsyncEnabled() {
+        return iamAuthAsyncEnabled;
+    }
+
+    private IamPrincipalCredentials toIamPrincipalCredentials(IamRoleCredentials credentials) {
         final IamPrincipalCredentials iamPrincipalCredentials = new IamPrincipalCredentials();
-        iamPrincipalCredentials.setIamPrincipalArn(iamPrincipalArn);
-        iamPrincipalCredentials.setRegion(region);
+        iamPrincipalCredentials.setIamPrincipalArn(String.format(AWS_IAM_ROLE_ARN_TEMPLATE, credentials.getAccountId(),
+                credentials.getRoleName()));
+        iamPrincipalCredentials.setRegion(credentials.getRegion());
 
-        final Map<String, String> vaultAuthPrincipalMetadata = generateCommonVaultPrincipalAuthMetadata(iamPrincipalArn, region);
+        return iamPrincipalCredentials;
+    }
+
+    private Map<String, String> generateIamRoleAuthMetadata(IamPrincipalCredentials credentials) {
+        final String iamPrincipalArn = credentials.getIamPrincipalArn();
+        final Map<String, String> vaultAuthPrincipalMetadata = generateCommonVaultPrincipalAuthMetadata(iamPrincipalArn, credentials.getRegion());
         vaultAuthPrincipalMetadata.put(VaultAuthPrincipal.METADATA_KEY_AWS_ACCOUNT_ID, awsIamRoleArnParser.getAccountId(iamPrincipalArn));
         vaultAuthPrincipalMetadata.put(VaultAuthPrincipal.METADATA_KEY_AWS_IAM_ROLE_NAME, awsIamRoleArnParser.getRoleName(iamPrincipalArn));
 
-        return authenticate(iamPrincipalCredentials, vaultAuthPrincipalMetadata);
+        return vaultAuthPrincipalMetadata;
     }
 
-    public IamRoleAuthResponse authenticate(IamPrincipalCredentials credentials) {
-
+    private Map<String, String> generateIamPrincipalAuthMetadata(IamPrincipalCredentials credentials) {
         final String iamPrincipalArn = credentials.getIamPrincipalArn();
         final Map<String, String> vaultAuthPrincipalMetadata = generateCommonVaultPrincipalAuthMetadata(iamPrincipalArn, credentials.getRegion());
         vaultAuthPrincipalMetadata.put(VaultAuthPrincipal.METADATA_KEY_AWS_IAM_PRINCIPAL_ARN, iamPrincipalArn);
 
-        return authenticate(credentials, vaultAuthPrincipalMetadata);
+        return vaultAuthPrincipalMetadata;
+    }
+
+    private IamAuthPayloadFormat getCompactIamAuthPayloadFormat() {
+        return iamAuthPayloadCompressionEnabled ? IamAuthPayloadFormat.GZIP_JSON : IamAuthPayloadFormat.COMPACT_JSON;
+    }
+
+    private byte[] authenticate(IamPrincipalCredentials credentials,
+                                Map<String, String> vaultAuthPrincipalMetadata,
+                                IamAuthPayloadFormat format) {
+        final IamAuthPayload payload = generateIamAuthPayload(credentials, vaultAuthPrincipalMetadata, format);
+
+        if (payload.getReusedEncryptedAuthResponse() != null) {
+            return payload.getReusedEncryptedAuthResponse();
+        }
+
+        return holdForReuse(payload,
+                encrypt(credentials.getRegion(), payload.getKeyId(), payload.getAuthResponseJson()));
+    }
+
+    private CompletableFuture<byte[]> authenticateAsync(IamPrincipalCredentials credentials,
+                                                        Map<String, String> vaultAuthPrincipalMetadata,
+                                                        IamAuthPayloadFormat format,
+                                                        Executor executor) {
+        return CompletableFuture
+                .supplyAsync(() -> generateIamAuthPayload(credentials, vaultAuthPrincipalMetadata, format), executor)
+                .thenCompose(payload -> payload.getReusedEncryptedAuthResponse() != null ?
+                        CompletableFuture.completedFuture(payload.getReusedEncryptedAuthResponse()) :
+                        encryptAsync(credentials.getRegion(), payload.getKeyId(), payload.getAuthResponseJson())
+                                .thenApply(encryptedAuthResponse -> holdForReuse(payload, encryptedAuthResponse)));
     }
 
-    private IamRoleAuthResponse authenticate(IamPrincipalCredentials credentials, Map<String, String> vaultAuthPrincipalMetadata) {
-        final String keyId;
+    /**
+     * Creates the Vault token for an IAM principal and serializes it, ready to be encrypted with the principal's KMS key.
+     * When token reuse is enabled and a token was recently issued for the same principal, region, KMS key, policies
+     * and metadata, in the same payload format, its encrypted auth response is returned instead and no token is created.
+     */
+    private IamAuthPayload generateIamAuthPayload(IamPrincipalCredentials credentials,
+                                                  Map<String, String> vaultAuthPrincipalMetadata,
+                                                  IamAuthPayloadFormat format) {
+        final String keyId = getKeyIdForAuthentication(credentials);
+
+        final Set<String> policies = buildCompleteSetOfPolicies(credentials.getIamPrincipalArn());
+
+        String reuseKey = null;
+        if (iamTokenReuseCache.isEnabled()) {
+            reuseKey = iamTokenReuseCache.buildKey(credentials.getIamPrincipalArn(), credentials.getRegion(), keyId,
+                    policies, vaultAuthPrincipalMetadata, format.name());
+            final Optional<byte[]> reusedEncryptedAuthResponse = iamTokenReuseCache.getEncryptedAuthResponse(reuseKey);
+            if (reusedEncryptedAuthResponse.isPresent()) {
+                return IamAuthPayload.reused(reusedEncryptedAuthResponse.get());
+            }
+        }
+
+        final VaultAuthResponse authResponse = createIamPrincipalToken(policies, vaultAuthPrincipalMetadata);
+        final byte[] authResponseJson = serializeIamAuthResponse(authResponse, credentials.getIamPrincipalArn(), format);
+
+        return new IamAuthPayload(keyId, authResponseJson, reuseKey, authResponse.getClientToken(),
+                authResponse.getLeaseDuration());
+    }
+
+    /**
+     * Looks up, or lazily provisions, the KMS key the auth response of the principal is encrypted with in the region.
+     */
+    private String getKeyIdForAuthentication(IamPrincipalCredentials credentials) {
         try {
-            keyId = getKeyId(credentials);
+            return getKeyId(credentials);
         } catch (AmazonServiceException e) {
             if ("InvalidArnException".equals(e.getErrorCode())) {
                 throw ApiException.newBuilder()
@@ -229,20 +548,46 @@ public class AuthenticationService {
             }
             throw e;
         }
+    }
 
-        final Set<String> policies = buildCompleteSetOfPolicies(credentials.getIamPrincipalArn());
-
+    private VaultAuthResponse createIamPrincipalToken(Set<String> policies, Map<String, String> vaultAuthPrincipalMetadata) {
         final VaultTokenAuthRequest tokenAuthRequest = new VaultTokenAuthRequest()
                 .setPolicies(policies)
                 .setMeta(vaultAuthPrincipalMetadata)
                 .setTtl(iamTokenTTL)
                 .setNoDefaultPolicy(true);
 
-        VaultAuthResponse authResponse = vaultAdminClient.createOrphanToken(tokenAuthRequest);
+        return vaultAdminClient.createOrphanToken(tokenAuthRequest);
+    }
+
+    /**
+     * Serializes the auth response of an IAM principal in the given format, truncated if needed so that KMS can
+     * encrypt it.  The compact formats are only truncated when even the compact payload is too big for KMS.
+     */
+    private byte[] serializeIamAuthResponse(VaultAuthResponse authResponse,
+                                            String iamPrincipalArn,
+                                            IamAuthPayloadFormat format) {
+        final byte[] authResponsePayload = encodeIamAuthResponse(authResponse, format);
+
+        if (format == IamAuthPayloadFormat.PRETTY_JSON) {
+            return validateAuthPayloadSizeAndTruncateIfLargerThanMaxKmsSupportedSize(authResponsePayload,
+                    authResponse, iamPrincipalArn);
+        }
 
-        byte[] authResponseJson;
+        if (authResponsePayload.length <= KMS_SIZE_LIMIT) {
+            return authResponsePayload;
+        }
+
+        validateAuthPayloadSizeAndTruncateIfLargerThanMaxKmsSupportedSize(authResponsePayload, authResponse,
+                iamPrincipalArn);
+        return encodeIamAuthResponse(authResponse, format);
+    }
+
+    private byte[] encodeIamAuthResponse(VaultAuthResponse authResponse, IamAuthPayloadFormat format) {
+        final byte[] authResponseJson;
         try {
-            authResponseJson = objectMapper.writeValueAsBytes(authResponse);
+            authResponseJson = format == IamAuthPayloadFormat.PRETTY_JSON ?
+                    objectMapper.writeValueAsBytes(authResponse) : compactObjectWriter.writeValueAsBytes(authResponse);
         } catch (JsonProcessingException e) {
             throw ApiException.newBuilder()
                     .withApiErrors(DefaultApiError.INTERNAL_SERVER_ERROR)
@@ -251,16 +596,49 @@ public class AuthenticationService {
                     .build();
         }
 
-        authResponseJson = validateAuthPayloadSizeAndTruncateIfLargerThanMaxKmsSupportedSize(authResponseJson,
-                authResponse, credentials.getIamPrincipalArn());
+        if (format != IamAuthPayloadFormat.GZIP_JSON) {
+            return authResponseJson;
+        }
 
-        final byte[] encryptedAuthResponse = encrypt(credentials.getRegion(), keyId, authResponseJson);
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(authResponseJson.length);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(authResponseJson);
+        } catch (IOException e) {
+            throw ApiException.newBuilder()
+                    .withApiErrors(DefaultApiError.INTERNAL_SERVER_ERROR)
+                    .withExceptionCause(e)
+                    .withExceptionMessage("Failed to compress IAM role authentication response for encrypting.")
+                    .build();
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Holds the encrypted auth response of a newly issued token for reuse, if token reuse is enabled.
+     */
+    private byte[] holdForReuse(IamAuthPayload payload, byte[] encryptedAuthResponse) {
+        if (payload.getReuseKey() != null) {
+            iamTokenReuseCache.putEncryptedAuthResponse(payload.getReuseKey(), payload.getVaultToken(),
+                    payload.getLeaseDuration(), encryptedAuthResponse);
+        }
 
+        return encryptedAuthResponse;
+    }
+
+    private IamRoleAuthResponse toIamRoleAuthResponse(byte[] encryptedAuthResponse) {
         IamRoleAuthResponse iamRoleAuthResponse = new IamRoleAuthResponse();
         iamRoleAuthResponse.setAuthData(Base64.encodeBase64String(encryptedAuthResponse));
         return iamRoleAuthResponse;
     }
 
+    private IamPrincipalAuthResponseV3 toIamPrincipalAuthResponseV3(byte[] encryptedAuthResponse,
+                                                                    IamAuthPayloadFormat format) {
+        IamPrincipalAuthResponseV3 iamPrincipalAuthResponse = new IamPrincipalAuthResponseV3();
+        iamPrincipalAuthResponse.setAuthData(Base64.encodeBase64String(encryptedAuthResponse));
+        iamPrincipalAuthResponse.setPayloadEncoding(format.getPayloadEncoding());
+        return iamPrincipalAuthResponse;
+    }
+
     /**
      * if the metadata and policies make the token too big to encrypt with KMS we can as a stop gap trim the metadata
      * and policies from the token.
@@ -318,11 +696,16 @@ public class AuthenticationService {
      * Since tokens are immutable, there are certain situations where refreshing the token used by a user is
      * necessary.  Anytime permissions change, this is required to reflect that to the user.
      *
+     * The old token stops being honored by this node right away, and is revoked in the background while its
+     * replacement is created.
+     *
      * @param authPrincipal The principal for the caller
      * @return The auth response directly from Vault with the token and metadata
      */
     public AuthResponse refreshUserToken(final VaultAuthPrincipal authPrincipal) {
-        revoke(authPrincipal.getClientToken().getId());
+        final String vaultToken = authPrincipal.getClientToken().getId();
+        vaultTokenLookupCache.evict(vaultToken);
+        tokenRevocationQueue.revokeLater(vaultToken);
 
         final AuthResponse authResponse = new AuthResponse();
         authResponse.setStatus(AuthStatus.SUCCESS);
@@ -334,22 +717,81 @@ public class AuthenticationService {
         return authResponse;
     }
 
+    /**
+     * Renews the caller's token so long lived clients can keep using it without authenticating again.  Renewal only
+     * extends the TTL of the existing token, no new token is created and KMS is not involved.  Tokens are never
+     * renewed past the configured max lifetime, counted from when CMS issued them, and are not renewed once the
+     * policies of the principal differ from the ones the token was issued with.
+     *
+     * @param authPrincipal The principal for the caller
+     * @return The auth response directly from Vault with the renewed lease
+     */
+    public VaultAuthResponse renewToken(final VaultAuthPrincipal authPrincipal) {
+        final String vaultToken = authPrincipal.getClientToken().getId();
+        final Map<String, String> meta = authPrincipal.getClientToken().getMeta();
+        final String issuedAt = meta == null ? null : meta.get(VaultAuthPrincipal.METADATA_KEY_ISSUED_AT);
+
+        if (!StringUtils.isNumeric(issuedAt)) {
+            throw ApiException.newBuilder()
+                    .withApiErrors(DefaultApiError.AUTH_VAULT_TOKEN_NOT_RENEWABLE)
+                    .withExceptionMessage("Token has no issued at metadata, principal: " + authPrincipal.getName())
+                    .build();
+        }
+
+        final long ageInSeconds = dateTimeSupplier.get().toEpochSecond() - Long.parseLong(issuedAt);
+        final long incrementInSeconds = Math.min(tokenRenewalIncrementInSeconds, tokenRenewalMaxTtlInSeconds - ageInSeconds);
+
+        if (incrementInSeconds <= 0) {
+            throw ApiException.newBuilder()
+                    .withApiErrors(DefaultApiError.AUTH_VAULT_TOKEN_RENEWAL_LIMIT_REACHED)
+                    .withExceptionMessage("Token has reached its max lifetime, principal: " + authPrincipal.getName())
+                    .build();
+        }
+
+        final Set<String> tokenPolicies = authPrincipal.getClientToken().getPolicies();
+        if (tokenPolicies == null || !Sets.newHashSet(tokenPolicies).equals(buildCurrentPolicySet(authPrincipal))) {
+            throw ApiException.newBuilder()
+                    .withApiErrors(DefaultApiError.AUTH_VAULT_TOKEN_PERMISSIONS_CHANGED)
+                    .withExceptionMessage("Token policies no longer match the principal, principal: " + authPrincipal.getName())
+                    .build();
+        }
+
+        final VaultAuthResponse authResponse = vaultTokenRenewalClient.renewToken(vaultToken, incrementInSeconds);
+        // the cached lookup still holds the old TTL
+        vaultTokenLookupCache.evict(vaultToken);
+
+        return authResponse;
+    }
+
+    /**
+     * Builds the policy set the principal of the token would be issued now, from the policy set cache when possible.
+     */
+    private Set<String> buildCurrentPolicySet(final VaultAuthPrincipal authPrincipal) {
+        final String iamPrincipalArn =
+                authPrincipal.getClientToken().getMeta().get(VaultAuthPrincipal.METADATA_KEY_AWS_IAM_PRINCIPAL_ARN);
+
+        if (iamPrincipalArn != null) {
+            return buildCompleteSetOfPolicies(iamPrincipalArn);
+        }
+        return buildPolicySet(authPrincipal.getUserGroups());
+    }
+
     /**
      * Requests Vault revoke the specified token.  If the token doesn't exist, we simply ignore and move along.
+     * Any cached lookup of the token is evicted first so it is no longer honored by this node, and again once Vault
+     * has revoked it, see {@link TokenRevocationQueue#revokeNow(String)}.  With async revocation enabled the token is
+     * queued and revoked in the background.
      *
      * @param vaultToken Token to be revoked
      */
     public void revoke(final String vaultToken) {
-        try {
-            vaultAdminClient.revokeOrphanToken(vaultToken);
-        } catch (VaultServerException vse) {
-            if (vse.getCode() != HttpStatus.SC_BAD_REQUEST) {
-                throw ApiException.newBuilder()
-                        .withApiErrors(DefaultApiError.INTERNAL_SERVER_ERROR)
-                        .withExceptionCause(vse)
-                        .withExceptionMessage("Unexpected response from Vault when revoking a token!")
-                        .build();
-            }
+        vaultTokenLookupCache.evict(vaultToken);
+        iamTokenReuseCache.evictToken(vaultToken);
+
+        if (tokenRevocationQueue.isAsyncRevocationEnabled()) {
+            tokenRevocationQueue.revokeLater(vaultToken);
+        } else {
+            tokenRevocationQueue.revokeNow(vaultToken);
         }
     }
 
@@ -370,6 +812,7 @@ public class AuthenticationService {
         }
         meta.put(VaultAuthPrincipal.METADATA_KEY_IS_ADMIN, String.valueOf(isAdmin));
         meta.put(VaultAuthPrincipal.METADATA_KEY_GROUPS, StringUtils.join(userGroups, ','));
+        meta.put(VaultAuthPrincipal.METADATA_KEY_ISSUED_AT, String.valueOf(dateTimeSupplier.get().toEpochSecond()));
 
         final Set<String> policies = buildPolicySet(userGroups);
 
@@ -386,11 +829,16 @@ public class AuthenticationService {
     /**
      * Builds the policy set to be associated with the to-be generated Vault token.  The lookup-self policy is
      * included by default.  All other associated policies are based on the groups the user is a member of.
+     * Policy sets are served from the policy set cache when possible.
      *
      * @param groups Groups the user is a member of
      * @return Set of policies to be associated
      */
     private Set<String> buildPolicySet(final Set<String> groups) {
+        return policySetCache.getUserGroupPolicies(groups, () -> loadPolicySet(groups));
+    }
+
+    private Set<String> loadPolicySet(final Set<String> groups) {
         final Set<String> policies = Sets.newHashSet(LOOKUP_SELF_POLICY);
         final List<SafeDepositBoxRoleRecord> sdbRoles = safeDepositBoxDao.getUserAssociatedSafeDepositBoxRoles(groups);
 
@@ -426,11 +874,16 @@ public class AuthenticationService {
     /**
      * Builds the policy set to be associated with the to-be generated Vault token.  The lookup-self policy is
      * included by default.  All other associated policies are based on what permissions are granted to the IAM role.
+     * Policy sets are served from the policy set cache when possible.
      *
      * @param iamRoleArn IAM role ARN
      * @return Set of policies to be associated
      */
     private Set<String> buildPolicySet(final String iamRoleArn) {
+        return policySetCache.getIamPrincipalPolicies(iamRoleArn, () -> loadPolicySet(iamRoleArn));
+    }
+
+    private Set<String> loadPolicySet(final String iamRoleArn) {
         final Set<String> policies = Sets.newHashSet(LOOKUP_SELF_POLICY);
         final List<SafeDepositBoxRoleRecord> sdbRoles =
                 safeDepositBoxDao.getIamRoleAssociatedSafeDepositBoxRoles(iamRoleArn);
@@ -460,18 +913,19 @@ public class AuthenticationService {
                     .build();
         }
 
-        final Optional<AwsIamRoleKmsKeyRecord> kmsKey = awsIamRoleDao.getKmsKey(iamRole.get().getId(), credentials.getRegion());
+        final String iamRoleId = iamRole.get().getId();
+        final Optional<AwsIamRoleKmsKeyRecord> kmsKey = kmsKeyRecordCache.getKmsKey(iamRoleId, credentials.getRegion(),
+                () -> awsIamRoleDao.getKmsKey(iamRoleId, credentials.getRegion()));
 
         final String kmsKeyId;
         final AwsIamRoleKmsKeyRecord kmsKeyRecord;
-        final OffsetDateTime now = dateTimeSupplier.get();
 
         if (!kmsKey.isPresent()) {
-            kmsKeyId = kmsService.provisionKmsKey(iamRole.get().getId(), iamPrincipalArn, credentials.getRegion(), SYSTEM_USER, now);
+            kmsKeyId = kmsKeyProvisioningService.getOrProvisionKmsKey(iamRoleId, iamPrincipalArn, credentials.getRegion());
         } else {
             kmsKeyRecord = kmsKey.get();
             kmsKeyId = kmsKeyRecord.getAwsKmsKeyId();
-            kmsService.validatePolicy(kmsKeyRecord, iamPrincipalArn);
+            kmsPolicyValidationScheduler.validatePolicy(kmsKeyRecord, iamPrincipalArn);
         }
 
         return kmsKeyId;
@@ -486,17 +940,7 @@ public class AuthenticationService {
      * @return encrypted data
      */
     private byte[] encrypt(final String regionName, final String keyId, final byte[] data) {
-        Region region;
-        try {
-            region = Region.getRegion(Regions.fromName(regionName));
-        } catch (IllegalArgumentException iae) {
-            throw ApiException.newBuilder()
-                    .withApiErrors(DefaultApiError.AUTH_IAM_ROLE_AWS_REGION_INVALID)
-                    .withExceptionCause(iae)
-                    .build();
-        }
-
-        final AWSKMSClient kmsClient = kmsClientFactory.getClient(region);
+        final AWSKMSClient kmsClient = kmsClientFactory.getClient(getRegion(regionName));
 
         try {
             final EncryptResult encryptResult =
@@ -504,15 +948,59 @@ public class AuthenticationService {
 
             return encryptResult.getCiphertextBlob().array();
         } catch (AmazonClientException ace) {
+            throw toKmsCommunicationException(regionName, ace);
+        }
+    }
+
+    /**
+     * Encrypts the data provided using the async KMS client based on the provided region and key id.
+     *
+     * @param regionName Region where key is located
+     * @param keyId Key id
+     * @param data Data to be encrypted
+     * @return future of the encrypted data
+     */
+    private CompletableFuture<byte[]> encryptAsync(final String regionName, final String keyId, final byte[] data) {
+        final CompletableFuture<byte[]> encryptedData = new CompletableFuture<>();
+        final AWSKMSAsync kmsClient = kmsClientFactory.getAsyncClient(getRegion(regionName));
+
+        kmsClient.encryptAsync(new EncryptRequest().withKeyId(keyId).withPlaintext(ByteBuffer.wrap(data)),
+                new AsyncHandler<EncryptRequest, EncryptResult>() {
+                    @Override
+                    public void onError(Exception exception) {
+                        encryptedData.completeExceptionally(exception instanceof AmazonClientException ?
+                                toKmsCommunicationException(regionName, (AmazonClientException) exception) : exception);
+                    }
+
+                    @Override
+                    public void onSuccess(EncryptRequest request, EncryptResult encryptResult) {
+                        encryptedData.complete(encryptResult.getCiphertextBlob().array());
+                    }
+                });
+
+        return encryptedData;
+    }
+
+    private Region getRegion(final String regionName) {
+        try {
+            return Region.getRegion(Regions.fromName(regionName));
+        } catch (IllegalArgumentException iae) {
             throw ApiException.newBuilder()
-                    .withApiErrors(DefaultApiError.INTERNAL_SERVER_ERROR)
-                    .withExceptionCause(ace)
-                    .withExceptionMessage(
-                            String.format("Unexpected error communicating with AWS KMS for region %s.", regionName))
+                    .withApiErrors(DefaultApiError.AUTH_IAM_ROLE_AWS_REGION_INVALID)
+                    .withExceptionCause(iae)
                     .build();
         }
     }
 
+    private ApiException toKmsCommunicationException(final String regionName, final AmazonClientException ace) {
+        return ApiException.newBuilder()
+                .withApiErrors(DefaultApiError.INTERNAL_SERVER_ERROR)
+                .withExceptionCause(ace)
+                .withExceptionMessage(
+                        String.format("Unexpected error communicating with AWS KMS for region %s.", regionName))
+                .build();
+    }
+
     private Set<String> getAdminRoleArnSet() {
         if (adminRoleArnSet == null) {
             adminRoleArnSet = new HashSet<>();
@@ -550,6 +1038,7 @@ public class AuthenticationService {
             metadata.put(VaultAuthPrincipal.METADATA_KEY_IS_ADMIN, Boolean.toString(false));
         }
         metadata.put(VaultAuthPrincipal.METADATA_KEY_GROUPS, StringUtils.join(groups, ','));
+        metadata.put(VaultAuthPrincipal.METADATA_KEY_ISSUED_AT, String.valueOf(dateTimeSupplier.get().toEpochSecond()));
 
         return metadata;
     }
@@ -561,7 +1050,7 @@ public class AuthenticationService {
      * @return - The associated IAM role record
      */
     protected Optional<AwsIamRoleRecord> findIamRoleAssociatedWithSdb(final String iamPrincipalArn) {
-        Optional<AwsIamRoleRecord> iamRole = awsIamRoleDao.getIamRole(iamPrincipalArn);
+        Optional<AwsIamRoleRecord> iamRole = getIamRole(iamPrincipalArn);
 
         // if the arn is not already in 'role' format, and cannot be found,
         // then try checking for the generic "arn:aws:iam::0000000000:role/foo" format
@@ -569,9 +1058,109 @@ public class AuthenticationService {
             logger.debug("Detected non-role ARN, attempting to find SDBs associated with the principal's base role...");
             final String iamPrincipalInRoleFormat = awsIamRoleArnParser.convertPrincipalArnToRoleArn(iamPrincipalArn);
 
-            iamRole = awsIamRoleDao.getIamRole(iamPrincipalInRoleFormat);
+            iamRole = getIamRole(iamPrincipalInRoleFormat);
         }
 
         return iamRole;
     }
+
+    private Optional<AwsIamRoleRecord> getIamRole(final String awsIamRoleArn) {
+        return kmsKeyRecordCache.getIamRole(awsIamRoleArn, () -> awsIamRoleDao.getIamRole(awsIamRoleArn));
+    }
+
+    /**
+     * The ways the auth response of an IAM principal can be serialized before it is encrypted.
+     */
+    private enum IamAuthPayloadFormat {
+
+        /**
+         * Indented JSON, as returned by the v1 and v2 IAM auth endpoints.
+         */
+        PRETTY_JSON(IamPrincipalAuthResponseV3.PAYLOAD_ENCODING_JSON),
+
+        COMPACT_JSON(IamPrincipalAuthResponseV3.PAYLOAD_ENCODING_JSON),
+
+        GZIP_JSON(IamPrincipalAuthResponseV3.PAYLOAD_ENCODING_GZIP);
+
+        private final String payloadEncoding;
+
+        IamAuthPayloadFormat(final String payloadEncoding) {
+            this.payloadEncoding = payloadEncoding;
+        }
+
+        private String getPayloadEncoding() {
+            return payloadEncoding;
+        }
+    }
+
+    /**
+     * The serialized Vault auth response for an IAM principal and the KMS key it is to be encrypted with.
+     */
+    private static final class IamAuthPayload {
+
+        private final String keyId;
+
+        private final byte[] authResponseJson;
+
+        private final String reuseKey;
+
+        private final String vaultToken;
+
+        private final long leaseDuration;
+
+        private final byte[] reusedEncryptedAuthResponse;
+
+        private IamAuthPayload(final String keyId,
+                               final byte[] authResponseJson,
+                               final String reuseKey,
+                               final String vaultToken,
+                               final long leaseDuration) {
+            this(keyId, authResponseJson, reuseKey, vaultToken, leaseDuration, null);
+        }
+
+        private IamAuthPayload(final String keyId,
+                               final byte[] authResponseJson,
+                               final String reuseKey,
+                               final String vaultToken,
+                               final long leaseDuration,
+                               final byte[] reusedEncryptedAuthResponse) {
+            this.keyId = keyId;
+            this.authResponseJson = authResponseJson;
+            this.reuseKey = reuseKey;
+            this.vaultToken = vaultToken;
+            this.leaseDuration = leaseDuration;
+            this.reusedEncryptedAuthResponse = reusedEncryptedAuthResponse;
+        }
+
+        private static IamAuthPayload reused(final byte[] encryptedAuthResponse) {
+            return new IamAuthPayload(null, null, null, null, 0, encryptedAuthResponse);
+        }
+
+        private String getKeyId() {
+            return keyId;
+        }
+
+        private byte[] getAuthResponseJson() {
+            return authResponseJson;
+        }
+
+        private String getReuseKey() {
+            return reuseKey;
+        }
+
+        private String getVaultToken() {
+            return vaultToken;
+        }
+
+        private long getLeaseDuration() {
+            return leaseDuration;
+        }
+
+        /**
+         * @return The encrypted auth response of a reused token, or null if a new token was issued
+         */
+        private byte[] getReusedEncryptedAuthResponse() {
+            return reusedEncryptedAuthResponse;
+        }
+    }
 }
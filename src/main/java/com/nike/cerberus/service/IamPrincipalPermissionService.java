@@ -16,6 +16,7 @@
 
 package com.nike.cerberus.service;
 
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.nike.backstopper.exception.ApiException;
 import com.nike.cerberus.dao.AwsIamRoleDao;
@@ -23,6 +24,7 @@ import com.nike.cerberus.domain.IamPrincipalPermission;
 import com.nike.cerberus.domain.Role;
 import com.nike.cerberus.error.DefaultApiError;
 import com.nike.cerberus.record.AwsIamRolePermissionRecord;
+import com.nike.cerberus.record.AwsIamRolePermissionWithArnRecord;
 import com.nike.cerberus.record.AwsIamRoleRecord;
 import com.nike.cerberus.util.UuidSupplier;
 import org.mybatis.guice.transactional.Transactional;
@@ -30,7 +32,9 @@ import org.mybatis.guice.transactional.Transactional;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -46,13 +50,17 @@ public class IamPrincipalPermissionService {
 
     private final AwsIamRoleDao awsIamRoleDao;
 
+    private final PolicySetCache policySetCache;
+
     @Inject
     public IamPrincipalPermissionService(final UuidSupplier uuidSupplier,
                                          final RoleService roleService,
-                                         final AwsIamRoleDao awsIamRoleDao) {
+                                         final AwsIamRoleDao awsIamRoleDao,
+                                         final PolicySetCache policySetCache) {
         this.uuidSupplier = uuidSupplier;
         this.roleService = roleService;
         this.awsIamRoleDao = awsIamRoleDao;
+        this.policySetCache = policySetCache;
     }
 
     /**
@@ -122,6 +130,7 @@ public class IamPrincipalPermissionService {
         permissionRecord.setCreatedTs(dateTime);
         permissionRecord.setLastUpdatedTs(dateTime);
         awsIamRoleDao.createIamRolePermission(permissionRecord);
+        policySetCache.invalidateIamPrincipalPolicies();
     }
 
     /**
@@ -172,6 +181,7 @@ public class IamPrincipalPermissionService {
         record.setLastUpdatedBy(user);
         record.setLastUpdatedTs(dateTime);
         awsIamRoleDao.updateIamRolePermission(record);
+        policySetCache.invalidateIamPrincipalPolicies();
     }
 
     /**
@@ -216,33 +226,60 @@ public class IamPrincipalPermissionService {
         }
 
         awsIamRoleDao.deleteIamRolePermission(safeDepositBoxId, iamRole.get().getId());
+        policySetCache.invalidateIamPrincipalPolicies();
     }
 
+    /**
+     * Loads the IAM principal permissions of a safe deposit box, along with the ARN of each IAM principal, in one query.
+     *
+     * @param safeDepositBoxId The safe deposit box id
+     * @return The set of IAM principal permissions
+     */
     public Set<IamPrincipalPermission> getIamPrincipalPermissions(final String safeDepositBoxId) {
         final Set<IamPrincipalPermission> iamPrincipalPermissionSet = Sets.newHashSet();
-        final List<AwsIamRolePermissionRecord> permissionRecords = awsIamRoleDao.getIamRolePermissions(safeDepositBoxId);
-
-        permissionRecords.forEach(r -> {
-            final Optional<AwsIamRoleRecord> iamRoleRecord = awsIamRoleDao.getIamRoleById(r.getAwsIamRoleId());
-
-            if (iamRoleRecord.isPresent()) {
-                final IamPrincipalPermission permission = new IamPrincipalPermission();
-                permission.setId(r.getId());
-                permission.setIamPrincipalArn(iamRoleRecord.get().getAwsIamRoleArn());
-                permission.setRoleId(r.getRoleId());
-                permission.setCreatedBy(r.getCreatedBy());
-                permission.setLastUpdatedBy(r.getLastUpdatedBy());
-                permission.setCreatedTs(r.getCreatedTs());
-                permission.setLastUpdatedTs(r.getLastUpdatedTs());
-                iamPrincipalPermissionSet.add(permission);
-            }
-        });
+        final List<AwsIamRolePermissionWithArnRecord> permissionRecords =
+                awsIamRoleDao.getIamRolePermissionsWithArn(safeDepositBoxId);
+
+        permissionRecords.forEach(r -> iamPrincipalPermissionSet.add(toIamPrincipalPermission(r)));
 
         return iamPrincipalPermissionSet;
     }
 
+    /**
+     * Loads the IAM principal permissions of several safe deposit boxes, along with the ARN of each IAM principal, in
+     * one query.
+     *
+     * @param safeDepositBoxIds The safe deposit box ids
+     * @return The set of IAM principal permissions of each safe deposit box that has any, keyed by safe deposit box id
+     */
+    public Map<String, Set<IamPrincipalPermission>> getIamPrincipalPermissions(final Collection<String> safeDepositBoxIds) {
+        final Map<String, Set<IamPrincipalPermission>> permissionsBySafeDepositBoxId = Maps.newHashMap();
+        if (safeDepositBoxIds.isEmpty()) {
+            return permissionsBySafeDepositBoxId;
+        }
+
+        awsIamRoleDao.getIamRolePermissionsWithArn(safeDepositBoxIds).forEach(r ->
+                permissionsBySafeDepositBoxId.computeIfAbsent(r.getSdboxId(), id -> Sets.newHashSet())
+                        .add(toIamPrincipalPermission(r)));
+
+        return permissionsBySafeDepositBoxId;
+    }
+
+    private IamPrincipalPermission toIamPrincipalPermission(final AwsIamRolePermissionWithArnRecord r) {
+        final IamPrincipalPermission permission = new IamPrincipalPermission();
+        permission.setId(r.getId());
+        permission.setIamPrincipalArn(r.getAwsIamRoleArn());
+        permission.setRoleId(r.getRoleId());
+        permission.setCreatedBy(r.getCreatedBy());
+        permission.setLastUpdatedBy(r.getLastUpdatedBy());
+        permission.setCreatedTs(r.getCreatedTs());
+        permission.setLastUpdatedTs(r.getLastUpdatedTs());
+        return permission;
+    }
+
     @Transactional
     public void deleteIamPrincipalPermissions(final String safeDepositBoxId) {
         awsIamRoleDao.deleteIamRolePermissions(safeDepositBoxId);
+        policySetCache.invalidateIamPrincipalPolicies();
     }
 }
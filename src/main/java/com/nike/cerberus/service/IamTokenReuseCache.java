@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.service;
+
+import com.codahale.metrics.Counter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.inject.name.Named;
+import com.nike.cerberus.security.VaultAuthPrincipal;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the KMS encrypted auth responses recently returned to IAM principals, so that a principal authenticating
+ * again within the reuse window gets the token it was already issued instead of a new one.  This keeps auto-scaling
+ * fleets from filling Vault's token store with short lived tokens.
+ *
+ * Entries are keyed by principal ARN, region, KMS key, policy set, token metadata and payload format, so any
+ * permission change issues a new token.  Only the ciphertext and a hash of the token are held, plain text tokens
+ * never stay in memory.  An entry is dropped when its token is revoked on this node.  Another node may keep handing
+ * out a revoked token until the window passes.
+ *
+ * A reused ciphertext still carries the lease_duration its token was issued with, so a client receiving it believes
+ * the token lives longer than it does by the age of the entry.  Entries are therefore reused for at most a tenth of
+ * their token's lease, and clients must refresh tokens at least that long before their lease_duration runs out.
+ */
+@Singleton
+public class IamTokenReuseCache {
+
+    public static final String REUSE_ENABLED_PROPERTY = "cms.auth.iam.token.reuse.enabled";
+    public static final String REUSE_MAX_SIZE_PROPERTY = "cms.auth.iam.token.reuse.maxSize";
+    public static final String REUSE_WINDOW_PROPERTY = "cms.auth.iam.token.reuse.windowSeconds";
+
+    public static final String METRIC_REUSE_HIT = "cms.auth.iam.token.reuse.hit";
+    public static final String METRIC_REUSE_MISS = "cms.auth.iam.token.reuse.miss";
+
+    /**
+     * A token is reused for at most its lease divided by this ratio.
+     */
+    private static final long LEASE_TO_MAX_REUSE_RATIO = 10;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final boolean enabled;
+
+    private final long windowInMillis;
+
+    private final Cache<String, ReusableToken> tokenCache;
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    @Inject
+    public IamTokenReuseCache(final CodahaleMetricsCollector metricsCollector,
+                              @Named(REUSE_ENABLED_PROPERTY) final boolean enabled,
+                              @Named(REUSE_MAX_SIZE_PROPERTY) final long maxSize,
+                              @Named(REUSE_WINDOW_PROPERTY) final long windowInSeconds) {
+        this.enabled = enabled;
+        this.windowInMillis = TimeUnit.SECONDS.toMillis(windowInSeconds);
+
+        this.tokenCache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(windowInSeconds, TimeUnit.SECONDS)
+                .build();
+
+        this.hitCounter = metricsCollector.getMetricRegistry().counter(METRIC_REUSE_HIT);
+        this.missCounter = metricsCollector.getMetricRegistry().counter(METRIC_REUSE_MISS);
+
+        logger.info("IAM token reuse enabled={}, maxSize={}, windowSeconds={}", enabled, maxSize, windowInSeconds);
+    }
+
+    /**
+     * @return True if tokens issued to IAM principals may be reused
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Builds the key under which the token issued for the given request is held.  The issued at metadata entry is
+     * left out, it differs on every request.
+     *
+     * @param iamPrincipalArn The authenticating IAM principal ARN
+     * @param region The region the auth response is encrypted for
+     * @param keyId The KMS key the auth response is encrypted with
+     * @param policies The policies the token is granted
+     * @param metadata The metadata of the token
+     * @param payloadFormat The format the auth response is serialized in before it is encrypted
+     * @return Hash of the sorted inputs, each prefixed with its length
+     */
+    public String buildKey(final String iamPrincipalArn,
+                           final String region,
+                           final String keyId,
+                           final Set<String> policies,
+                           final Map<String, String> metadata,
+                           final String payloadFormat) {
+        final Hasher hasher = Hashing.sha256().newHasher();
+        putString(hasher, iamPrincipalArn);
+        putString(hasher, region);
+        putString(hasher, keyId);
+        putString(hasher, payloadFormat);
+
+        hasher.putInt(policies.size());
+        policies.stream().sorted().forEach(policy -> putString(hasher, policy));
+
+        metadata.entrySet().stream()
+                .filter(entry -> !VaultAuthPrincipal.METADATA_KEY_ISSUED_AT.equals(entry.getKey()))
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> {
+                    putString(hasher, entry.getKey());
+                    putString(hasher, entry.getValue());
+                });
+
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Returns the encrypted auth response held under the given key, if its token may still be reused.
+     *
+     * @param key Key built with {@link #buildKey(String, String, String, Set, Map, String)}
+     * @return The KMS encrypted auth response
+     */
+    public Optional<byte[]> getEncryptedAuthResponse(final String key) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        final ReusableToken reusableToken = tokenCache.getIfPresent(key);
+
+        if (reusableToken == null || System.currentTimeMillis() >= reusableToken.getReusableUntilMillis()) {
+            missCounter.inc();
+            return Optional.empty();
+        }
+
+        hitCounter.inc();
+        return Optional.of(reusableToken.getEncryptedAuthResponse());
+    }
+
+    /**
+     * Holds the encrypted auth response of a newly issued token for reuse.
+     *
+     * @param key Key built with {@link #buildKey(String, String, String, Set, Map, String)}
+     * @param vaultToken The issued token, only its hash is held
+     * @param leaseDurationInSeconds The lease of the issued token
+     * @param encryptedAuthResponse The KMS encrypted auth response
+     */
+    public void putEncryptedAuthResponse(final String key,
+                                         final String vaultToken,
+                                         final long leaseDurationInSeconds,
+                                         final byte[] encryptedAuthResponse) {
+        if (!enabled) {
+            return;
+        }
+
+        final long reuseInMillis = Math.min(windowInMillis,
+                TimeUnit.SECONDS.toMillis(leaseDurationInSeconds) / LEASE_TO_MAX_REUSE_RATIO);
+        tokenCache.put(key, new ReusableToken(hashToken(vaultToken), encryptedAuthResponse,
+                System.currentTimeMillis() + reuseInMillis));
+    }
+
+    /**
+     * Stops reusing the given token, called when it is revoked.
+     *
+     * @param vaultToken The revoked token
+     */
+    public void evictToken(final String vaultToken) {
+        if (!enabled) {
+            return;
+        }
+
+        final String tokenHash = hashToken(vaultToken);
+        tokenCache.asMap().values().removeIf(reusableToken -> reusableToken.getTokenHash().equals(tokenHash));
+    }
+
+    private void putString(final Hasher hasher, final String value) {
+        final String nonNullValue = value == null ? "" : value;
+        hasher.putInt(nonNullValue.length()).putString(nonNullValue, StandardCharsets.UTF_8);
+    }
+
+    private String hashToken(final String vaultToken) {
+        return Hashing.sha256().hashString(vaultToken, StandardCharsets.UTF_8).toString();
+    }
+
+    private static final class ReusableToken {
+
+        private final String tokenHash;
+
+        private final byte[] encryptedAuthResponse;
+
+        private final long reusableUntilMillis;
+
+        private ReusableToken(final String tokenHash,
+                              final byte[] encryptedAuthResponse,
+                              final long reusableUntilMillis) {
+            this.tokenHash = tokenHash;
+            this.encryptedAuthResponse = encryptedAuthResponse;
+            this.reusableUntilMillis = reusableUntilMillis;
+        }
+
+        private String getTokenHash() {
+            return tokenHash;
+        }
+
+        private byte[] getEncryptedAuthResponse() {
+            return encryptedAuthResponse;
+        }
+
+        private long getReusableUntilMillis() {
+            return reusableUntilMillis;
+        }
+    }
+}
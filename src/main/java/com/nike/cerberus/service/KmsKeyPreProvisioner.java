@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.service;
+
+import com.codahale.metrics.Counter;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.name.Named;
+import com.nike.cerberus.dao.AwsIamRoleDao;
+import com.nike.cerberus.record.AwsIamRoleRecord;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provisions the KMS keys of an IAM principal in a configured list of regions in the background, as soon as the
+ * principal is granted permissions, so that its first authentication in those regions does not have to wait on KMS.
+ *
+ * Provisioning must be scheduled once the transaction of the grant has committed.  Each attempt first checks that the
+ * IAM role still exists and is still granted permissions on the SDB, so nothing is provisioned for a grant that was
+ * revoked in the meantime.  Failed attempts are retried with a linearly increasing delay.  Keys that could not be
+ * provisioned are still provisioned lazily on first authentication.
+ */
+@Singleton
+public class KmsKeyPreProvisioner {
+
+    public static final String PRE_PROVISION_REGIONS_PROPERTY = "cms.kms.key.preprovision.regions";
+    public static final String PRE_PROVISION_MAX_ATTEMPTS_PROPERTY = "cms.kms.key.preprovision.maxAttempts";
+    public static final String PRE_PROVISION_RETRY_DELAY_PROPERTY = "cms.kms.key.preprovision.retryDelaySeconds";
+
+    public static final String METRIC_PRE_PROVISION_SUCCESS = "cms.kms.key.preprovision.success";
+    public static final String METRIC_PRE_PROVISION_FAILURE = "cms.kms.key.preprovision.failure";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final KmsKeyProvisioningService kmsKeyProvisioningService;
+
+    private final AwsIamRoleDao awsIamRoleDao;
+
+    private final List<String> regions;
+
+    private final int maxAttempts;
+
+    private final long retryDelayInSeconds;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Counter successCounter;
+
+    private final Counter failureCounter;
+
+    @Inject
+    public KmsKeyPreProvisioner(final KmsKeyProvisioningService kmsKeyProvisioningService,
+                                final AwsIamRoleDao awsIamRoleDao,
+                                final CodahaleMetricsCollector metricsCollector,
+                                @Named(PRE_PROVISION_REGIONS_PROPERTY) final String regions,
+                                @Named(PRE_PROVISION_MAX_ATTEMPTS_PROPERTY) final int maxAttempts,
+                                @Named(PRE_PROVISION_RETRY_DELAY_PROPERTY) final long retryDelayInSeconds) {
+        this.kmsKeyProvisioningService = kmsKeyProvisioningService;
+        this.awsIamRoleDao = awsIamRoleDao;
+        this.regions = ImmutableList.copyOf(Splitter.on(',').trimResults().omitEmptyStrings().split(regions));
+        this.maxAttempts = maxAttempts;
+        this.retryDelayInSeconds = retryDelayInSeconds;
+
+        this.scheduler = this.regions.isEmpty() ? null : Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder()
+                        .setNameFormat("cms-kms-key-preprovision-%d")
+                        .setDaemon(true)
+                        .build());
+
+        this.successCounter = metricsCollector.getMetricRegistry().counter(METRIC_PRE_PROVISION_SUCCESS);
+        this.failureCounter = metricsCollector.getMetricRegistry().counter(METRIC_PRE_PROVISION_FAILURE);
+
+        logger.info("KMS key pre-provisioning regions={}, maxAttempts={}, retryDelaySeconds={}",
+                this.regions, maxAttempts, retryDelayInSeconds);
+    }
+
+    /**
+     * Schedules provisioning of the KMS keys of the given IAM principals in each configured region.  Must only be
+     * called once the permissions granted to the principals are committed.  Does nothing when no regions are
+     * configured.
+     *
+     * @param safeDepositBoxId The SDB the IAM principals were granted permissions on
+     * @param iamPrincipalArns The AWS IAM principal ARNs
+     */
+    public void schedulePreProvisioning(final String safeDepositBoxId, final Collection<String> iamPrincipalArns) {
+        if (scheduler == null) {
+            return;
+        }
+
+        for (final String iamPrincipalArn : iamPrincipalArns) {
+            for (final String region : regions) {
+                schedule(safeDepositBoxId, iamPrincipalArn, region, 1);
+            }
+        }
+    }
+
+    private void schedule(final String safeDepositBoxId,
+                          final String iamPrincipalArn,
+                          final String region,
+                          final int attempt) {
+        scheduler.schedule(() -> provision(safeDepositBoxId, iamPrincipalArn, region, attempt),
+                retryDelayInSeconds * (attempt - 1), TimeUnit.SECONDS);
+    }
+
+    private void provision(final String safeDepositBoxId,
+                           final String iamPrincipalArn,
+                           final String region,
+                           final int attempt) {
+        try {
+            final Optional<String> iamRoleId = getGrantedIamRoleId(safeDepositBoxId, iamPrincipalArn);
+            if (!iamRoleId.isPresent()) {
+                logger.info("IAM principal: {} is no longer granted permissions on SDB: {}, not pre-provisioning " +
+                        "its KMS key in region: {}", iamPrincipalArn, safeDepositBoxId, region);
+                return;
+            }
+
+            if (awsIamRoleDao.getKmsKey(iamRoleId.get(), region).isPresent()) {
+                return;
+            }
+
+            kmsKeyProvisioningService.getOrProvisionKmsKey(iamRoleId.get(), iamPrincipalArn, region);
+            successCounter.inc();
+        } catch (RuntimeException e) {
+            if (attempt < maxAttempts) {
+                logger.info("Attempt {} to pre-provision KMS key for IAM principal: {} in region: {} failed, retrying",
+                        attempt, iamPrincipalArn, region);
+                schedule(safeDepositBoxId, iamPrincipalArn, region, attempt + 1);
+            } else {
+                failureCounter.inc();
+                logger.error(String.format("Failed to pre-provision KMS key for IAM principal: %s in region: %s, " +
+                        "it will be provisioned on first authentication instead", iamPrincipalArn, region), e);
+            }
+        }
+    }
+
+    /**
+     * @return The id of the IAM role of the principal, if the role exists and is granted permissions on the SDB
+     */
+    private Optional<String> getGrantedIamRoleId(final String safeDepositBoxId, final String iamPrincipalArn) {
+        return awsIamRoleDao.getIamRole(iamPrincipalArn)
+                .map(AwsIamRoleRecord::getId)
+                .filter(iamRoleId -> awsIamRoleDao.getIamRolePermissions(safeDepositBoxId).stream()
+                        .anyMatch(permission -> iamRoleId.equals(permission.getAwsIamRoleId())));
+    }
+}
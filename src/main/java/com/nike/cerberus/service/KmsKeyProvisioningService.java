@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.service;
+
+import com.codahale.metrics.Counter;
+import com.google.common.collect.Maps;
+import com.nike.cerberus.dao.AwsIamRoleDao;
+import com.nike.cerberus.record.AwsIamRoleKmsKeyRecord;
+import com.nike.cerberus.util.DateTimeSupplier;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.nike.cerberus.service.AuthenticationService.SYSTEM_USER;
+
+/**
+ * Provisions the KMS key of an IAM role in a region at most once.
+ *
+ * Concurrent requests for the same IAM role and region on this node share a single provisioning.  Across CMS nodes
+ * the unique (IAM role, region) index on the KMS key table decides the winner, nodes that lose the race discard the
+ * key they created and use the winner's key instead.
+ */
+@Singleton
+public class KmsKeyProvisioningService {
+
+    public static final String METRIC_PROVISIONING_COALESCED = "cms.kms.key.provisioning.coalesced";
+    public static final String METRIC_PROVISIONING_CONFLICT = "cms.kms.key.provisioning.conflict";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final KmsService kmsService;
+
+    private final AwsIamRoleDao awsIamRoleDao;
+
+    private final KmsKeyRecordCache kmsKeyRecordCache;
+
+    private final DateTimeSupplier dateTimeSupplier;
+
+    private final ConcurrentMap<String, CompletableFuture<String>> inFlightProvisioning = Maps.newConcurrentMap();
+
+    private final Counter coalescedCounter;
+
+    private final Counter conflictCounter;
+
+    @Inject
+    public KmsKeyProvisioningService(final KmsService kmsService,
+                                     final AwsIamRoleDao awsIamRoleDao,
+                                     final KmsKeyRecordCache kmsKeyRecordCache,
+                                     final DateTimeSupplier dateTimeSupplier,
+                                     final CodahaleMetricsCollector metricsCollector) {
+        this.kmsService = kmsService;
+        this.awsIamRoleDao = awsIamRoleDao;
+        this.kmsKeyRecordCache = kmsKeyRecordCache;
+        this.dateTimeSupplier = dateTimeSupplier;
+
+        this.coalescedCounter = metricsCollector.getMetricRegistry().counter(METRIC_PROVISIONING_COALESCED);
+        this.conflictCounter = metricsCollector.getMetricRegistry().counter(METRIC_PROVISIONING_CONFLICT);
+    }
+
+    /**
+     * Returns the KMS key of the given IAM role in the given region, provisioning it if it does not exist yet.
+     *
+     * @param iamRoleId       The IAM role that the CMK is associated with
+     * @param iamPrincipalArn The AWS IAM principal ARN
+     * @param awsRegion       The region of the CMK
+     * @return The AWS Key ID ARN
+     */
+    public String getOrProvisionKmsKey(final String iamRoleId, final String iamPrincipalArn, final String awsRegion) {
+        final String key = iamRoleId + '|' + awsRegion;
+        final CompletableFuture<String> provisioning = new CompletableFuture<>();
+        final CompletableFuture<String> inFlight = inFlightProvisioning.putIfAbsent(key, provisioning);
+
+        if (inFlight != null) {
+            coalescedCounter.inc();
+            try {
+                return inFlight.join();
+            } catch (CompletionException ce) {
+                if (ce.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ce.getCause();
+                }
+                throw ce;
+            }
+        }
+
+        try {
+            final String kmsKeyArn = provision(iamRoleId, iamPrincipalArn, awsRegion);
+            provisioning.complete(kmsKeyArn);
+            return kmsKeyArn;
+        } catch (RuntimeException e) {
+            provisioning.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightProvisioning.remove(key, provisioning);
+        }
+    }
+
+    private String provision(final String iamRoleId, final String iamPrincipalArn, final String awsRegion) {
+        // a provisioning that finished just before this one started may not have been visible to the caller
+        final Optional<String> existingKmsKeyArn = findKmsKey(iamRoleId, awsRegion);
+        if (existingKmsKeyArn.isPresent()) {
+            return existingKmsKeyArn.get();
+        }
+
+        try {
+            return kmsService.provisionKmsKey(iamRoleId, iamPrincipalArn, awsRegion, SYSTEM_USER, dateTimeSupplier.get());
+        } catch (RuntimeException e) {
+            if (!KmsService.isDuplicateKmsKeyRecord(e)) {
+                throw e;
+            }
+
+            conflictCounter.inc();
+            logger.info("KMS key for IAM role: {} in region: {} was provisioned by another CMS node", iamRoleId, awsRegion);
+            return findKmsKey(iamRoleId, awsRegion).orElseThrow(() -> e);
+        }
+    }
+
+    private Optional<String> findKmsKey(final String iamRoleId, final String awsRegion) {
+        final Optional<AwsIamRoleKmsKeyRecord> kmsKey = awsIamRoleDao.getKmsKey(iamRoleId, awsRegion);
+        kmsKey.ifPresent(kmsKeyRecordCache::putKmsKey);
+
+        return kmsKey.map(AwsIamRoleKmsKeyRecord::getAwsKmsKeyId);
+    }
+}
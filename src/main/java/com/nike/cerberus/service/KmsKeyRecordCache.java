@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.service;
+
+import com.codahale.metrics.Counter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.name.Named;
+import com.nike.cerberus.record.AwsIamRoleKmsKeyRecord;
+import com.nike.cerberus.record.AwsIamRoleRecord;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of the IAM role and KMS key records looked up on every IAM authentication.  Together the two
+ * caches resolve (IAM principal ARN, region) to the principal's KMS key record without a database round trip.
+ *
+ * Only records that exist are cached.  IAM role records are never deleted and KMS key records only change through
+ * {@link KmsService}, which keeps this cache up to date, so the TTL is only a safety net for out of band changes.
+ */
+@Singleton
+public class KmsKeyRecordCache {
+
+    public static final String CACHE_ENABLED_PROPERTY = "cms.kms.key.cache.enabled";
+    public static final String CACHE_MAX_SIZE_PROPERTY = "cms.kms.key.cache.maxSize";
+    public static final String CACHE_TTL_PROPERTY = "cms.kms.key.cache.ttlSeconds";
+
+    public static final String METRIC_CACHE_HIT = "cms.kms.key.cache.hit";
+    public static final String METRIC_CACHE_MISS = "cms.kms.key.cache.miss";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final boolean enabled;
+
+    private final Cache<String, AwsIamRoleRecord> iamRoleCache;
+
+    private final Cache<String, AwsIamRoleKmsKeyRecord> kmsKeyCache;
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    @Inject
+    public KmsKeyRecordCache(final CodahaleMetricsCollector metricsCollector,
+                             @Named(CACHE_ENABLED_PROPERTY) final boolean enabled,
+                             @Named(CACHE_MAX_SIZE_PROPERTY) final long maxSize,
+                             @Named(CACHE_TTL_PROPERTY) final long ttlInSeconds) {
+        this.enabled = enabled;
+
+        this.iamRoleCache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlInSeconds, TimeUnit.SECONDS)
+                .build();
+        this.kmsKeyCache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlInSeconds, TimeUnit.SECONDS)
+                .build();
+
+        this.hitCounter = metricsCollector.getMetricRegistry().counter(METRIC_CACHE_HIT);
+        this.missCounter = metricsCollector.getMetricRegistry().counter(METRIC_CACHE_MISS);
+
+        logger.info("KMS key record cache enabled={}, maxSize={}, ttlSeconds={}", enabled, maxSize, ttlInSeconds);
+    }
+
+    /**
+     * Returns the IAM role record for the given ARN, loading and caching it on a miss.
+     *
+     * @param awsIamRoleArn The IAM role ARN
+     * @param loader Loads the record from the database
+     * @return The IAM role record, if found
+     */
+    public Optional<AwsIamRoleRecord> getIamRole(final String awsIamRoleArn,
+                                                 final Supplier<Optional<AwsIamRoleRecord>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        final AwsIamRoleRecord cachedRecord = iamRoleCache.getIfPresent(awsIamRoleArn);
+
+        if (cachedRecord != null) {
+            hitCounter.inc();
+            return Optional.of(cachedRecord);
+        }
+
+        missCounter.inc();
+        final Optional<AwsIamRoleRecord> record = loader.get();
+        record.ifPresent(r -> iamRoleCache.put(awsIamRoleArn, r));
+
+        return record;
+    }
+
+    /**
+     * Returns the KMS key record for the given IAM role and region, loading and caching it on a miss.
+     *
+     * @param awsIamRoleId The IAM role id
+     * @param awsRegion The AWS region
+     * @param loader Loads the record from the database
+     * @return The KMS key record, if found
+     */
+    public Optional<AwsIamRoleKmsKeyRecord> getKmsKey(final String awsIamRoleId,
+                                                      final String awsRegion,
+                                                      final Supplier<Optional<AwsIamRoleKmsKeyRecord>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        final String key = buildKmsKeyCacheKey(awsIamRoleId, awsRegion);
+        final AwsIamRoleKmsKeyRecord cachedRecord = kmsKeyCache.getIfPresent(key);
+
+        if (cachedRecord != null) {
+            hitCounter.inc();
+            return Optional.of(cachedRecord);
+        }
+
+        missCounter.inc();
+        final Optional<AwsIamRoleKmsKeyRecord> record = loader.get();
+        record.ifPresent(r -> kmsKeyCache.put(key, r));
+
+        return record;
+    }
+
+    /**
+     * Stores the given KMS key record, replacing any cached record for the same IAM role and region.
+     *
+     * @param record The KMS key record
+     */
+    public void putKmsKey(final AwsIamRoleKmsKeyRecord record) {
+        if (enabled) {
+            kmsKeyCache.put(buildKmsKeyCacheKey(record.getAwsIamRoleId(), record.getAwsRegion()), record);
+        }
+    }
+
+    /**
+     * Removes any cached KMS key record for the given IAM role and region.
+     *
+     * @param awsIamRoleId The IAM role id
+     * @param awsRegion The AWS region
+     */
+    public void invalidateKmsKey(final String awsIamRoleId, final String awsRegion) {
+        kmsKeyCache.invalidate(buildKmsKeyCacheKey(awsIamRoleId, awsRegion));
+    }
+
+    private String buildKmsKeyCacheKey(final String awsIamRoleId, final String awsRegion) {
+        return awsIamRoleId + '|' + awsRegion;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.name.Named;
+import com.nike.cerberus.record.AwsIamRoleKmsKeyRecord;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Decides when the KMS key policy of an authenticating IAM principal gets validated.
+ *
+ * By default validation runs inline, as part of authentication.  When background validation is enabled,
+ * authentication only enqueues keys that are due for validation and a small pool of workers validates them in
+ * batches, throttled so that CMS stays under the KMS control-plane API limits.  A key is queued at most once at a
+ * time, and keys are dropped (to be picked up again by a later authentication) when the queue is full.
+ */
+@Singleton
+public class KmsPolicyValidationScheduler {
+
+    public static final String BACKGROUND_VALIDATION_ENABLED_PROPERTY = "cms.kms.policy.validation.background.enabled";
+    public static final String BACKGROUND_VALIDATION_THREADS_PROPERTY = "cms.kms.policy.validation.background.threads";
+    public static final String BACKGROUND_VALIDATION_BATCH_SIZE_PROPERTY = "cms.kms.policy.validation.background.batchSize";
+    public static final String BACKGROUND_VALIDATION_QUEUE_CAPACITY_PROPERTY = "cms.kms.policy.validation.background.queueCapacity";
+    public static final String BACKGROUND_VALIDATION_MAX_PER_SECOND_PROPERTY = "cms.kms.policy.validation.background.maxPerSecond";
+
+    public static final String METRIC_VALIDATION_QUEUED = "cms.kms.policy.validation.queued";
+    public static final String METRIC_VALIDATION_DROPPED = "cms.kms.policy.validation.dropped";
+    public static final String METRIC_VALIDATION_QUEUE_SIZE = "cms.kms.policy.validation.queueSize";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final KmsService kmsService;
+
+    private final boolean backgroundValidationEnabled;
+
+    private final int batchSize;
+
+    private final RateLimiter rateLimiter;
+
+    private final BlockingQueue<PendingValidation> queue;
+
+    private final ConcurrentMap<String, PendingValidation> pendingValidations = Maps.newConcurrentMap();
+
+    private final Counter queuedCounter;
+
+    private final Counter droppedCounter;
+
+    @Inject
+    public KmsPolicyValidationScheduler(final KmsService kmsService,
+                                        final CodahaleMetricsCollector metricsCollector,
+                                        @Named(BACKGROUND_VALIDATION_ENABLED_PROPERTY) final boolean backgroundValidationEnabled,
+                                        @Named(BACKGROUND_VALIDATION_THREADS_PROPERTY) final int threads,
+                                        @Named(BACKGROUND_VALIDATION_BATCH_SIZE_PROPERTY) final int batchSize,
+                                        @Named(BACKGROUND_VALIDATION_QUEUE_CAPACITY_PROPERTY) final int queueCapacity,
+                                        @Named(BACKGROUND_VALIDATION_MAX_PER_SECOND_PROPERTY) final double maxValidationsPerSecond) {
+        this.kmsService = kmsService;
+        this.backgroundValidationEnabled = backgroundValidationEnabled;
+        this.batchSize = batchSize;
+        this.rateLimiter = RateLimiter.create(maxValidationsPerSecond);
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+
+        this.queuedCounter = metricsCollector.getMetricRegistry().counter(METRIC_VALIDATION_QUEUED);
+        this.droppedCounter = metricsCollector.getMetricRegistry().counter(METRIC_VALIDATION_DROPPED);
+        metricsCollector.getMetricRegistry().register(METRIC_VALIDATION_QUEUE_SIZE, (Gauge<Integer>) queue::size);
+
+        if (backgroundValidationEnabled) {
+            final ExecutorService workers = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+                    .setNameFormat("cms-kms-policy-validation-%d")
+                    .setDaemon(true)
+                    .build());
+            for (int i = 0; i < threads; i++) {
+                workers.execute(this::processQueue);
+            }
+        }
+
+        logger.info("KMS policy validation backgroundEnabled={}, threads={}, batchSize={}, queueCapacity={}, maxPerSecond={}",
+                backgroundValidationEnabled, threads, batchSize, queueCapacity, maxValidationsPerSecond);
+    }
+
+    /**
+     * Validates the policy of the given KMS key, or schedules it for validation when background validation is
+     * enabled.  See {@link KmsService#validatePolicy(AwsIamRoleKmsKeyRecord, String)}.
+     *
+     * @param kmsKeyRecord - The CMK record to validate policy on
+     * @param iamPrincipalArn - The principal ARN that should have decrypt permission
+     */
+    public void validatePolicy(final AwsIamRoleKmsKeyRecord kmsKeyRecord, final String iamPrincipalArn) {
+        if (!backgroundValidationEnabled) {
+            kmsService.validatePolicy(kmsKeyRecord, iamPrincipalArn);
+            return;
+        }
+
+        if (!kmsService.kmsPolicyNeedsValidation(kmsKeyRecord)) {
+            return;
+        }
+
+        final PendingValidation pendingValidation = new PendingValidation(kmsKeyRecord, iamPrincipalArn);
+        if (pendingValidations.putIfAbsent(pendingValidation.getKey(), pendingValidation) != null) {
+            return;
+        }
+
+        if (queue.offer(pendingValidation)) {
+            queuedCounter.inc();
+        } else {
+            pendingValidations.remove(pendingValidation.getKey(), pendingValidation);
+            droppedCounter.inc();
+            logger.debug("KMS policy validation queue is full, skipping validation of keyId: {}",
+                    kmsKeyRecord.getAwsKmsKeyId());
+        }
+    }
+
+    private void processQueue() {
+        final List<PendingValidation> batch = Lists.newArrayListWithCapacity(batchSize);
+
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+
+                for (final PendingValidation pendingValidation : batch) {
+                    rateLimiter.acquire();
+                    validate(pendingValidation);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                batch.forEach(pendingValidation ->
+                        pendingValidations.remove(pendingValidation.getKey(), pendingValidation));
+                batch.clear();
+            }
+        }
+    }
+
+    private void validate(final PendingValidation pendingValidation) {
+        try {
+            kmsService.validatePolicy(pendingValidation.getKmsKeyRecord(), pendingValidation.getIamPrincipalArn());
+        } catch (RuntimeException e) {
+            logger.error("Unexpected error validating KMS policy for keyId: {}",
+                    pendingValidation.getKmsKeyRecord().getAwsKmsKeyId(), e);
+        }
+    }
+
+    private static final class PendingValidation {
+
+        private final AwsIamRoleKmsKeyRecord kmsKeyRecord;
+
+        private final String iamPrincipalArn;
+
+        private PendingValidation(final AwsIamRoleKmsKeyRecord kmsKeyRecord, final String iamPrincipalArn) {
+            this.kmsKeyRecord = kmsKeyRecord;
+            this.iamPrincipalArn = iamPrincipalArn;
+        }
+
+        private String getKey() {
+            return kmsKeyRecord.getAwsIamRoleId() + '|' + kmsKeyRecord.getAwsRegion();
+        }
+
+        private AwsIamRoleKmsKeyRecord getKmsKeyRecord() {
+            return kmsKeyRecord;
+        }
+
+        private String getIamPrincipalArn() {
+            return iamPrincipalArn;
+        }
+    }
+}
@@ -21,11 +21,14 @@ import com.amazonaws.services.kms.AWSKMSClient;
 import com.amazonaws.services.kms.model.CreateAliasRequest;
 import com.amazonaws.services.kms.model.CreateKeyRequest;
 import com.amazonaws.services.kms.model.CreateKeyResult;
+import com.amazonaws.services.kms.model.DeleteAliasRequest;
 import com.amazonaws.services.kms.model.GetKeyPolicyRequest;
 import com.amazonaws.services.kms.model.GetKeyPolicyResult;
 import com.amazonaws.services.kms.model.KeyMetadata;
 import com.amazonaws.services.kms.model.KeyUsageType;
 import com.amazonaws.services.kms.model.PutKeyPolicyRequest;
+import com.amazonaws.services.kms.model.ScheduleKeyDeletionRequest;
+import com.google.common.base.Throwables;
 import com.google.inject.name.Named;
 import com.nike.backstopper.exception.ApiException;
 import com.nike.cerberus.aws.KmsClientFactory;
@@ -40,6 +43,7 @@ import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Optional;
@@ -57,6 +61,7 @@ public class KmsService {
     private static final String KMS_ALIAS_FORMAT = "alias/cerberus/%s";
     public static final String KMS_POLICY_VALIDATION_INTERVAL_OVERRIDE = "cms.kms.policy.validation.interval.millis.override";
     public static final Integer DEFAULT_KMS_VALIDATION_INTERVAL = 6000; // in milliseconds
+    private static final int UNUSED_KMS_KEY_DELETION_WINDOW_IN_DAYS = 7; // the minimum allowed by KMS
 
 
     private final AwsIamRoleDao awsIamRoleDao;
@@ -69,6 +74,8 @@ public class KmsService {
 
     private final DateTimeSupplier dateTimeSupplier;
 
+    private final KmsKeyRecordCache kmsKeyRecordCache;
+
     @com.google.inject.Inject(optional=true)
     @Named(KMS_POLICY_VALIDATION_INTERVAL_OVERRIDE)
     Integer kmsKeyPolicyValidationInterval = DEFAULT_KMS_VALIDATION_INTERVAL;
@@ -78,12 +85,14 @@ public class KmsService {
                       final UuidSupplier uuidSupplier,
                       final KmsClientFactory kmsClientFactory,
                       final KmsPolicyService kmsPolicyService,
-                      final DateTimeSupplier dateTimeSupplier) {
+                      final DateTimeSupplier dateTimeSupplier,
+                      final KmsKeyRecordCache kmsKeyRecordCache) {
         this.awsIamRoleDao = awsIamRoleDao;
         this.uuidSupplier = uuidSupplier;
         this.kmsClientFactory = kmsClientFactory;
         this.kmsPolicyService = kmsPolicyService;
         this.dateTimeSupplier = dateTimeSupplier;
+        this.kmsKeyRecordCache = kmsKeyRecordCache;
     }
 
     /**
@@ -130,7 +139,17 @@ public class KmsService {
         awsIamRoleKmsKeyRecord.setLastUpdatedTs(dateTime);
         awsIamRoleKmsKeyRecord.setLastValidatedTs(dateTime);
 
-        awsIamRoleDao.createIamRoleKmsKey(awsIamRoleKmsKeyRecord);
+        try {
+            awsIamRoleDao.createIamRoleKmsKey(awsIamRoleKmsKeyRecord);
+        } catch (RuntimeException e) {
+            if (isDuplicateKmsKeyRecord(e)) {
+                logger.info("Another CMS node provisioned a KMS key for IAM role: {} in region: {} first, " +
+                        "scheduling deletion of the unused key: {}", iamRoleId, awsRegion, arn);
+                deleteUnusedKmsKey(kmsClient, aliasRequest.getAliasName(), arn);
+            }
+            throw e;
+        }
+        kmsKeyRecordCache.putKmsKey(awsIamRoleKmsKeyRecord);
 
         return result.getKeyMetadata().getArn();
     }
@@ -167,6 +186,40 @@ public class KmsService {
         updatedKmsKeyRecord.setLastValidatedTs(lastValidatedTs);
         updatedKmsKeyRecord.setAwsRegion(kmsKeyRecord.getAwsRegion());
         awsIamRoleDao.updateIamRoleKmsKey(updatedKmsKeyRecord);
+
+        kmsKeyRecordCache.putKmsKey(new AwsIamRoleKmsKeyRecord()
+                .setId(kmsKeyRecord.getId())
+                .setAwsIamRoleId(kmsKeyRecord.getAwsIamRoleId())
+                .setAwsRegion(kmsKeyRecord.getAwsRegion())
+                .setAwsKmsKeyId(kmsKeyRecord.getAwsKmsKeyId())
+                .setCreatedBy(kmsKeyRecord.getCreatedBy())
+                .setCreatedTs(kmsKeyRecord.getCreatedTs())
+                .setLastUpdatedBy(user)
+                .setLastUpdatedTs(lastedUpdatedTs)
+                .setLastValidatedTs(lastValidatedTs));
+    }
+
+    /**
+     * Determines if the given exception was caused by the unique (IAM role, region) index on the KMS key table,
+     * i.e. a KMS key record for the same IAM role and region was created concurrently.
+     */
+    static boolean isDuplicateKmsKeyRecord(Throwable throwable) {
+        return Throwables.getCausalChain(throwable).stream()
+                .anyMatch(cause -> cause instanceof SQLIntegrityConstraintViolationException);
+    }
+
+    /**
+     * Cleans up a CMK that lost a provisioning race and was never handed out.
+     */
+    private void deleteUnusedKmsKey(AWSKMSClient kmsClient, String aliasName, String awsKmsKeyArn) {
+        try {
+            kmsClient.deleteAlias(new DeleteAliasRequest().withAliasName(aliasName));
+            kmsClient.scheduleKeyDeletion(new ScheduleKeyDeletionRequest()
+                    .withKeyId(awsKmsKeyArn)
+                    .withPendingWindowInDays(UNUSED_KMS_KEY_DELETION_WINDOW_IN_DAYS));
+        } catch (AmazonServiceException e) {
+            logger.warn(String.format("Failed to schedule deletion of unused KMS key: %s", awsKmsKeyArn), e);
+        }
     }
 
     protected String getAliasName(String awsIamRoleKmsKeyId) {
@@ -16,6 +16,7 @@
 
 package com.nike.cerberus.service;
 
+import com.nike.backstopper.apierror.ApiErrorBase;
 import com.nike.backstopper.exception.ApiException;
 import com.nike.cerberus.domain.IamPrincipalPermission;
 import com.nike.cerberus.domain.Role;
@@ -23,13 +24,19 @@ import com.nike.cerberus.domain.SDBMetadata;
 import com.nike.cerberus.domain.SDBMetadataResult;
 import com.nike.cerberus.domain.SafeDepositBoxV2;
 import com.nike.cerberus.domain.UserGroupPermission;
+import com.nike.cerberus.error.DefaultApiError;
 import com.nike.cerberus.error.InvalidCategoryNameApiError;
 import com.nike.cerberus.error.InvalidRoleNameApiError;
 import com.nike.cerberus.util.UuidSupplier;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -43,20 +50,25 @@ import java.util.Set;
  */
 public class MetadataService {
 
+    private static final String CURSOR_SEPARATOR = ",";
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private final SafeDepositBoxService safeDepositBoxService;
+    private final SafeDepositBoxChangeService safeDepositBoxChangeService;
     private final CategoryService categoryService;
     private final RoleService roleService;
     private final UuidSupplier uuidSupplier;
 
     @Inject
     public MetadataService(SafeDepositBoxService safeDepositBoxService,
+                           SafeDepositBoxChangeService safeDepositBoxChangeService,
                            CategoryService categoryService,
                            RoleService roleService,
                            UuidSupplier uuidSupplier) {
 
         this.safeDepositBoxService = safeDepositBoxService;
+        this.safeDepositBoxChangeService = safeDepositBoxChangeService;
         this.categoryService = categoryService;
         this.roleService = roleService;
         this.uuidSupplier = uuidSupplier;
@@ -95,7 +107,7 @@ public class MetadataService {
         sdb.setUserGroupPermissions(userGroupPermissionSet);
         sdb.setIamPrincipalPermissions(iamPrincipalPermissionSet);
 
-        safeDepositBoxService.restoreSafeDepositBox(sdb, adminUser);
+        safeDepositBoxChangeService.restoreSafeDepositBox(sdb, adminUser);
     }
 
     /**
@@ -190,6 +202,74 @@ public class MetadataService {
         return result;
     }
 
+    /**
+     * Method for retrieving metadata about SDBs sorted by created date, starting after the position of a cursor
+     * returned with a previous page, or at the newest SDB when the cursor is blank.  Every page costs the same
+     * however deep it is, and pages do not shift when SDBs are created concurrently.  The total SDB count is not
+     * computed for these pages.
+     *
+     * @param limit  The int limit for paginating.
+     * @param cursor The next cursor of the previous page, blank for the first page.
+     * @return SDBMetadataResult of meta data.
+     */
+    public SDBMetadataResult getSDBMetadata(int limit, String cursor) {
+        // fetch one extra SDB to find out if there is a next page
+        List<SafeDepositBoxV2> safeDepositBoxes;
+        if (StringUtils.isBlank(cursor)) {
+            safeDepositBoxes = safeDepositBoxService.getSafeDepositBoxes(limit + 1, 0);
+        } else {
+            final String[] position = decodeCursor(cursor);
+            safeDepositBoxes = safeDepositBoxService.getSafeDepositBoxesAfter(limit + 1,
+                    OffsetDateTime.parse(position[0]), position[1]);
+        }
+
+        SDBMetadataResult result = new SDBMetadataResult();
+        result.setLimit(limit);
+        result.setHasNext(safeDepositBoxes.size() > limit);
+        if (result.isHasNext()) {
+            safeDepositBoxes = safeDepositBoxes.subList(0, limit);
+            result.setNextCursor(encodeCursor(safeDepositBoxes.get(limit - 1)));
+        }
+        List<SDBMetadata> sdbMetadataList = toSDBMetadataList(safeDepositBoxes);
+        result.setSafeDepositBoxMetadata(sdbMetadataList);
+        result.setSdbCountInResult(sdbMetadataList.size());
+
+        return result;
+    }
+
+    /**
+     * Encodes the position of an SDB in the created date ordering as an opaque cursor.
+     */
+    private String encodeCursor(SafeDepositBoxV2 sdb) {
+        final String position = sdb.getCreatedTs().toString() + CURSOR_SEPARATOR + sdb.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor created by {@link #encodeCursor(SafeDepositBoxV2)}, into the created timestamp and id of the
+     * SDB it points at.
+     */
+    private String[] decodeCursor(String cursor) {
+        try {
+            final String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            final String[] parts = position.split(CURSOR_SEPARATOR, 2);
+            if (parts.length == 2) {
+                OffsetDateTime.parse(parts[0]);
+                return parts;
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            logger.debug("Failed to decode cursor: {}", cursor, e);
+        }
+
+        throw ApiException.newBuilder()
+                .withApiErrors(new ApiErrorBase(
+                        DefaultApiError.INVALID_QUERY_PARAMS.getName(),
+                        DefaultApiError.INVALID_QUERY_PARAMS.getErrorCode(),
+                        String.format("cursor query param must be a next_cursor returned by this API, '%s' given", cursor),
+                        DefaultApiError.INVALID_QUERY_PARAMS.getHttpStatusCode()
+                )).build();
+    }
+
     /**
      * Gets a list of SBD Metadata's
      * @param limit The limit for the results
@@ -197,14 +277,21 @@ public class MetadataService {
      * @return A list of SDB Metadata
      */
     protected List<SDBMetadata> getSDBMetadataList(int limit, int offset) {
+        return toSDBMetadataList(safeDepositBoxService.getSafeDepositBoxes(limit, offset));
+    }
+
+    /**
+     * Converts safe deposit boxes to SDB Metadata's
+     * @param safeDepositBoxes The safe deposit boxes
+     * @return A list of SDB Metadata
+     */
+    private List<SDBMetadata> toSDBMetadataList(List<SafeDepositBoxV2> safeDepositBoxes) {
         List<SDBMetadata> sdbs = new LinkedList<>();
 
         // Collect the categories.
         Map<String, String> catIdToStringMap = categoryService.getCategoryIdToCategoryNameMap();
         // Collect the roles
         Map<String, String> roleIdToStringMap = roleService.getRoleIdToStringMap();
-        // Collect The SDB Records
-        List<SafeDepositBoxV2> safeDepositBoxes = safeDepositBoxService.getSafeDepositBoxes(limit, offset);
 
         // for each SDB collect the user and iam permissions and add to result
         safeDepositBoxes.forEach(sdb -> {
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.RatioGauge;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.inject.name.Named;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches the Vault policy sets computed from SDB permissions so that authentication does not have to run the
+ * permission joins on every request.  Any change to SDB permissions must invalidate the affected policy sets both
+ * within its transaction and again once the transaction has committed, because an authentication racing the change
+ * can recompute and cache the old policy set before the commit, see {@link SafeDepositBoxChangeService}.  The TTL only bounds how long other CMS nodes may
+ * serve a policy set computed before such a change.  Each invalidation also advances a generation, and a policy set
+ * loaded while the generation advanced is not cached, so a load that started before an invalidation can not cache
+ * its stale policy set after it.
+ *
+ * IAM principal policy sets are keyed by principal ARN, user policy sets by a hash of the user's sorted groups so
+ * that every user with the same group memberships shares one entry.
+ */
+@Singleton
+public class PolicySetCache {
+
+    public static final String CACHE_ENABLED_PROPERTY = "cms.auth.policy.cache.enabled";
+    public static final String CACHE_MAX_SIZE_PROPERTY = "cms.auth.policy.cache.maxSize";
+    public static final String CACHE_TTL_PROPERTY = "cms.auth.policy.cache.ttlSeconds";
+
+    public static final String METRIC_IAM_PRINCIPAL_CACHE_HIT = "cms.auth.policy.cache.iam.hit";
+    public static final String METRIC_IAM_PRINCIPAL_CACHE_MISS = "cms.auth.policy.cache.iam.miss";
+    public static final String METRIC_IAM_PRINCIPAL_CACHE_HIT_RATIO = "cms.auth.policy.cache.iam.hitRatio";
+    public static final String METRIC_USER_GROUP_CACHE_HIT = "cms.auth.policy.cache.user.hit";
+    public static final String METRIC_USER_GROUP_CACHE_MISS = "cms.auth.policy.cache.user.miss";
+    public static final String METRIC_USER_GROUP_CACHE_HIT_RATIO = "cms.auth.policy.cache.user.hitRatio";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final boolean enabled;
+
+    private final Cache<String, Set<String>> iamPrincipalPolicyCache;
+
+    private final Cache<String, Set<String>> userGroupPolicyCache;
+
+    private final AtomicLong iamPrincipalGeneration = new AtomicLong();
+
+    private final AtomicLong userGroupGeneration = new AtomicLong();
+
+    private final Counter iamPrincipalHitCounter;
+
+    private final Counter iamPrincipalMissCounter;
+
+    private final Counter userGroupHitCounter;
+
+    private final Counter userGroupMissCounter;
+
+    @Inject
+    public PolicySetCache(final CodahaleMetricsCollector metricsCollector,
+                          @Named(CACHE_ENABLED_PROPERTY) final boolean enabled,
+                          @Named(CACHE_MAX_SIZE_PROPERTY) final long maxSize,
+                          @Named(CACHE_TTL_PROPERTY) final long ttlInSeconds) {
+        this.enabled = enabled;
+
+        this.iamPrincipalPolicyCache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlInSeconds, TimeUnit.SECONDS)
+                .build();
+        this.userGroupPolicyCache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlInSeconds, TimeUnit.SECONDS)
+                .build();
+
+        this.iamPrincipalHitCounter = metricsCollector.getMetricRegistry().counter(METRIC_IAM_PRINCIPAL_CACHE_HIT);
+        this.iamPrincipalMissCounter = metricsCollector.getMetricRegistry().counter(METRIC_IAM_PRINCIPAL_CACHE_MISS);
+        metricsCollector.getMetricRegistry().register(METRIC_IAM_PRINCIPAL_CACHE_HIT_RATIO,
+                hitRatio(iamPrincipalHitCounter, iamPrincipalMissCounter));
+        this.userGroupHitCounter = metricsCollector.getMetricRegistry().counter(METRIC_USER_GROUP_CACHE_HIT);
+        this.userGroupMissCounter = metricsCollector.getMetricRegistry().counter(METRIC_USER_GROUP_CACHE_MISS);
+        metricsCollector.getMetricRegistry().register(METRIC_USER_GROUP_CACHE_HIT_RATIO,
+                hitRatio(userGroupHitCounter, userGroupMissCounter));
+
+        logger.info("Policy set cache enabled={}, maxSize={}, ttlSeconds={}", enabled, maxSize, ttlInSeconds);
+    }
+
+    /**
+     * Returns the policy set for the given IAM principal ARN, computing and caching it on a miss.
+     *
+     * @param iamPrincipalArn The IAM principal ARN the policies were granted to
+     * @param policySetLoader Computes the policy set when it is not cached
+     * @return A mutable copy of the policy set
+     */
+    public Set<String> getIamPrincipalPolicies(final String iamPrincipalArn, final Supplier<Set<String>> policySetLoader) {
+        return getPolicies(iamPrincipalPolicyCache, iamPrincipalGeneration, iamPrincipalArn, policySetLoader,
+                iamPrincipalHitCounter, iamPrincipalMissCounter);
+    }
+
+    /**
+     * Returns the policy set for a user that is a member of the given groups, computing and caching it on a miss.
+     *
+     * @param groups The groups the user is a member of
+     * @param policySetLoader Computes the policy set when it is not cached
+     * @return A mutable copy of the policy set
+     */
+    public Set<String> getUserGroupPolicies(final Set<String> groups, final Supplier<Set<String>> policySetLoader) {
+        if (!enabled) {
+            return policySetLoader.get();
+        }
+
+        return getPolicies(userGroupPolicyCache, userGroupGeneration, buildUserGroupCacheKey(groups), policySetLoader,
+                userGroupHitCounter, userGroupMissCounter);
+    }
+
+    /**
+     * Drops every cached IAM principal policy set.  Called whenever IAM principal permissions change.
+     */
+    public void invalidateIamPrincipalPolicies() {
+        iamPrincipalGeneration.incrementAndGet();
+        iamPrincipalPolicyCache.invalidateAll();
+    }
+
+    /**
+     * Drops every cached user policy set.  Called whenever user group permissions change.
+     */
+    public void invalidateUserGroupPolicies() {
+        userGroupGeneration.incrementAndGet();
+        userGroupPolicyCache.invalidateAll();
+    }
+
+    /**
+     * Drops every cached policy set.  Called whenever SDB permissions change.
+     */
+    public void invalidateAll() {
+        iamPrincipalGeneration.incrementAndGet();
+        iamPrincipalPolicyCache.invalidateAll();
+        userGroupGeneration.incrementAndGet();
+        userGroupPolicyCache.invalidateAll();
+    }
+
+    private Set<String> getPolicies(final Cache<String, Set<String>> cache,
+                                    final AtomicLong generation,
+                                    final String key,
+                                    final Supplier<Set<String>> policySetLoader,
+                                    final Counter hitCounter,
+                                    final Counter missCounter) {
+        if (!enabled) {
+            return policySetLoader.get();
+        }
+
+        final Set<String> cachedPolicies = cache.getIfPresent(key);
+
+        if (cachedPolicies != null) {
+            hitCounter.inc();
+            return Sets.newHashSet(cachedPolicies);
+        }
+
+        missCounter.inc();
+        final long loadGeneration = generation.get();
+        final Set<String> policies = policySetLoader.get();
+
+        if (generation.get() == loadGeneration) {
+            cache.put(key, ImmutableSet.copyOf(policies));
+            // the generation is advanced before the cache is cleared, so an invalidation racing the put is seen here
+            if (generation.get() != loadGeneration) {
+                cache.invalidate(key);
+            }
+        }
+
+        return policies;
+    }
+
+    /**
+     * Hashes the sorted groups, each prefixed with its length so that no two distinct group sets hash the same input.
+     */
+    private String buildUserGroupCacheKey(final Set<String> groups) {
+        final Hasher hasher = Hashing.sha256().newHasher();
+        groups.stream().sorted().forEach(group -> hasher.putInt(group.length()).putString(group, StandardCharsets.UTF_8));
+
+        return hasher.hash().toString();
+    }
+
+    private RatioGauge hitRatio(final Counter hitCounter, final Counter missCounter) {
+        return new RatioGauge() {
+            @Override
+            protected Ratio getRatio() {
+                return Ratio.of(hitCounter.getCount(), hitCounter.getCount() + missCounter.getCount());
+            }
+        };
+    }
+}
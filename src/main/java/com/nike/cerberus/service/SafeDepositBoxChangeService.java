@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.service;
+
+import com.nike.cerberus.domain.IamPrincipalPermission;
+import com.nike.cerberus.domain.SafeDepositBoxV1;
+import com.nike.cerberus.domain.SafeDepositBoxV2;
+import com.nike.cerberus.util.AwsIamRoleArnParser;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Collections;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Makes changes to safe deposit boxes through the transactional {@link SafeDepositBoxService} and follows up on them
+ * once their transaction has committed.  The cached policy sets are invalidated again, because an authentication
+ * racing the change can recompute and cache the old policy set before the commit, see {@link PolicySetCache}, and the
+ * KMS keys of the IAM principals granted permissions are scheduled for pre-provisioning.
+ *
+ * This service must not be transactional itself, and SDB changes should be made through it rather than through
+ * {@link SafeDepositBoxService} directly.
+ */
+@Singleton
+public class SafeDepositBoxChangeService {
+
+    private final SafeDepositBoxService safeDepositBoxService;
+
+    private final PolicySetCache policySetCache;
+
+    private final KmsKeyPreProvisioner kmsKeyPreProvisioner;
+
+    @Inject
+    public SafeDepositBoxChangeService(final SafeDepositBoxService safeDepositBoxService,
+                                       final PolicySetCache policySetCache,
+                                       final KmsKeyPreProvisioner kmsKeyPreProvisioner) {
+        this.safeDepositBoxService = safeDepositBoxService;
+        this.policySetCache = policySetCache;
+        this.kmsKeyPreProvisioner = kmsKeyPreProvisioner;
+    }
+
+    /**
+     * See {@link SafeDepositBoxService#createSafeDepositBoxV1(SafeDepositBoxV1, String)}
+     */
+    public String createSafeDepositBoxV1(final SafeDepositBoxV1 safeDepositBox, final String user) {
+        final String id = safeDepositBoxService.createSafeDepositBoxV1(safeDepositBox, user);
+        onCommitted(id, getIamRoleArns(safeDepositBox));
+        return id;
+    }
+
+    /**
+     * See {@link SafeDepositBoxService#createSafeDepositBoxV2(SafeDepositBoxV2, String)}
+     */
+    public SafeDepositBoxV2 createSafeDepositBoxV2(final SafeDepositBoxV2 safeDepositBox, final String user) {
+        final SafeDepositBoxV2 createdSafeDepositBox =
+                safeDepositBoxService.createSafeDepositBoxV2(safeDepositBox, user);
+        onCommitted(createdSafeDepositBox.getId(), getIamPrincipalArns(safeDepositBox));
+        return createdSafeDepositBox;
+    }
+
+    /**
+     * See {@link SafeDepositBoxService#updateSafeDepositBoxV1(SafeDepositBoxV1, Set, String, String)}
+     */
+    public void updateSafeDepositBoxV1(final SafeDepositBoxV1 safeDepositBox, final Set<String> groups,
+                                       final String user, final String id) {
+        safeDepositBoxService.updateSafeDepositBoxV1(safeDepositBox, groups, user, id);
+        onCommitted(id, getIamRoleArns(safeDepositBox));
+    }
+
+    /**
+     * See {@link SafeDepositBoxService#updateSafeDepositBoxV2(SafeDepositBoxV2, Set, String, String)}
+     */
+    public SafeDepositBoxV2 updateSafeDepositBoxV2(final SafeDepositBoxV2 safeDepositBox, final Set<String> groups,
+                                                   final String user, final String id) {
+        final SafeDepositBoxV2 updatedSafeDepositBox =
+                safeDepositBoxService.updateSafeDepositBoxV2(safeDepositBox, groups, user, id);
+        onCommitted(id, getIamPrincipalArns(safeDepositBox));
+        return updatedSafeDepositBox;
+    }
+
+    /**
+     * See {@link SafeDepositBoxService#deleteSafeDepositBox(Set, String)}
+     */
+    public void deleteSafeDepositBox(final Set<String> groups, final String id) {
+        safeDepositBoxService.deleteSafeDepositBox(groups, id);
+        onCommitted(id, Collections.emptySet());
+    }
+
+    /**
+     * See {@link SafeDepositBoxService#restoreSafeDepositBox(SafeDepositBoxV2, String)}
+     */
+    public void restoreSafeDepositBox(final SafeDepositBoxV2 safeDepositBox, final String adminUser) {
+        safeDepositBoxService.restoreSafeDepositBox(safeDepositBox, adminUser);
+        onCommitted(safeDepositBox.getId(), getIamPrincipalArns(safeDepositBox));
+    }
+
+    private void onCommitted(final String safeDepositBoxId, final Set<String> iamPrincipalArns) {
+        policySetCache.invalidateAll();
+        kmsKeyPreProvisioner.schedulePreProvisioning(safeDepositBoxId, iamPrincipalArns);
+    }
+
+    private Set<String> getIamRoleArns(final SafeDepositBoxV1 safeDepositBox) {
+        return safeDepositBox.getIamRolePermissions().stream()
+                .map(iamRolePermission -> String.format(AwsIamRoleArnParser.AWS_IAM_ROLE_ARN_TEMPLATE,
+                        iamRolePermission.getAccountId(), iamRolePermission.getIamRoleName()))
+                .collect(Collectors.toSet());
+    }
+
+    private Set<String> getIamPrincipalArns(final SafeDepositBoxV2 safeDepositBox) {
+        return safeDepositBox.getIamPrincipalPermissions().stream()
+                .map(IamPrincipalPermission::getIamPrincipalArn)
+                .collect(Collectors.toSet());
+    }
+}
@@ -50,6 +50,7 @@ import javax.inject.Singleton;
 import java.time.OffsetDateTime;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -86,6 +87,8 @@ public class SafeDepositBoxService {
 
     private final AwsIamRoleArnParser awsIamRoleArnParser;
 
+    private final PolicySetCache policySetCache;
+
     @Inject
     public SafeDepositBoxService(final SafeDepositBoxDao safeDepositBoxDao,
                                  final UserGroupDao userGroupDao,
@@ -98,7 +101,8 @@ public class SafeDepositBoxService {
                                  final IamPrincipalPermissionService iamPrincipalPermissionService,
                                  final Slugger slugger,
                                  final DateTimeSupplier dateTimeSupplier,
-                                 final AwsIamRoleArnParser awsIamRoleArnParser) {
+                                 final AwsIamRoleArnParser awsIamRoleArnParser,
+                                 final PolicySetCache policySetCache) {
         this.safeDepositBoxDao = safeDepositBoxDao;
         this.userGroupDao = userGroupDao;
         this.uuidSupplier = uuidSupplier;
@@ -111,6 +115,7 @@ public class SafeDepositBoxService {
         this.slugger = slugger;
         this.dateTimeSupplier = dateTimeSupplier;
         this.awsIamRoleArnParser = awsIamRoleArnParser;
+        this.policySetCache = policySetCache;
     }
 
     /**
@@ -189,18 +194,58 @@ public class SafeDepositBoxService {
         final Set<UserGroupPermission> userGroupPermissions =
                 userGroupPermissionService.getUserGroupPermissions(id);
 
+        final Set<IamPrincipalPermission> iamRolePermissions = iamPrincipalPermissionService.getIamPrincipalPermissions(id);
+
+        return buildSDBV2(safeDepositBoxRecord, userGroupPermissions, iamRolePermissions, getOwnerRole());
+    }
+
+    /**
+     * Builds the safe deposit boxes of several records.  The permissions of all the boxes are loaded together, so
+     * the number of queries does not grow with the number of records.
+     *
+     * @param safeDepositBoxRecords The safe deposit box records
+     * @return The safe deposit boxes, in the order of the records
+     */
+    protected List<SafeDepositBoxV2> getSDBsFromRecordsV2(List<SafeDepositBoxRecord> safeDepositBoxRecords) {
+        final List<SafeDepositBoxV2> result = new LinkedList<>();
+        if (safeDepositBoxRecords.isEmpty()) {
+            return result;
+        }
+
+        final List<String> ids = safeDepositBoxRecords.stream()
+                .map(SafeDepositBoxRecord::getId)
+                .collect(Collectors.toList());
+
+        final Map<String, Set<UserGroupPermission>> userGroupPermissions =
+                userGroupPermissionService.getUserGroupPermissions(ids);
+        final Map<String, Set<IamPrincipalPermission>> iamRolePermissions =
+                iamPrincipalPermissionService.getIamPrincipalPermissions(ids);
+        final Role ownerRole = getOwnerRole();
+
+        safeDepositBoxRecords.forEach(safeDepositBoxRecord -> {
+            final String id = safeDepositBoxRecord.getId();
+            result.add(buildSDBV2(safeDepositBoxRecord,
+                    userGroupPermissions.getOrDefault(id, Sets.newHashSet()),
+                    iamRolePermissions.getOrDefault(id, Sets.newHashSet()),
+                    ownerRole));
+        });
+
+        return result;
+    }
+
+    private SafeDepositBoxV2 buildSDBV2(final SafeDepositBoxRecord safeDepositBoxRecord,
+                                        final Set<UserGroupPermission> userGroupPermissions,
+                                        final Set<IamPrincipalPermission> iamRolePermissions,
+                                        final Role ownerRole) {
         String owner = null;
-        final Optional<String> possibleOwner = extractOwner(userGroupPermissions);
+        final Optional<String> possibleOwner = extractOwner(userGroupPermissions, ownerRole);
 
         if (!possibleOwner.isPresent()) {
-            logger.error("Detected Safe Deposit Box without owner! ID={}", id);
+            logger.error("Detected Safe Deposit Box without owner! ID={}", safeDepositBoxRecord.getId());
         } else {
             owner = possibleOwner.get();
         }
 
-        final Set<IamPrincipalPermission> iamRolePermissions = iamPrincipalPermissionService.getIamPrincipalPermissions(id);
-
-
         SafeDepositBoxV2 safeDepositBox = new SafeDepositBoxV2();
         safeDepositBox.setId(safeDepositBoxRecord.getId());
         safeDepositBox.setName(safeDepositBoxRecord.getName());
@@ -370,7 +415,7 @@ public class SafeDepositBoxService {
         vaultPolicyService.deleteStandardPolicies(box.get().getName());
     }
 
-    private Optional<String> extractOwner(Set<UserGroupPermission> userGroupPermissions) {
+    private Role getOwnerRole() {
         final Optional<Role> ownerRole = roleService.getRoleByName(RoleRecord.ROLE_OWNER);
 
         if (!ownerRole.isPresent()) {
@@ -380,7 +425,11 @@ public class SafeDepositBoxService {
                     .build();
         }
 
-        final Optional<UserGroupPermission> ownerPermission = userGroupPermissions.stream().filter(perm -> StringUtils.equals(perm.getRoleId(), ownerRole.get().getId())).findFirst();
+        return ownerRole.get();
+    }
+
+    private Optional<String> extractOwner(Set<UserGroupPermission> userGroupPermissions, Role ownerRole) {
+        final Optional<UserGroupPermission> ownerPermission = userGroupPermissions.stream().filter(perm -> StringUtils.equals(perm.getRoleId(), ownerRole.getId())).findFirst();
 
         if (!ownerPermission.isPresent()) {
             return Optional.empty();
@@ -691,18 +740,29 @@ public class SafeDepositBoxService {
 
     /**
      *
-     * A paginatable method for iterating retrieving all SDBs
+     * A paginatable method for iterating retrieving all SDBs.  The permissions of the whole page are loaded in bulk,
+     * so a page costs the same number of queries whatever its size.
      *
      * @param limit The maximum number of SDBs to fetch
      * @param offset The offset to paginate with
      */
     public List<SafeDepositBoxV2> getSafeDepositBoxes(int limit, int offset) {
         List<SafeDepositBoxRecord> records = safeDepositBoxDao.getSafeDepositBoxes(limit, offset);
-        List<SafeDepositBoxV2> result = new LinkedList<>();
-        records.forEach(safeDepositBoxRecord -> {
-            result.add(getSDBFromRecordV2(safeDepositBoxRecord));
-        });
-        return result;
+        return getSDBsFromRecordsV2(records);
+    }
+
+    /**
+     * A keyset paginated method for iterating all SDBs, newest first.  Unlike {@link #getSafeDepositBoxes(int, int)}
+     * no rows are skipped over, so every page costs the same however deep it is, and pages do not shift when SDBs
+     * are created concurrently.
+     *
+     * @param limit The maximum number of SDBs to fetch
+     * @param createdTs The created timestamp of the last SDB of the previous page
+     * @param id The id of the last SDB of the previous page
+     */
+    public List<SafeDepositBoxV2> getSafeDepositBoxesAfter(int limit, OffsetDateTime createdTs, String id) {
+        List<SafeDepositBoxRecord> records = safeDepositBoxDao.getSafeDepositBoxesAfter(limit, createdTs, id);
+        return getSDBsFromRecordsV2(records);
     }
 
     /**
@@ -745,6 +805,8 @@ public class SafeDepositBoxService {
         Optional<SafeDepositBoxRecord> existingBoxRecord = safeDepositBoxDao.getSafeDepositBox(safeDepositBox.getId());
         if (existingBoxRecord.isPresent()) {
             safeDepositBoxDao.fullUpdateSafeDepositBox(boxToStore);
+            // policy names are derived from the SDB name, which a restore may change
+            policySetCache.invalidateAll();
             SafeDepositBoxV2 existingBox = getSDBFromRecordV2(existingBoxRecord.get());
             updateOwner(safeDepositBox.getId(), safeDepositBox.getOwner(), adminUser, now);
             modifyUserGroupPermissions(existingBox, safeDepositBox.getUserGroupPermissions(), adminUser, now);
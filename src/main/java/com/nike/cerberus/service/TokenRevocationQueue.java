@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.service;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.name.Named;
+import com.nike.backstopper.exception.ApiException;
+import com.nike.cerberus.error.DefaultApiError;
+import com.nike.cerberus.security.VaultTokenLookupCache;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
+import com.nike.vault.client.VaultAdminClient;
+import com.nike.vault.client.VaultClientException;
+import com.nike.vault.client.VaultServerException;
+import org.apache.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revokes Vault tokens on background workers so that callers do not wait on Vault.
+ *
+ * Workers take queued tokens one at a time, so the number of concurrent revocations Vault sees is capped at the
+ * number of workers however many tokens are queued at once, e.g. during a logout storm, and a token waiting on the
+ * retries of another is never held by a busy worker.  A token is queued at most once at a time.  Only revocations that
+ * fail with a transient error (a Vault 5xx or a communication error) are retried, with a linear back off; any other
+ * failure is logged and counted as failed.  A token that Vault reports as already gone counts as revoked.  When the
+ * queue is full the token is revoked on the calling thread, so that a revocation is never dropped.
+ *
+ * Tokens replaced by a refresh are always revoked in the background, logouts only when async revocation is
+ * enabled, see {@link #isAsyncRevocationEnabled()}.
+ */
+@Singleton
+public class TokenRevocationQueue {
+
+    public static final String ASYNC_REVOCATION_ENABLED_PROPERTY = "cms.auth.token.revocation.async.enabled";
+    public static final String THREADS_PROPERTY = "cms.auth.token.revocation.threads";
+    public static final String QUEUE_CAPACITY_PROPERTY = "cms.auth.token.revocation.queueCapacity";
+    public static final String MAX_ATTEMPTS_PROPERTY = "cms.auth.token.revocation.maxAttempts";
+    public static final String RETRY_DELAY_PROPERTY = "cms.auth.token.revocation.retryDelayMillis";
+
+    public static final String METRIC_REVOCATION_QUEUED = "cms.auth.token.revocation.queued";
+    public static final String METRIC_REVOCATION_INLINE = "cms.auth.token.revocation.inline";
+    public static final String METRIC_REVOCATION_RETRIED = "cms.auth.token.revocation.retried";
+    public static final String METRIC_REVOCATION_FAILED = "cms.auth.token.revocation.failed";
+    public static final String METRIC_REVOCATION_QUEUE_SIZE = "cms.auth.token.revocation.queueSize";
+    public static final String METRIC_REVOCATION_LAG = "cms.auth.token.revocation.lag";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final VaultAdminClient vaultAdminClient;
+
+    private final VaultTokenLookupCache vaultTokenLookupCache;
+
+    private final boolean asyncRevocationEnabled;
+
+    private final int maxAttempts;
+
+    private final long retryDelayInMillis;
+
+    private final BlockingQueue<PendingRevocation> queue;
+
+    private final Set<String> pendingTokens = Sets.newConcurrentHashSet();
+
+    private final Counter queuedCounter;
+
+    private final Counter inlineCounter;
+
+    private final Counter retriedCounter;
+
+    private final Counter failedCounter;
+
+    private final Timer lagTimer;
+
+    @Inject
+    public TokenRevocationQueue(final VaultAdminClient vaultAdminClient,
+                                final VaultTokenLookupCache vaultTokenLookupCache,
+                                final CodahaleMetricsCollector metricsCollector,
+                                @Named(ASYNC_REVOCATION_ENABLED_PROPERTY) final boolean asyncRevocationEnabled,
+                                @Named(THREADS_PROPERTY) final int threads,
+                                @Named(QUEUE_CAPACITY_PROPERTY) final int queueCapacity,
+                                @Named(MAX_ATTEMPTS_PROPERTY) final int maxAttempts,
+                                @Named(RETRY_DELAY_PROPERTY) final long retryDelayInMillis) {
+        this.vaultAdminClient = vaultAdminClient;
+        this.vaultTokenLookupCache = vaultTokenLookupCache;
+        this.asyncRevocationEnabled = asyncRevocationEnabled;
+        this.maxAttempts = maxAttempts;
+        this.retryDelayInMillis = retryDelayInMillis;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+
+        this.queuedCounter = metricsCollector.getMetricRegistry().counter(METRIC_REVOCATION_QUEUED);
+        this.inlineCounter = metricsCollector.getMetricRegistry().counter(METRIC_REVOCATION_INLINE);
+        this.retriedCounter = metricsCollector.getMetricRegistry().counter(METRIC_REVOCATION_RETRIED);
+        this.failedCounter = metricsCollector.getMetricRegistry().counter(METRIC_REVOCATION_FAILED);
+        this.lagTimer = metricsCollector.getMetricRegistry().timer(METRIC_REVOCATION_LAG);
+        metricsCollector.getMetricRegistry().register(METRIC_REVOCATION_QUEUE_SIZE, (Gauge<Integer>) queue::size);
+
+        final ExecutorService workers = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+                .setNameFormat("cms-token-revocation-%d")
+                .setDaemon(true)
+                .build());
+        for (int i = 0; i < threads; i++) {
+            workers.execute(this::processQueue);
+        }
+
+        logger.info("Token revocation asyncEnabled={}, threads={}, queueCapacity={}, maxAttempts={}, " +
+                "retryDelayMillis={}", asyncRevocationEnabled, threads, queueCapacity, maxAttempts, retryDelayInMillis);
+    }
+
+    /**
+     * @return True if logouts should queue their token for revocation instead of revoking it on the calling thread
+     */
+    public boolean isAsyncRevocationEnabled() {
+        return asyncRevocationEnabled;
+    }
+
+    /**
+     * Queues the given token for revocation, or revokes it on the calling thread when the queue is full.
+     *
+     * @param vaultToken Token to be revoked
+     */
+    public void revokeLater(final String vaultToken) {
+        if (!pendingTokens.add(vaultToken)) {
+            return;
+        }
+
+        if (queue.offer(new PendingRevocation(vaultToken, System.nanoTime()))) {
+            queuedCounter.inc();
+            return;
+        }
+
+        pendingTokens.remove(vaultToken);
+        inlineCounter.inc();
+        logger.warn("Token revocation queue is full, revoking token on the calling thread");
+        revokeNow(vaultToken);
+    }
+
+    /**
+     * Requests Vault revoke the specified token.  If the token doesn't exist, we simply ignore and move along.
+     * Once the token is gone any cached lookup of it is evicted, since a lookup racing the revocation may have
+     * cached it again.
+     *
+     * @param vaultToken Token to be revoked
+     */
+    public void revokeNow(final String vaultToken) {
+        try {
+            vaultAdminClient.revokeOrphanToken(vaultToken);
+        } catch (VaultServerException vse) {
+            if (vse.getCode() != HttpStatus.SC_BAD_REQUEST) {
+                throw ApiException.newBuilder()
+                        .withApiErrors(DefaultApiError.INTERNAL_SERVER_ERROR)
+                        .withExceptionCause(vse)
+                        .withExceptionMessage("Unexpected response from Vault when revoking a token!")
+                        .build();
+            }
+        }
+
+        vaultTokenLookupCache.evict(vaultToken);
+    }
+
+    private void processQueue() {
+        while (!Thread.currentThread().isInterrupted()) {
+            PendingRevocation pendingRevocation = null;
+            try {
+                pendingRevocation = queue.take();
+                revokeWithRetry(pendingRevocation);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                // never let a single token stop the worker
+                failedCounter.inc();
+                logger.error("Unexpected failure revoking token", e);
+            } finally {
+                if (pendingRevocation != null) {
+                    pendingTokens.remove(pendingRevocation.getVaultToken());
+                }
+            }
+        }
+    }
+
+    private void revokeWithRetry(final PendingRevocation pendingRevocation) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                revokeNow(pendingRevocation.getVaultToken());
+                lagTimer.update(System.nanoTime() - pendingRevocation.getQueuedAtNanos(), TimeUnit.NANOSECONDS);
+                return;
+            } catch (RuntimeException e) {
+                if (!isTransientFailure(e)) {
+                    failedCounter.inc();
+                    logger.error("Failed to revoke token", e);
+                    return;
+                }
+
+                if (attempt >= maxAttempts) {
+                    failedCounter.inc();
+                    logger.error("Failed to revoke token after {} attempts", attempt, e);
+                    return;
+                }
+
+                retriedCounter.inc();
+                logger.warn("Failed to revoke token, attempt {} of {}", attempt, maxAttempts, e);
+                TimeUnit.MILLISECONDS.sleep(retryDelayInMillis * attempt);
+            }
+        }
+    }
+
+    /**
+     * @return True if Vault answered with a 5xx, or could not be reached at all
+     */
+    private boolean isTransientFailure(final RuntimeException e) {
+        final Throwable cause = e instanceof ApiException && e.getCause() != null ? e.getCause() : e;
+
+        if (cause instanceof VaultServerException) {
+            return ((VaultServerException) cause).getCode() >= HttpStatus.SC_INTERNAL_SERVER_ERROR;
+        }
+
+        return cause instanceof VaultClientException;
+    }
+
+    private static final class PendingRevocation {
+
+        private final String vaultToken;
+
+        private final long queuedAtNanos;
+
+        private PendingRevocation(final String vaultToken, final long queuedAtNanos) {
+            this.vaultToken = vaultToken;
+            this.queuedAtNanos = queuedAtNanos;
+        }
+
+        private String getVaultToken() {
+            return vaultToken;
+        }
+
+        private long getQueuedAtNanos() {
+            return queuedAtNanos;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.nike.cerberus.service;
 
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.nike.backstopper.exception.ApiException;
 import com.nike.cerberus.dao.UserGroupDao;
@@ -23,6 +24,7 @@ import com.nike.cerberus.domain.Role;
 import com.nike.cerberus.domain.UserGroupPermission;
 import com.nike.cerberus.error.DefaultApiError;
 import com.nike.cerberus.record.UserGroupPermissionRecord;
+import com.nike.cerberus.record.UserGroupPermissionWithNameRecord;
 import com.nike.cerberus.record.UserGroupRecord;
 import com.nike.cerberus.util.UuidSupplier;
 import org.mybatis.guice.transactional.Transactional;
@@ -30,7 +32,9 @@ import org.mybatis.guice.transactional.Transactional;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -46,13 +50,17 @@ public class UserGroupPermissionService {
 
     private final UserGroupDao userGroupDao;
 
+    private final PolicySetCache policySetCache;
+
     @Inject
     public UserGroupPermissionService(final UuidSupplier uuidSupplier,
                                       final RoleService roleService,
-                                      final UserGroupDao userGroupDao) {
+                                      final UserGroupDao userGroupDao,
+                                      final PolicySetCache policySetCache) {
         this.uuidSupplier = uuidSupplier;
         this.roleService = roleService;
         this.userGroupDao = userGroupDao;
+        this.policySetCache = policySetCache;
     }
 
     /**
@@ -122,6 +130,7 @@ public class UserGroupPermissionService {
         permissionsRecord.setCreatedTs(dateTime);
         permissionsRecord.setLastUpdatedTs(dateTime);
         userGroupDao.createUserGroupPermission(permissionsRecord);
+        policySetCache.invalidateUserGroupPolicies();
     }
 
     /**
@@ -173,6 +182,7 @@ public class UserGroupPermissionService {
         record.setLastUpdatedBy(user);
         record.setLastUpdatedTs(dateTime);
         userGroupDao.updateUserGroupPermission(record);
+        policySetCache.invalidateUserGroupPolicies();
     }
 
     /**
@@ -217,34 +227,60 @@ public class UserGroupPermissionService {
         }
 
         userGroupDao.deleteUserGroupPermission(safeDepositBoxId, userGroupRecord.get().getId());
+        policySetCache.invalidateUserGroupPolicies();
     }
 
+    /**
+     * Loads the user group permissions of a safe deposit box, along with the name of each user group, in one query.
+     *
+     * @param safeDepositBoxId The safe deposit box id
+     * @return The set of user group permissions
+     */
     public Set<UserGroupPermission> getUserGroupPermissions(final String safeDepositBoxId) {
         final Set<UserGroupPermission> permissionsSet = Sets.newHashSet();
-        final List<UserGroupPermissionRecord> permissionRecords =
-                userGroupDao.getUserGroupPermissions(safeDepositBoxId);
-
-        permissionRecords.forEach(r -> {
-            final Optional<UserGroupRecord> userGroupRecord = userGroupDao.getUserGroup(r.getUserGroupId());
-
-            if (userGroupRecord.isPresent()) {
-                UserGroupPermission permission = new UserGroupPermission();
-                permission.setId(r.getId());
-                permission.setRoleId(r.getRoleId());
-                permission.setName(userGroupRecord.get().getName());
-                permission.setCreatedBy(r.getCreatedBy());
-                permission.setCreatedTs(r.getCreatedTs());
-                permission.setLastUpdatedBy(r.getLastUpdatedBy());
-                permission.setLastUpdatedTs(r.getLastUpdatedTs());
-                permissionsSet.add(permission);
-            }
-        });
+        final List<UserGroupPermissionWithNameRecord> permissionRecords =
+                userGroupDao.getUserGroupPermissionsWithName(safeDepositBoxId);
+
+        permissionRecords.forEach(r -> permissionsSet.add(toUserGroupPermission(r)));
 
         return permissionsSet;
     }
 
+    /**
+     * Loads the user group permissions of several safe deposit boxes, along with the name of each user group, in one
+     * query.
+     *
+     * @param safeDepositBoxIds The safe deposit box ids
+     * @return The set of user group permissions of each safe deposit box that has any, keyed by safe deposit box id
+     */
+    public Map<String, Set<UserGroupPermission>> getUserGroupPermissions(final Collection<String> safeDepositBoxIds) {
+        final Map<String, Set<UserGroupPermission>> permissionsBySafeDepositBoxId = Maps.newHashMap();
+        if (safeDepositBoxIds.isEmpty()) {
+            return permissionsBySafeDepositBoxId;
+        }
+
+        userGroupDao.getUserGroupPermissionsWithName(safeDepositBoxIds).forEach(r ->
+                permissionsBySafeDepositBoxId.computeIfAbsent(r.getSdboxId(), id -> Sets.newHashSet())
+                        .add(toUserGroupPermission(r)));
+
+        return permissionsBySafeDepositBoxId;
+    }
+
+    private UserGroupPermission toUserGroupPermission(final UserGroupPermissionWithNameRecord r) {
+        UserGroupPermission permission = new UserGroupPermission();
+        permission.setId(r.getId());
+        permission.setRoleId(r.getRoleId());
+        permission.setName(r.getUserGroupName());
+        permission.setCreatedBy(r.getCreatedBy());
+        permission.setCreatedTs(r.getCreatedTs());
+        permission.setLastUpdatedBy(r.getLastUpdatedBy());
+        permission.setLastUpdatedTs(r.getLastUpdatedTs());
+        return permission;
+    }
+
     @Transactional
     public void deleteUserGroupPermissions(final String safeDepositBoxId) {
         userGroupDao.deleteUserGroupPermissions(safeDepositBoxId);
+        policySetCache.invalidateUserGroupPolicies();
     }
 }
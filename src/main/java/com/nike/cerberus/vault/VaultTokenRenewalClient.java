@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.vault;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.nike.backstopper.exception.ApiException;
+import com.nike.cerberus.error.DefaultApiError;
+import com.nike.vault.client.UrlResolver;
+import com.nike.vault.client.auth.VaultCredentialsProvider;
+import com.nike.vault.client.model.VaultAuthResponse;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renews Vault tokens with the CMS Vault token, the Vault client library has no support for token renewal.
+ */
+@Singleton
+public class VaultTokenRenewalClient {
+
+    private static final MediaType DEFAULT_MEDIA_TYPE = MediaType.parse("application/json");
+
+    private static final String RENEW_TOKEN_PATH = "v1/auth/token/renew";
+
+    private static final String VAULT_TOKEN_HEADER = "X-Vault-Token";
+
+    private static final int DEFAULT_TIMEOUT = 15;
+
+    private static final TimeUnit DEFAULT_TIMEOUT_UNIT = TimeUnit.SECONDS;
+
+    private final UrlResolver urlResolver;
+
+    private final VaultCredentialsProvider credentialsProvider;
+
+    private final ObjectMapper objectMapper;
+
+    private final OkHttpClient httpClient;
+
+    @Inject
+    public VaultTokenRenewalClient(final UrlResolver urlResolver,
+                                   final VaultCredentialsProvider credentialsProvider,
+                                   final ObjectMapper objectMapper) {
+        this(urlResolver, credentialsProvider, objectMapper, new OkHttpClient.Builder()
+                .connectTimeout(DEFAULT_TIMEOUT, DEFAULT_TIMEOUT_UNIT)
+                .writeTimeout(DEFAULT_TIMEOUT, DEFAULT_TIMEOUT_UNIT)
+                .readTimeout(DEFAULT_TIMEOUT, DEFAULT_TIMEOUT_UNIT)
+                .build());
+    }
+
+    VaultTokenRenewalClient(final UrlResolver urlResolver,
+                            final VaultCredentialsProvider credentialsProvider,
+                            final ObjectMapper objectMapper,
+                            final OkHttpClient httpClient) {
+        this.urlResolver = urlResolver;
+        this.credentialsProvider = credentialsProvider;
+        this.objectMapper = objectMapper;
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Renews the given token, extending its TTL by the given increment from now.
+     *
+     * @param token The token to renew
+     * @param incrementInSeconds The requested TTL of the token, Vault may grant less
+     * @return The renewed lease of the token
+     */
+    public VaultAuthResponse renewToken(final String token, final long incrementInSeconds) {
+        final Response response;
+        final String responseBody;
+        try {
+            final String requestBody = objectMapper.writeValueAsString(
+                    ImmutableMap.of("token", token, "increment", incrementInSeconds + "s"));
+            final Request request = new Request.Builder()
+                    .url(buildUrl())
+                    .addHeader(VAULT_TOKEN_HEADER, credentialsProvider.getCredentials().getToken())
+                    .post(RequestBody.create(DEFAULT_MEDIA_TYPE, requestBody))
+                    .build();
+
+            response = httpClient.newCall(request).execute();
+            responseBody = response.body().string();
+        } catch (IOException e) {
+            throw ApiException.newBuilder()
+                    .withApiErrors(DefaultApiError.SERVICE_UNAVAILABLE)
+                    .withExceptionCause(e)
+                    .withExceptionMessage("I/O error while renewing token with Vault.")
+                    .build();
+        }
+
+        if (response.code() == 400) {
+            throw ApiException.newBuilder()
+                    .withApiErrors(DefaultApiError.AUTH_VAULT_TOKEN_NOT_RENEWABLE)
+                    .withExceptionMessage("Vault refused to renew token: " + responseBody)
+                    .build();
+        } else if (!response.isSuccessful()) {
+            throw ApiException.newBuilder()
+                    .withApiErrors(DefaultApiError.SERVICE_UNAVAILABLE)
+                    .withExceptionMessage("Unexpected response from Vault while renewing token, code: " + response.code())
+                    .build();
+        }
+
+        return parseAuthResponse(responseBody);
+    }
+
+    private HttpUrl buildUrl() {
+        String baseUrl = urlResolver.resolve();
+
+        if (!StringUtils.endsWith(baseUrl, "/")) {
+            baseUrl += "/";
+        }
+
+        return HttpUrl.parse(baseUrl + RENEW_TOKEN_PATH);
+    }
+
+    private VaultAuthResponse parseAuthResponse(final String responseBody) {
+        try {
+            final JsonNode auth = objectMapper.readTree(responseBody).path("auth");
+            return objectMapper.treeToValue(auth, VaultAuthResponse.class);
+        } catch (IOException e) {
+            throw ApiException.newBuilder()
+                    .withApiErrors(DefaultApiError.SERVICE_UNAVAILABLE)
+                    .withExceptionCause(e)
+                    .withExceptionMessage("Error parsing the token renewal response from Vault.")
+                    .build();
+        }
+    }
+}
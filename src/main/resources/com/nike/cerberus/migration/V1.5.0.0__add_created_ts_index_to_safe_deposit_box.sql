@@ -0,0 +1,2 @@
+ALTER TABLE SAFE_DEPOSIT_BOX
+  ADD INDEX `IX_SDBOX_CREATED_TS_ID` (CREATED_TS, ID);
\ No newline at end of file
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.auth.connector;
+
+import com.google.common.collect.Sets;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GroupCachingAuthConnectorTest {
+
+    private final AuthData authData = new AuthData().setUserId("user id").setUsername("username");
+
+    private AuthConnector delegate;
+
+    @Before
+    public void setUp() throws Exception {
+        delegate = mock(AuthConnector.class);
+        when(delegate.getGroups(authData)).thenReturn(Sets.newHashSet("group"));
+    }
+
+    @Test
+    public void test_that_getGroups_serves_repeat_calls_from_cache() {
+        final GroupCachingAuthConnector subject = new GroupCachingAuthConnector(delegate,
+                new CodahaleMetricsCollector(), true, 10, 60, 0);
+
+        assertThat(subject.getGroups(authData)).containsOnly("group");
+        assertThat(subject.getGroups(authData)).containsOnly("group");
+
+        verify(delegate, times(1)).getGroups(authData);
+    }
+
+    @Test
+    public void test_that_getGroups_calls_delegate_every_time_when_disabled() {
+        final GroupCachingAuthConnector subject = new GroupCachingAuthConnector(delegate,
+                new CodahaleMetricsCollector(), false, 10, 60, 0);
+
+        subject.getGroups(authData);
+        subject.getGroups(authData);
+
+        verify(delegate, times(2)).getGroups(authData);
+    }
+
+    @Test
+    public void test_that_getGroups_serves_stale_groups_while_reloading_them() {
+        final Set<String> reloadedGroups = Sets.newHashSet("group", "new group");
+        when(delegate.getGroupsAsync(any(AuthData.class), any(Executor.class)))
+                .thenReturn(CompletableFuture.completedFuture(reloadedGroups));
+        final GroupCachingAuthConnector subject = new GroupCachingAuthConnector(delegate,
+                new CodahaleMetricsCollector(), true, 10, 0, 60);
+
+        assertThat(subject.getGroups(authData)).containsOnly("group");
+        assertThat(subject.getGroups(authData)).containsOnly("group");
+
+        verify(delegate, timeout(5000)).getGroupsAsync(any(AuthData.class), any(Executor.class));
+        assertThat(subject.getGroups(authData)).containsOnly("group", "new group");
+        verify(delegate, times(1)).getGroups(authData);
+    }
+
+    @Test
+    public void test_that_getGroups_retries_reload_after_delegate_throws() {
+        when(delegate.getGroupsAsync(any(AuthData.class), any(Executor.class)))
+                .thenThrow(new IllegalStateException("Failure"))
+                .thenReturn(CompletableFuture.completedFuture(Sets.newHashSet("group")));
+        final GroupCachingAuthConnector subject = new GroupCachingAuthConnector(delegate,
+                new CodahaleMetricsCollector(), true, 10, 0, 60);
+
+        assertThat(subject.getGroups(authData)).containsOnly("group");
+        assertThat(subject.getGroups(authData)).containsOnly("group");
+        assertThat(subject.getGroups(authData)).containsOnly("group");
+
+        verify(delegate, timeout(5000).times(2)).getGroupsAsync(any(AuthData.class), any(Executor.class));
+    }
+
+    @Test
+    public void test_that_getGroupsAsync_caches_groups_loaded_by_delegate() {
+        when(delegate.getGroupsAsync(any(AuthData.class), any(Executor.class)))
+                .thenReturn(CompletableFuture.completedFuture(Sets.newHashSet("group")));
+        final GroupCachingAuthConnector subject = new GroupCachingAuthConnector(delegate,
+                new CodahaleMetricsCollector(), true, 10, 60, 0);
+
+        assertThat(subject.getGroupsAsync(authData, Runnable::run).join()).containsOnly("group");
+        assertThat(subject.getGroups(authData)).containsOnly("group");
+
+        verify(delegate, times(1)).getGroupsAsync(any(AuthData.class), any(Executor.class));
+        verify(delegate, times(0)).getGroups(authData);
+    }
+}
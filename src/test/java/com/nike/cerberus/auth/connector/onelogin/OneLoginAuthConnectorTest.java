@@ -4,6 +4,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.nike.backstopper.apierror.ApiError;
 import com.nike.backstopper.exception.ApiException;
+import com.nike.cerberus.auth.connector.AuthData;
 import com.nike.cerberus.auth.connector.AuthResponse;
 import com.nike.cerberus.auth.connector.AuthStatus;
 import com.nike.cerberus.error.DefaultApiError;
@@ -11,6 +12,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import static com.nike.cerberus.error.DefaultApiError.MFA_SETUP_REQUIRED;
 import static org.junit.Assert.*;
@@ -181,6 +183,46 @@ public class OneLoginAuthConnectorTest {
         assertEquals(AuthStatus.SUCCESS, response.getStatus());
     }
 
+    @Test
+    public void test_mfaCheckAsync() {
+        SessionUser user = new SessionUser();
+        user.setId(USER_ID);
+        user.setUsername(USERNAME);
+
+        SessionLoginTokenData sessionLoginTokenData = new SessionLoginTokenData();
+        sessionLoginTokenData.setUser(user);
+
+        VerifyFactorResponse verifyFactorResponse = mock(VerifyFactorResponse.class);
+        when(verifyFactorResponse.getStatus()).thenReturn(new ResponseStatus());
+        when(verifyFactorResponse.getData()).thenReturn(Lists.newArrayList(sessionLoginTokenData));
+        when(oneLoginClient.verifyFactorAsync(DEVICE_ID.toString(), STATE_TOKEN, OTP_TOKEN))
+                .thenReturn(CompletableFuture.completedFuture(verifyFactorResponse));
+
+        // invoke method under test
+        AuthResponse response = oneLoginAuthConnector.mfaCheckAsync(STATE_TOKEN, DEVICE_ID.toString(), OTP_TOKEN, null).join();
+        assertEquals(Long.toString(user.getId()), response.getData().getUserId());
+        assertEquals(user.getUsername(), response.getData().getUsername());
+        assertEquals(AuthStatus.SUCCESS, response.getStatus());
+    }
+
+    @Test
+    public void test_getGroupsAsync() {
+        UserData userData = new UserData();
+        userData.setId(USER_ID);
+        userData.setMemberOf("CN=Foo.Bar,OU=Groups,DC=example,DC=com;CN=Lst-foo,OU=Groups,DC=example,DC=com");
+
+        GetUserResponse getUserResponse = new GetUserResponse();
+        getUserResponse.setData(Lists.newArrayList(userData));
+        getUserResponse.setStatus(new ResponseStatus().setError(false));
+
+        when(oneLoginClient.getUserByIdAsync(USER_ID)).thenReturn(CompletableFuture.completedFuture(getUserResponse));
+
+        // invoke method under test
+        Set<String> groups = oneLoginAuthConnector.getGroupsAsync(new AuthData().setUserId(Long.toString(USER_ID)), null).join();
+
+        assertEquals(Sets.newHashSet("Foo.Bar", "Lst-foo"), groups);
+    }
+
     @Test
     public void test_parseLdapGroups() {
         String ldapGroups = "CN=Application.foo.users,OU=Application,OU=Groups,DC=ad,DC=acme,DC=com;CN=Application.bar.users,OU=Application,OU=Groups,DC=ad,DC=acme,DC=com";
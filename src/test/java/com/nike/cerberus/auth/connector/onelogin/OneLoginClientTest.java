@@ -6,9 +6,16 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class OneLoginClientTest {
@@ -135,7 +142,134 @@ public class OneLoginClientTest {
         oneLoginClient.requestAccessToken();
     }
 
+    @Test
+    public void test_access_token_is_cached_until_it_expires() {
+
+        setupMocksToGiveAccessToken(36000);
+
+        // invoke method under test
+        oneLoginClient.buildAuthorizationBearerHeader();
+        Map<String, String> headers = oneLoginClient.buildAuthorizationBearerHeader();
+
+        assertEquals("bearer:" + accessToken, headers.get("Authorization"));
+        verify(httpClient, times(1)).execute("auth/oauth2/token", "POST", oneLoginClient.buildAuthorizationHeader(), new GenerateTokenRequest(), GenerateTokenResponse.class);
+    }
+
+    @Test
+    public void test_unauthorized_response_invalidates_cached_access_token_and_retries() {
+
+        setupMocksToGiveAccessToken(36000);
+
+        long userId = 101L;
+
+        GetUserResponse unauthorized = new GetUserResponse().setStatus(new ResponseStatus().setError(true).setCode(401L));
+        GetUserResponse response = new GetUserResponse().setStatus(new ResponseStatus().setCode(200L));
+
+        when(httpClient.execute(eq("api/1/users/" + userId), eq("GET"), anyMapOf(String.class, String.class), isNull(), eq(GetUserResponse.class)))
+                .thenReturn(unauthorized, response);
+
+        // invoke method under test
+        GetUserResponse actualResponse = oneLoginClient.getUserById(userId);
+
+        assertEquals(response, actualResponse);
+        verify(httpClient, times(2)).execute("auth/oauth2/token", "POST", oneLoginClient.buildAuthorizationHeader(), new GenerateTokenRequest(), GenerateTokenResponse.class);
+    }
+
+    @Test
+    public void test_bad_credentials_response_from_login_is_not_retried() {
+
+        setupMocksToGiveAccessToken(36000);
+
+        CreateSessionLoginTokenResponse badCredentials = new CreateSessionLoginTokenResponse()
+                .setStatus(new ResponseStatus().setError(true).setCode(401L));
+
+        when(httpClient.execute(eq("api/1/login/auth"), eq("POST"), anyMapOf(String.class, String.class),
+                any(CreateSessionLoginTokenRequest.class), eq(CreateSessionLoginTokenResponse.class)))
+                .thenReturn(badCredentials);
+
+        // invoke method under test
+        CreateSessionLoginTokenResponse actualResponse = oneLoginClient.createSessionLoginToken("username", "password");
+
+        assertEquals(badCredentials, actualResponse);
+        verify(httpClient, times(1)).execute(eq("api/1/login/auth"), eq("POST"), anyMapOf(String.class, String.class),
+                any(CreateSessionLoginTokenRequest.class), eq(CreateSessionLoginTokenResponse.class));
+        verify(httpClient, times(1)).execute("auth/oauth2/token", "POST", oneLoginClient.buildAuthorizationHeader(), new GenerateTokenRequest(), GenerateTokenResponse.class);
+    }
+
+    @Test
+    public void test_bad_credentials_response_from_async_verify_factor_is_not_retried() {
+
+        setupMocksToGiveAccessToken(36000);
+
+        VerifyFactorResponse badCredentials = new VerifyFactorResponse()
+                .setStatus(new ResponseStatus().setError(true).setCode(401L));
+
+        when(httpClient.executeAsync(eq("api/1/login/verify_factor"), eq("POST"), anyMapOf(String.class, String.class),
+                any(VerifyFactorRequest.class), eq(VerifyFactorResponse.class)))
+                .thenReturn(CompletableFuture.completedFuture(badCredentials));
+
+        // invoke method under test
+        VerifyFactorResponse actualResponse = oneLoginClient.verifyFactorAsync("deviceId", "stateToken", "otpToken").join();
+
+        assertEquals(badCredentials, actualResponse);
+        verify(httpClient, times(1)).executeAsync(eq("api/1/login/verify_factor"), eq("POST"), anyMapOf(String.class, String.class),
+                any(VerifyFactorRequest.class), eq(VerifyFactorResponse.class));
+        verify(httpClient, times(1)).execute("auth/oauth2/token", "POST", oneLoginClient.buildAuthorizationHeader(), new GenerateTokenRequest(), GenerateTokenResponse.class);
+    }
+
+    @Test
+    public void test_unauthorized_response_from_login_invalidates_cached_access_token() {
+
+        setupMocksToGiveAccessToken(36000);
+
+        CreateSessionLoginTokenResponse rejected = new CreateSessionLoginTokenResponse()
+                .setStatus(new ResponseStatus().setError(true).setCode(401L));
+        CreateSessionLoginTokenResponse success = new CreateSessionLoginTokenResponse()
+                .setStatus(new ResponseStatus().setError(false).setCode(200L));
+
+        when(httpClient.execute(eq("api/1/login/auth"), eq("POST"), anyMapOf(String.class, String.class),
+                any(CreateSessionLoginTokenRequest.class), eq(CreateSessionLoginTokenResponse.class)))
+                .thenReturn(rejected)
+                .thenReturn(success);
+
+        // invoke method under test
+        assertEquals(rejected, oneLoginClient.createSessionLoginToken("username", "password"));
+        assertEquals(success, oneLoginClient.createSessionLoginToken("username", "password"));
+
+        verify(httpClient, times(2)).execute(eq("api/1/login/auth"), eq("POST"), anyMapOf(String.class, String.class),
+                any(CreateSessionLoginTokenRequest.class), eq(CreateSessionLoginTokenResponse.class));
+        verify(httpClient, times(2)).execute("auth/oauth2/token", "POST", oneLoginClient.buildAuthorizationHeader(), new GenerateTokenRequest(), GenerateTokenResponse.class);
+    }
+
+    @Test
+    public void test_unauthorized_response_from_async_login_invalidates_cached_access_token() {
+
+        setupMocksToGiveAccessToken(36000);
+
+        CreateSessionLoginTokenResponse rejected = new CreateSessionLoginTokenResponse()
+                .setStatus(new ResponseStatus().setError(true).setCode(401L));
+        CreateSessionLoginTokenResponse success = new CreateSessionLoginTokenResponse()
+                .setStatus(new ResponseStatus().setError(false).setCode(200L));
+
+        when(httpClient.executeAsync(eq("api/1/login/auth"), eq("POST"), anyMapOf(String.class, String.class),
+                any(CreateSessionLoginTokenRequest.class), eq(CreateSessionLoginTokenResponse.class)))
+                .thenReturn(CompletableFuture.completedFuture(rejected))
+                .thenReturn(CompletableFuture.completedFuture(success));
+
+        // invoke method under test
+        assertEquals(rejected, oneLoginClient.createSessionLoginTokenAsync("username", "password").join());
+        assertEquals(success, oneLoginClient.createSessionLoginTokenAsync("username", "password").join());
+
+        verify(httpClient, times(2)).executeAsync(eq("api/1/login/auth"), eq("POST"), anyMapOf(String.class, String.class),
+                any(CreateSessionLoginTokenRequest.class), eq(CreateSessionLoginTokenResponse.class));
+        verify(httpClient, times(2)).execute("auth/oauth2/token", "POST", oneLoginClient.buildAuthorizationHeader(), new GenerateTokenRequest(), GenerateTokenResponse.class);
+    }
+
     private void setupMocksToGiveAccessToken() {
+        setupMocksToGiveAccessToken(0);
+    }
+
+    private void setupMocksToGiveAccessToken(int expiresIn) {
 
         ResponseStatus status = new ResponseStatus();
         status.setError(false);
@@ -143,6 +277,7 @@ public class OneLoginClientTest {
 
         GenerateTokenResponseData data = new GenerateTokenResponseData();
         data.setAccessToken(accessToken);
+        data.setExpiresIn(expiresIn);
 
         GenerateTokenResponse response = new GenerateTokenResponse();
         response.setStatus(status);
@@ -6,16 +6,21 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.nike.backstopper.exception.ApiException;
 import com.nike.cerberus.server.config.guice.OneLoginGuiceModule;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
 import okhttp3.*;
 import org.junit.Before;
 import org.junit.Test;
 
 import javax.net.ssl.SSLException;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -33,7 +38,7 @@ public class OneLoginHttpClientTest {
         OneLoginGuiceModule module = new OneLoginGuiceModule();
         objectMapper = module.getObjectMapper();
         httpClient = mock(OkHttpClient.class);
-        oneLoginHttpClient = new OneLoginHttpClient(oneloginApiRegion, httpClient, objectMapper);
+        oneLoginHttpClient = new OneLoginHttpClient(oneloginApiRegion, httpClient, objectMapper, new CodahaleMetricsCollector());
     }
 
     @Test
@@ -65,6 +70,48 @@ public class OneLoginHttpClientTest {
         oneLoginHttpClient.execute("fake/path", "GET", null, null, GetUserResponse.class);
     }
 
+    @Test
+    public void test_executeAsync() throws Exception {
+
+        long statusCode = 200L;
+        long userId = 100L;
+
+        Response response = createFakeGetUserResponse(statusCode, userId);
+        Call call = mock(Call.class);
+        doAnswer(invocation -> {
+            ((Callback) invocation.getArguments()[0]).onResponse(call, response);
+            return null;
+        }).when(call).enqueue(any());
+        when(httpClient.newCall(any())).thenReturn(call);
+
+        // invoke method under test
+        GetUserResponse actualResponse = oneLoginHttpClient.executeAsync("fake/path", "GET", null, null, GetUserResponse.class).join();
+
+        assertEquals(statusCode, actualResponse.getStatus().getCode());
+        assertEquals(userId, actualResponse.getData().get(0).getId());
+    }
+
+    @Test
+    public void test_executeAsync_handles_io_error() throws Exception {
+
+        Call call = mock(Call.class);
+        doAnswer(invocation -> {
+            ((Callback) invocation.getArguments()[0]).onFailure(call, new IOException());
+            return null;
+        }).when(call).enqueue(any());
+        when(httpClient.newCall(any())).thenReturn(call);
+
+        // invoke method under test
+        CompletableFuture<GetUserResponse> future = oneLoginHttpClient.executeAsync("fake/path", "GET", null, null, GetUserResponse.class);
+
+        try {
+            future.join();
+            fail("expected the future to complete exceptionally");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof ApiException);
+        }
+    }
+
     @Test
     public void test_buildRequest() throws Exception {
         String method = "POST";
@@ -16,10 +16,16 @@
 
 package com.nike.cerberus.aws;
 
+import com.amazonaws.DefaultRequest;
 import com.amazonaws.regions.Region;
 import com.amazonaws.regions.Regions;
+import com.amazonaws.services.kms.AWSKMSAsync;
 import com.amazonaws.services.kms.AWSKMSClient;
+import com.amazonaws.util.AWSRequestMetrics;
+import com.amazonaws.util.AWSRequestMetricsFullSupport;
+import com.codahale.metrics.Counter;
 import com.nike.backstopper.exception.ApiException;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -40,7 +46,7 @@ public class KmsClientFactoryTest {
 
     @Before
     public void setup() {
-        subject = new KmsClientFactory();
+        subject = new KmsClientFactory(new CodahaleMetricsCollector(), 50, 1000, 5000, 3, 10);
     }
 
     @Test
@@ -57,6 +63,46 @@ public class KmsClientFactoryTest {
         assertThat(client).isNotNull();
     }
 
+    @Test
+    public void get_client_by_region_returns_cached_kms_client() {
+        AWSKMSClient client = subject.getClient(goodRegion);
+
+        assertThat(subject.getClient(goodRegionName)).isSameAs(client);
+    }
+
+    @Test
+    public void get_async_client_by_region_returns_cached_kms_async_client() {
+        AWSKMSAsync client = subject.getAsyncClient(goodRegion);
+
+        assertThat(client).isNotNull();
+        assertThat(subject.getAsyncClient(goodRegion)).isSameAs(client);
+    }
+
+    @Test
+    public void throttle_metric_collector_counts_every_throttled_attempt() {
+        Counter throttleCounter = new Counter();
+        AWSRequestMetrics requestMetrics = new AWSRequestMetricsFullSupport();
+        requestMetrics.incrementCounter(AWSRequestMetrics.Field.ThrottleException);
+        requestMetrics.incrementCounter(AWSRequestMetrics.Field.ThrottleException);
+        DefaultRequest<Void> request = new DefaultRequest<>("kms");
+        request.setAWSRequestMetrics(requestMetrics);
+
+        new KmsClientFactory.ThrottleMetricCollector(throttleCounter).collectMetrics(request, null);
+
+        assertThat(throttleCounter.getCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void throttle_metric_collector_ignores_calls_that_were_not_throttled() {
+        Counter throttleCounter = new Counter();
+        DefaultRequest<Void> request = new DefaultRequest<>("kms");
+        request.setAWSRequestMetrics(new AWSRequestMetricsFullSupport());
+
+        new KmsClientFactory.ThrottleMetricCollector(throttleCounter).collectMetrics(request, null);
+
+        assertThat(throttleCounter.getCount()).isEqualTo(0);
+    }
+
     @Test(expected = ApiException.class)
     public void get_client_by_region_string_throws_exception_if_bad_region_passed() {
         subject.getClient(badRegionName);
@@ -20,6 +20,7 @@ import com.google.common.collect.Lists;
 import com.nike.cerberus.mapper.AwsIamRoleMapper;
 import com.nike.cerberus.record.AwsIamRoleKmsKeyRecord;
 import com.nike.cerberus.record.AwsIamRolePermissionRecord;
+import com.nike.cerberus.record.AwsIamRolePermissionWithArnRecord;
 import com.nike.cerberus.record.AwsIamRoleRecord;
 import org.junit.Before;
 import org.junit.Test;
@@ -80,6 +81,21 @@ public class AwsIamRoleDaoTest {
     private final List<AwsIamRolePermissionRecord> awsIamRolePermissionRecordList =
             Lists.newArrayList(awsIamRolePermissionRecord);
 
+    private final AwsIamRolePermissionWithArnRecord awsIamRolePermissionWithArnRecord =
+            new AwsIamRolePermissionWithArnRecord()
+                    .setId(iamRolePermissionId)
+                    .setAwsIamRoleId(iamRoleId)
+                    .setAwsIamRoleArn(awsIamRoleArn)
+                    .setSdboxId(safeDepositBoxId)
+                    .setRoleId(roleId)
+                    .setCreatedBy(createdBy)
+                    .setLastUpdatedBy(lastUpdatedBy)
+                    .setCreatedTs(createdTs)
+                    .setLastUpdatedTs(lastUpdatedTs);
+
+    private final List<AwsIamRolePermissionWithArnRecord> awsIamRolePermissionWithArnRecordList =
+            Lists.newArrayList(awsIamRolePermissionWithArnRecord);
+
     private final AwsIamRoleKmsKeyRecord awsIamRoleKmsKeyRecord = new AwsIamRoleKmsKeyRecord()
             .setId(iamRoleKmsKeyId)
             .setAwsIamRoleId(iamRoleId)
@@ -179,6 +195,29 @@ public class AwsIamRoleDaoTest {
         assertThat(actual).hasSameElementsAs(awsIamRolePermissionRecordList);
     }
 
+    @Test
+    public void getIamRolePermissionsWithArn_returns_list_of_records() {
+        when(awsIamRoleMapper.getIamRolePermissionsWithArn(safeDepositBoxId))
+                .thenReturn(awsIamRolePermissionWithArnRecordList);
+
+        List<AwsIamRolePermissionWithArnRecord> actual = subject.getIamRolePermissionsWithArn(safeDepositBoxId);
+
+        assertThat(actual).isNotEmpty();
+        assertThat(actual).hasSameElementsAs(awsIamRolePermissionWithArnRecordList);
+    }
+
+    @Test
+    public void getIamRolePermissionsWithArn_for_several_boxes_returns_list_of_records() {
+        final List<String> safeDepositBoxIds = Lists.newArrayList(safeDepositBoxId, "OTHER_SDB_ID");
+        when(awsIamRoleMapper.getIamRolePermissionsWithArnBySafeDepositBoxIds(safeDepositBoxIds))
+                .thenReturn(awsIamRolePermissionWithArnRecordList);
+
+        List<AwsIamRolePermissionWithArnRecord> actual = subject.getIamRolePermissionsWithArn(safeDepositBoxIds);
+
+        assertThat(actual).isNotEmpty();
+        assertThat(actual).hasSameElementsAs(awsIamRolePermissionWithArnRecordList);
+    }
+
     @Test
     public void createIamRolePermission_returns_record_count() {
         final int recordCount = 1;
@@ -137,6 +137,17 @@ public class SafeDepositBoxDaoTest {
         assertThat(actual).hasSameElementsAs(safeDepositBoxRecordList);
     }
 
+    @Test
+    public void getSafeDepositBoxesAfter_returns_list_of_records() {
+        when(safeDepositBoxMapper.getSafeDepositBoxesAfter(1000, createdTs, safeDepositBoxId))
+                .thenReturn(safeDepositBoxRecordList);
+
+        List<SafeDepositBoxRecord> actual = subject.getSafeDepositBoxesAfter(1000, createdTs, safeDepositBoxId);
+
+        assertThat(actual).isNotEmpty();
+        assertThat(actual).hasSameElementsAs(safeDepositBoxRecordList);
+    }
+
     @Test
     public void getSafeDepositBox_by_id_returns_record_when_found() {
         when(safeDepositBoxMapper.getSafeDepositBox(safeDepositBoxId)).thenReturn(safeDepositBoxRecord);
@@ -19,6 +19,7 @@ package com.nike.cerberus.dao;
 import com.google.common.collect.Lists;
 import com.nike.cerberus.mapper.UserGroupMapper;
 import com.nike.cerberus.record.UserGroupPermissionRecord;
+import com.nike.cerberus.record.UserGroupPermissionWithNameRecord;
 import com.nike.cerberus.record.UserGroupRecord;
 import org.junit.Before;
 import org.junit.Test;
@@ -75,6 +76,21 @@ public class UserGroupDaoTest {
     private final List<UserGroupPermissionRecord> userGroupPermissionRecordList =
             Lists.newArrayList(userGroupPermissionRecord);
 
+    private final UserGroupPermissionWithNameRecord userGroupPermissionWithNameRecord =
+            new UserGroupPermissionWithNameRecord()
+                    .setId(userGroupPermissionId)
+                    .setUserGroupId(userGroupId)
+                    .setUserGroupName(userGroupName)
+                    .setSdboxId(safeDepositBoxId)
+                    .setRoleId(roleId)
+                    .setCreatedBy(createdBy)
+                    .setLastUpdatedBy(lastUpdatedBy)
+                    .setCreatedTs(createdTs)
+                    .setLastUpdatedTs(lastUpdatedTs);
+
+    private final List<UserGroupPermissionWithNameRecord> userGroupPermissionWithNameRecordList =
+            Lists.newArrayList(userGroupPermissionWithNameRecord);
+
     private UserGroupMapper userGroupMapper;
 
     private UserGroupDao subject;
@@ -153,6 +169,29 @@ public class UserGroupDaoTest {
         assertThat(actual).hasSameElementsAs(userGroupPermissionRecordList);
     }
 
+    @Test
+    public void getUserGroupPermissionsWithName_returns_list_of_records() {
+        when(userGroupMapper.getUserGroupPermissionsWithName(safeDepositBoxId))
+                .thenReturn(userGroupPermissionWithNameRecordList);
+
+        List<UserGroupPermissionWithNameRecord> actual = subject.getUserGroupPermissionsWithName(safeDepositBoxId);
+
+        assertThat(actual).isNotEmpty();
+        assertThat(actual).hasSameElementsAs(userGroupPermissionWithNameRecordList);
+    }
+
+    @Test
+    public void getUserGroupPermissionsWithName_for_several_boxes_returns_list_of_records() {
+        final List<String> safeDepositBoxIds = Lists.newArrayList(safeDepositBoxId, "OTHER_SDB_ID");
+        when(userGroupMapper.getUserGroupPermissionsWithNameBySafeDepositBoxIds(safeDepositBoxIds))
+                .thenReturn(userGroupPermissionWithNameRecordList);
+
+        List<UserGroupPermissionWithNameRecord> actual = subject.getUserGroupPermissionsWithName(safeDepositBoxIds);
+
+        assertThat(actual).isNotEmpty();
+        assertThat(actual).hasSameElementsAs(userGroupPermissionWithNameRecordList);
+    }
+
     @Test
     public void createUserGroupPermission_returns_record_count() {
         final int recordCount = 1;
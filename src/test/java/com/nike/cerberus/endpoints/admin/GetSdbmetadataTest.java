@@ -26,6 +26,7 @@ import org.mockito.Mock;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -70,6 +71,16 @@ public class GetSdbmetadataTest {
         assertEquals(6, endpointSpy.getOffset(request));
     }
 
+    @Test
+    public void test_that_cursor_query_param_selects_cursor_pagination() {
+        when(request.getQueryParamSingle(GetSDBMetadata.CURSOR_QUERY_KEY)).thenReturn("abc");
+        when(request.getQueryParamSingle(GetSDBMetadata.LIMIT_QUERY_KEY)).thenReturn("7");
+
+        endpoint.getMetadata(request);
+
+        verify(metadataService).getSDBMetadata(7, "abc");
+    }
+
     @Test(expected = ApiException.class)
     public void test_that_a_bad_request_is_thrown_if_limit_is_less_than_1() {
         endpoint.validateLimitQuery("0");
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package com.nike.cerberus.endpoints.authentication;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.nike.cerberus.domain.IamPrincipalMultiRegionAuthResponse;
+import com.nike.cerberus.domain.IamPrincipalMultiRegionCredentials;
+import com.nike.cerberus.service.AuthenticationService;
+import com.nike.riposte.server.http.RequestInfo;
+import com.nike.riposte.server.http.ResponseInfo;
+import io.netty.handler.codec.http.HttpMethod;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AuthenticateIamPrincipalMultiRegionTest {
+
+    private final Executor executor = Executors.newSingleThreadExecutor();
+
+    private AuthenticationService authenticationService;
+
+    private AuthenticateIamPrincipalMultiRegion subject;
+
+    @Before
+    public void setUp() throws Exception {
+        authenticationService = mock(AuthenticationService.class);
+        subject = new AuthenticateIamPrincipalMultiRegion(authenticationService);
+    }
+
+    @Test
+    public void requestMatcher_is_http_post() {
+        final Collection<HttpMethod> httpMethods = subject.requestMatcher().matchingMethods();
+
+        assertThat(httpMethods).hasSize(1);
+        assertThat(httpMethods).contains(HttpMethod.POST);
+    }
+
+    @Test
+    public void execute_returns_auth_response_of_every_region() {
+        final IamPrincipalMultiRegionAuthResponse authResponse = new IamPrincipalMultiRegionAuthResponse();
+        authResponse.setAuthData(ImmutableMap.of("us-west-2", "AUTH_DATA_1", "us-east-1", "AUTH_DATA_2"));
+        final IamPrincipalMultiRegionCredentials credentials = new IamPrincipalMultiRegionCredentials();
+        credentials.setRegions(Lists.newArrayList("us-west-2", "us-east-1"));
+        final RequestInfo<IamPrincipalMultiRegionCredentials> requestInfo = mock(RequestInfo.class);
+        when(requestInfo.getContent()).thenReturn(credentials);
+        when(authenticationService.authenticateAsync(eq(credentials), any(Executor.class)))
+                .thenReturn(CompletableFuture.completedFuture(authResponse));
+
+        final CompletableFuture<ResponseInfo<IamPrincipalMultiRegionAuthResponse>> completableFuture =
+                subject.execute(requestInfo, executor, null);
+        final ResponseInfo<IamPrincipalMultiRegionAuthResponse> responseInfo = completableFuture.join();
+
+        assertThat(responseInfo.getContentForFullResponse()).isEqualTo(authResponse);
+    }
+}
@@ -32,7 +32,11 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class AuthenticateIamPrincipalTest {
@@ -72,4 +76,23 @@ public class AuthenticateIamPrincipalTest {
 
         assertThat(responseInfo.getContentForFullResponse()).isEqualTo(iamRoleAuthResponse);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void execute_uses_async_authentication_when_enabled() {
+        final IamRoleAuthResponse iamRoleAuthResponse = new IamRoleAuthResponse();
+        iamRoleAuthResponse.setAuthData("AUTH_DATA");
+        final IamPrincipalCredentials credentials = new IamPrincipalCredentials();
+        final RequestInfo<IamPrincipalCredentials> requestInfo = mock(RequestInfo.class);
+        when(requestInfo.getContent()).thenReturn(credentials);
+        when(authenticationService.isIamAuthAsyncEnabled()).thenReturn(true);
+        when(authenticationService.authenticateAsync(eq(credentials), any(Executor.class)))
+                .thenReturn(CompletableFuture.completedFuture(iamRoleAuthResponse));
+
+        final CompletableFuture<ResponseInfo<IamRoleAuthResponse>> completableFuture =
+                subject.execute(requestInfo, executor, null);
+        final ResponseInfo<IamRoleAuthResponse> responseInfo = completableFuture.join();
+
+        assertThat(responseInfo.getContentForFullResponse()).isEqualTo(iamRoleAuthResponse);
+        verify(authenticationService, never()).authenticate(credentials);
+    }
+}
@@ -31,7 +31,11 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class AuthenticateIamRoleTest {
@@ -71,4 +75,23 @@ public class AuthenticateIamRoleTest {
 
         assertThat(responseInfo.getContentForFullResponse()).isEqualTo(iamRoleAuthResponse);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void execute_uses_async_authentication_when_enabled() {
+        final IamRoleAuthResponse iamRoleAuthResponse = new IamRoleAuthResponse();
+        iamRoleAuthResponse.setAuthData("AUTH_DATA");
+        final IamRoleCredentials credentials = new IamRoleCredentials();
+        final RequestInfo<IamRoleCredentials> requestInfo = mock(RequestInfo.class);
+        when(requestInfo.getContent()).thenReturn(credentials);
+        when(authenticationService.isIamAuthAsyncEnabled()).thenReturn(true);
+        when(authenticationService.authenticateAsync(eq(credentials), any(Executor.class)))
+                .thenReturn(CompletableFuture.completedFuture(iamRoleAuthResponse));
+
+        final CompletableFuture<ResponseInfo<IamRoleAuthResponse>> completableFuture =
+                subject.execute(requestInfo, executor, null);
+        final ResponseInfo<IamRoleAuthResponse> responseInfo = completableFuture.join();
+
+        assertThat(responseInfo.getContentForFullResponse()).isEqualTo(iamRoleAuthResponse);
+        verify(authenticationService, never()).authenticate(credentials);
+    }
+}
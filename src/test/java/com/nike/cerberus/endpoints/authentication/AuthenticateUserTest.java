@@ -39,6 +39,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Fail.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class AuthenticateUserTest {
@@ -88,6 +90,25 @@ public class AuthenticateUserTest {
         assertThat(responseInfo.getContentForFullResponse()).isEqualTo(authResponse);
     }
 
+    @Test
+    public void execute_uses_async_authentication_when_enabled() {
+        final AuthResponse authResponse = new AuthResponse();
+        final RequestInfo<Void> requestInfo = mock(RequestInfo.class);
+        final HttpHeaders httpHeaders = new DefaultHttpHeaders();
+        httpHeaders.add(HttpHeaders.Names.AUTHORIZATION, validAuthorizationHeader);
+        when(requestInfo.getHeaders()).thenReturn(httpHeaders);
+        when(authenticationService.isUserAuthAsyncEnabled()).thenReturn(true);
+        when(authenticationService.authenticateAsync(any(UserCredentials.class), any(Executor.class)))
+                .thenReturn(CompletableFuture.completedFuture(authResponse));
+
+        final CompletableFuture<ResponseInfo<AuthResponse>> completableFuture =
+                subject.execute(requestInfo, executor, null);
+        final ResponseInfo<AuthResponse> responseInfo = completableFuture.join();
+
+        assertThat(responseInfo.getContentForFullResponse()).isEqualTo(authResponse);
+        verify(authenticationService, never()).authenticate(any(UserCredentials.class));
+    }
+
     @Test
     public void execute_throws_api_error_when_bad_auth_header() {
         final RequestInfo<Void> requestInfo = mock(RequestInfo.class);
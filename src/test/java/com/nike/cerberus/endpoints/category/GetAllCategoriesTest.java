@@ -19,6 +19,7 @@ package com.nike.cerberus.endpoints.category;
 import com.google.common.collect.Lists;
 import com.nike.cerberus.domain.Category;
 import com.nike.cerberus.service.CategoryService;
+import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
 import io.netty.handler.codec.http.HttpMethod;
 import org.junit.Before;
@@ -67,7 +68,7 @@ public class GetAllCategoriesTest {
         when(categoryService.getAllCategories()).thenReturn(categoryList);
 
         final CompletableFuture<ResponseInfo<List<Category>>> completableFuture =
-                subject.execute(null, executor, null);
+                subject.execute(mock(RequestInfo.class), executor, null);
         final ResponseInfo<List<Category>> responseInfo = completableFuture.join();
 
         assertThat(responseInfo.getContentForFullResponse()).containsOnly(category);
@@ -19,6 +19,7 @@ package com.nike.cerberus.endpoints.role;
 import com.google.common.collect.Lists;
 import com.nike.cerberus.domain.Role;
 import com.nike.cerberus.service.RoleService;
+import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.ResponseInfo;
 import io.netty.handler.codec.http.HttpMethod;
 import org.junit.Before;
@@ -67,7 +68,7 @@ public class GetAllRolesTest {
         when(roleService.getAllRoles()).thenReturn(roleList);
 
         final CompletableFuture<ResponseInfo<List<Role>>> completableFuture =
-                subject.execute(null, executor, null);
+                subject.execute(mock(RequestInfo.class), executor, null);
         final ResponseInfo<List<Role>> responseInfo = completableFuture.join();
 
         assertThat(responseInfo.getContentForFullResponse()).containsOnly(role);
@@ -19,10 +19,12 @@ package com.nike.cerberus.security;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.nike.backstopper.exception.ApiException;
+import com.nike.cerberus.error.DefaultApiError;
 import com.nike.vault.client.VaultAdminClient;
 import com.nike.vault.client.VaultClientException;
 import com.nike.vault.client.VaultServerException;
 import com.nike.vault.client.model.VaultClientTokenResponse;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
 import com.nike.riposte.server.http.RequestInfo;
 import com.nike.riposte.server.http.Endpoint;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
@@ -34,11 +36,15 @@ import javax.ws.rs.core.SecurityContext;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
 
 import static com.nike.cerberus.security.CmsRequestSecurityValidator.SECURITY_CONTEXT_ATTR_KEY;
+import static com.nike.cerberus.security.CmsRequestSecurityValidator.SECURITY_CONTEXT_FUTURE_ATTR_KEY;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -58,7 +64,9 @@ public class CmsRequestSecurityValidatorTest {
     @Before
     public void setUp() throws Exception {
         vaultAdminClient = mock(VaultAdminClient.class);
-        subject = new CmsRequestSecurityValidator(securedEndpoints, vaultAdminClient);
+        final VaultTokenLookupCache vaultTokenLookupCache =
+                new VaultTokenLookupCache(vaultAdminClient, new CodahaleMetricsCollector(), false, 10, 10, false);
+        subject = new CmsRequestSecurityValidator(securedEndpoints, vaultTokenLookupCache);
     }
 
     @Test
@@ -116,6 +124,48 @@ public class CmsRequestSecurityValidatorTest {
         subject.validateSecureRequestForEndpoint(requestInfo, securedEndpoint);
     }
 
+    @Test
+    public void test_validateSecureRequestForEndpoint_resolves_security_context_asynchronously_when_executor_given() {
+        final VaultTokenLookupCache vaultTokenLookupCache =
+                new VaultTokenLookupCache(vaultAdminClient, new CodahaleMetricsCollector(), false, 10, 10, false);
+        final CmsRequestSecurityValidator asyncSubject = new CmsRequestSecurityValidator(securedEndpoints,
+                vaultTokenLookupCache, Executors.newSingleThreadExecutor());
+
+        final Map<String, Object> requestAttributes = Maps.newHashMap();
+        final RequestInfo<Void> requestInfo = mock(RequestInfo.class);
+        when(requestInfo.getUri()).thenReturn("https://localhost");
+        final HttpHeaders httpHeaders = new DefaultHttpHeaders();
+        httpHeaders.add(CmsRequestSecurityValidator.HEADER_X_VAULT_TOKEN, vaultToken);
+        when(requestInfo.getHeaders()).thenReturn(httpHeaders);
+        when(requestInfo.getRequestAttributes()).thenReturn(requestAttributes);
+        doAnswer(invocation -> requestAttributes.put((String) invocation.getArguments()[0], invocation.getArguments()[1]))
+                .when(requestInfo).addRequestAttribute(any(String.class), any());
+
+        final Map<String, String> meta = Maps.newHashMap();
+        meta.put(VaultAuthPrincipal.METADATA_KEY_USERNAME, "username");
+        when(vaultAdminClient.lookupToken(vaultToken)).thenReturn(new VaultClientTokenResponse().setId(vaultToken).setMeta(meta));
+
+        asyncSubject.validateSecureRequestForEndpoint(requestInfo, securedEndpoint);
+
+        assertThat(requestAttributes).containsKey(SECURITY_CONTEXT_FUTURE_ATTR_KEY);
+        final Optional<SecurityContext> securityContext =
+                CmsRequestSecurityValidator.getSecurityContextForRequest(requestInfo);
+        assertThat(securityContext).isPresent();
+        assertThat(securityContext.get().getUserPrincipal().getName()).isEqualTo("username");
+    }
+
+    @Test(expected = ApiException.class)
+    public void test_getSecurityContextForRequest_rethrows_failed_asynchronous_validation() {
+        final RequestInfo<?> requestInfo = mock(RequestInfo.class);
+        final Map<String, Object> requestAttributes = Maps.newHashMap();
+        final CompletableFuture<SecurityContext> failedValidation = new CompletableFuture<>();
+        failedValidation.completeExceptionally(new ApiException(DefaultApiError.AUTH_VAULT_TOKEN_INVALID));
+        requestAttributes.put(SECURITY_CONTEXT_FUTURE_ATTR_KEY, failedValidation);
+        when(requestInfo.getRequestAttributes()).thenReturn(requestAttributes);
+
+        CmsRequestSecurityValidator.getSecurityContextForRequest(requestInfo);
+    }
+
     @Test
     public void test_getSecurityContextForRequest_returns_optional_populated_with_security_context() {
         final RequestInfo<?> requestInfo = mock(RequestInfo.class);
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.security;
+
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
+import com.nike.vault.client.VaultAdminClient;
+import com.nike.vault.client.model.VaultClientTokenResponse;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.nike.cerberus.security.VaultTokenLookupCache.METRIC_CACHE_EVICTION;
+import static com.nike.cerberus.security.VaultTokenLookupCache.METRIC_CACHE_HIT;
+import static com.nike.cerberus.security.VaultTokenLookupCache.METRIC_CACHE_MISS;
+import static com.nike.cerberus.security.VaultTokenLookupCache.METRIC_LOOKUP_COALESCED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class VaultTokenLookupCacheTest {
+
+    private final String vaultToken = "123-123-123-123-123";
+
+    private VaultAdminClient vaultAdminClient;
+
+    private CodahaleMetricsCollector metricsCollector;
+
+    private VaultClientTokenResponse clientTokenResponse;
+
+    @Before
+    public void setUp() throws Exception {
+        vaultAdminClient = mock(VaultAdminClient.class);
+        metricsCollector = new CodahaleMetricsCollector();
+        clientTokenResponse = new VaultClientTokenResponse().setId(vaultToken);
+        when(vaultAdminClient.lookupToken(vaultToken)).thenReturn(clientTokenResponse);
+    }
+
+    @Test
+    public void test_lookupToken_calls_vault_once_when_enabled() {
+        final VaultTokenLookupCache subject = new VaultTokenLookupCache(vaultAdminClient, metricsCollector, true, 10, 60, true);
+
+        assertThat(subject.lookupToken(vaultToken)).isSameAs(clientTokenResponse);
+        assertThat(subject.lookupToken(vaultToken)).isSameAs(clientTokenResponse);
+
+        verify(vaultAdminClient, times(1)).lookupToken(vaultToken);
+        assertThat(metricsCollector.getMetricRegistry().counter(METRIC_CACHE_MISS).getCount()).isEqualTo(1);
+        assertThat(metricsCollector.getMetricRegistry().counter(METRIC_CACHE_HIT).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void test_lookupToken_always_calls_vault_when_disabled() {
+        final VaultTokenLookupCache subject = new VaultTokenLookupCache(vaultAdminClient, metricsCollector, false, 10, 60, true);
+
+        subject.lookupToken(vaultToken);
+        subject.lookupToken(vaultToken);
+
+        verify(vaultAdminClient, times(2)).lookupToken(vaultToken);
+    }
+
+    @Test
+    public void test_lookupToken_caps_cache_time_at_token_ttl() throws Exception {
+        final VaultTokenLookupCache subject = new VaultTokenLookupCache(vaultAdminClient, metricsCollector, true, 10, 60, true);
+        clientTokenResponse.setTtl(1);
+
+        subject.lookupToken(vaultToken);
+        subject.lookupToken(vaultToken);
+        Thread.sleep(1100);
+        subject.lookupToken(vaultToken);
+
+        verify(vaultAdminClient, times(2)).lookupToken(vaultToken);
+        assertThat(metricsCollector.getMetricRegistry().counter(METRIC_CACHE_HIT).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void test_evict_forces_next_lookup_to_call_vault() {
+        final VaultTokenLookupCache subject = new VaultTokenLookupCache(vaultAdminClient, metricsCollector, true, 10, 60, true);
+
+        subject.lookupToken(vaultToken);
+        subject.evict(vaultToken);
+        subject.lookupToken(vaultToken);
+
+        verify(vaultAdminClient, times(2)).lookupToken(vaultToken);
+        assertThat(metricsCollector.getMetricRegistry().counter(METRIC_CACHE_EVICTION).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void test_concurrent_lookups_of_same_token_are_coalesced() throws Exception {
+        final VaultTokenLookupCache subject = new VaultTokenLookupCache(vaultAdminClient, metricsCollector, false, 10, 60, true);
+        final CountDownLatch lookupStarted = new CountDownLatch(1);
+        final CountDownLatch releaseLookup = new CountDownLatch(1);
+        when(vaultAdminClient.lookupToken(vaultToken)).thenAnswer(invocation -> {
+            lookupStarted.countDown();
+            releaseLookup.await();
+            return clientTokenResponse;
+        });
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        final Future<VaultClientTokenResponse> first = executor.submit(() -> subject.lookupToken(vaultToken));
+        lookupStarted.await();
+        final Future<VaultClientTokenResponse> second = executor.submit(() -> subject.lookupToken(vaultToken));
+        while (metricsCollector.getMetricRegistry().counter(METRIC_LOOKUP_COALESCED).getCount() == 0) {
+            Thread.sleep(5);
+        }
+        releaseLookup.countDown();
+
+        assertThat(first.get()).isSameAs(clientTokenResponse);
+        assertThat(second.get()).isSameAs(clientTokenResponse);
+        verify(vaultAdminClient, times(1)).lookupToken(vaultToken);
+        executor.shutdown();
+    }
+}
@@ -21,6 +21,10 @@ public class OneLoginGuiceModuleTest {
                 bindConstant().annotatedWith(Names.named("auth.connector.onelogin.client_id")).to("fake-client-id");
                 bindConstant().annotatedWith(Names.named("auth.connector.onelogin.client_secret")).to("fake-client-secret");
                 bindConstant().annotatedWith(Names.named("auth.connector.onelogin.subdomain")).to("fake-subdomain");
+                bindConstant().annotatedWith(Names.named(OneLoginGuiceModule.MAX_REQUESTS_PROPERTY)).to(64);
+                bindConstant().annotatedWith(Names.named(OneLoginGuiceModule.MAX_REQUESTS_PER_HOST_PROPERTY)).to(32);
+                bindConstant().annotatedWith(Names.named(OneLoginGuiceModule.MAX_IDLE_CONNECTIONS_PROPERTY)).to(16);
+                bindConstant().annotatedWith(Names.named(OneLoginGuiceModule.KEEP_ALIVE_PROPERTY)).to(300L);
 
             }
         });
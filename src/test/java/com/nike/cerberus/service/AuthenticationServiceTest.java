@@ -17,29 +17,53 @@
 
 package com.nike.cerberus.service;
 
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.regions.Region;
+import com.amazonaws.services.kms.AWSKMSAsync;
+import com.amazonaws.services.kms.model.EncryptRequest;
+import com.amazonaws.services.kms.model.EncryptResult;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nike.backstopper.exception.ApiException;
 import com.nike.cerberus.auth.connector.AuthConnector;
+import com.nike.cerberus.auth.connector.AuthData;
+import com.nike.cerberus.auth.connector.AuthResponse;
+import com.nike.cerberus.auth.connector.AuthStatus;
 import com.nike.cerberus.aws.KmsClientFactory;
 import com.nike.cerberus.dao.AwsIamRoleDao;
 import com.nike.cerberus.dao.SafeDepositBoxDao;
+import com.nike.cerberus.domain.IamPrincipalAuthResponseV3;
 import com.nike.cerberus.domain.IamPrincipalCredentials;
+import com.nike.cerberus.domain.IamPrincipalMultiRegionAuthResponse;
+import com.nike.cerberus.domain.IamPrincipalMultiRegionCredentials;
+import com.nike.cerberus.domain.IamRoleAuthResponse;
+import com.nike.cerberus.domain.UserCredentials;
+import com.nike.cerberus.error.DefaultApiError;
 import com.nike.cerberus.record.AwsIamRoleKmsKeyRecord;
 import com.nike.cerberus.record.AwsIamRoleRecord;
 import com.nike.cerberus.record.SafeDepositBoxRoleRecord;
 import com.nike.cerberus.security.VaultAuthPrincipal;
+import com.nike.cerberus.security.VaultTokenLookupCache;
 import com.nike.cerberus.server.config.CmsConfig;
 import com.nike.cerberus.util.AwsIamRoleArnParser;
 import com.nike.cerberus.util.DateTimeSupplier;
+import com.nike.cerberus.vault.VaultTokenRenewalClient;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
 import com.nike.vault.client.VaultAdminClient;
 import com.nike.vault.client.model.VaultAuthResponse;
+import com.nike.vault.client.model.VaultClientTokenResponse;
+import com.nike.vault.client.model.VaultTokenAuthRequest;
+import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.assertj.core.util.Lists;
 import org.assertj.core.util.Sets;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.HashMap;
@@ -49,6 +73,11 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
 
 import static com.nike.cerberus.service.AuthenticationService.LOOKUP_SELF_POLICY;
 import static com.nike.cerberus.util.AwsIamRoleArnParser.AWS_IAM_ROLE_ARN_TEMPLATE;
@@ -57,7 +86,15 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -97,16 +134,40 @@ public class AuthenticationServiceTest {
     @Mock
     private AwsIamRoleArnParser awsIamRoleArnParser;
 
+    @Mock
+    private VaultTokenLookupCache vaultTokenLookupCache;
+
+    @Mock
+    private VaultTokenRenewalClient vaultTokenRenewalClient;
+
+    private PolicySetCache policySetCache;
+
+    private KmsKeyRecordCache kmsKeyRecordCache;
+
+    private IamTokenReuseCache iamTokenReuseCache;
+
+    private TokenRevocationQueue tokenRevocationQueue;
+
     private AuthenticationService authenticationService;
 
     @Before
     public void setup() {
         initMocks(this);
         objectMapper = CmsConfig.configureObjectMapper();
+        policySetCache = new PolicySetCache(new CodahaleMetricsCollector(), true, 100, 60);
+        kmsKeyRecordCache = new KmsKeyRecordCache(new CodahaleMetricsCollector(), true, 100, 60);
+        iamTokenReuseCache = new IamTokenReuseCache(new CodahaleMetricsCollector(), true, 100, 60);
+        tokenRevocationQueue = new TokenRevocationQueue(vaultAdminClient, vaultTokenLookupCache,
+                new CodahaleMetricsCollector(), false, 1, 100, 3, 10);
+        when(dateTimeSupplier.get()).thenReturn(OffsetDateTime.now(ZoneOffset.UTC));
         authenticationService = new AuthenticationService(safeDepositBoxDao,
                 awsIamRoleDao, authConnector, kmsService, kmsClientFactory,
                 vaultAdminClient, vaultPolicyService, objectMapper, "foo",
-                dateTimeSupplier, awsIamRoleArnParser);
+                dateTimeSupplier, awsIamRoleArnParser, vaultTokenLookupCache, policySetCache, kmsKeyRecordCache,
+                new KmsPolicyValidationScheduler(kmsService, new CodahaleMetricsCollector(), false, 1, 10, 10, 10),
+                new KmsKeyProvisioningService(kmsService, awsIamRoleDao, kmsKeyRecordCache, dateTimeSupplier,
+                        new CodahaleMetricsCollector()), vaultTokenRenewalClient, iamTokenReuseCache,
+                tokenRevocationQueue);
     }
 
     @Test
@@ -166,6 +227,35 @@ public class AuthenticationServiceTest {
         verify(kmsService, times(1)).validatePolicy(awsIamRoleKmsKeyRecord, principalArn);
     }
 
+    @Test
+    public void test_that_getKeyId_serves_repeat_calls_from_kms_key_record_cache() {
+
+        String principalArn = "principal arn";
+        String region = "region";
+        String iamRoleId = "iam role id";
+        String cmkId = "key id";
+
+        IamPrincipalCredentials iamPrincipalCredentials = new IamPrincipalCredentials();
+        iamPrincipalCredentials.setIamPrincipalArn(principalArn);
+        iamPrincipalCredentials.setRegion(region);
+
+        AwsIamRoleRecord awsIamRoleRecord = new AwsIamRoleRecord().setAwsIamRoleArn(principalArn).setId(iamRoleId);
+        when(awsIamRoleDao.getIamRole(principalArn)).thenReturn(Optional.of(awsIamRoleRecord));
+
+        AwsIamRoleKmsKeyRecord awsIamRoleKmsKeyRecord = new AwsIamRoleKmsKeyRecord()
+                .setAwsIamRoleId(iamRoleId)
+                .setAwsRegion(region)
+                .setAwsKmsKeyId(cmkId);
+        when(awsIamRoleDao.getKmsKey(iamRoleId, region)).thenReturn(Optional.of(awsIamRoleKmsKeyRecord));
+
+        assertEquals(cmkId, authenticationService.getKeyId(iamPrincipalCredentials));
+        assertEquals(cmkId, authenticationService.getKeyId(iamPrincipalCredentials));
+
+        verify(awsIamRoleDao, times(1)).getIamRole(principalArn);
+        verify(awsIamRoleDao, times(1)).getKmsKey(iamRoleId, region);
+        verify(kmsService, times(2)).validatePolicy(awsIamRoleKmsKeyRecord, principalArn);
+    }
+
     @Test
     public void test_that_buildCompleteSetOfPolicies_returns_all_policies() {
 
@@ -202,6 +292,24 @@ public class AuthenticationServiceTest {
         assertEquals(expected, result);
     }
 
+    @Test
+    public void test_that_buildCompleteSetOfPolicies_uses_policy_set_cache_until_invalidated() {
+
+        String roleArn = String.format(AWS_IAM_ROLE_ARN_TEMPLATE, "0000000000", "role/path");
+        when(awsIamRoleArnParser.isRoleArn(roleArn)).thenReturn(true);
+        when(safeDepositBoxDao.getIamRoleAssociatedSafeDepositBoxRoles(roleArn)).thenReturn(Lists.newArrayList());
+
+        authenticationService.buildCompleteSetOfPolicies(roleArn);
+        authenticationService.buildCompleteSetOfPolicies(roleArn);
+        verify(safeDepositBoxDao, times(1)).getIamRoleAssociatedSafeDepositBoxRoles(roleArn);
+
+        policySetCache.invalidateAll();
+        Set<String> result = authenticationService.buildCompleteSetOfPolicies(roleArn);
+
+        verify(safeDepositBoxDao, times(2)).getIamRoleAssociatedSafeDepositBoxRoles(roleArn);
+        assertEquals(Sets.newHashSet(Lists.newArrayList(LOOKUP_SELF_POLICY)), result);
+    }
+
     @Test
     public void test_that_findIamRoleAssociatedWithSdb_returns_first_matching_iam_role_record_if_found() {
 
@@ -292,4 +400,353 @@ public class AuthenticationServiceTest {
         assertNotEquals(serializedAuth, actual);
         assertTrue(actual.length < AuthenticationService.KMS_SIZE_LIMIT);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void test_that_authenticateAsync_encrypts_auth_response_with_async_kms_client() throws Exception {
+        String principalArn = "arn:aws:iam::1111111111:role/role";
+        String region = "us-west-2";
+        String iamRoleId = "iam role id";
+        String cmkId = "key id";
+        byte[] ciphertext = "encrypted".getBytes();
+
+        IamPrincipalCredentials iamPrincipalCredentials = new IamPrincipalCredentials();
+        iamPrincipalCredentials.setIamPrincipalArn(principalArn);
+        iamPrincipalCredentials.setRegion(region);
+
+        when(awsIamRoleDao.getIamRole(principalArn))
+                .thenReturn(Optional.of(new AwsIamRoleRecord().setAwsIamRoleArn(principalArn).setId(iamRoleId)));
+        when(awsIamRoleDao.getKmsKey(iamRoleId, region))
+                .thenReturn(Optional.of(new AwsIamRoleKmsKeyRecord().setAwsKmsKeyId(cmkId)));
+        when(awsIamRoleArnParser.isRoleArn(principalArn)).thenReturn(true);
+        when(vaultAdminClient.createOrphanToken(any(VaultTokenAuthRequest.class)))
+                .thenReturn(new VaultAuthResponse().setClientToken("vault token"));
+
+        AWSKMSAsync kmsAsyncClient = mock(AWSKMSAsync.class);
+        when(kmsClientFactory.getAsyncClient(any(Region.class))).thenReturn(kmsAsyncClient);
+        doAnswer(invocation -> {
+            EncryptRequest request = (EncryptRequest) invocation.getArguments()[0];
+            AsyncHandler<EncryptRequest, EncryptResult> handler =
+                    (AsyncHandler<EncryptRequest, EncryptResult>) invocation.getArguments()[1];
+            assertEquals(cmkId, request.getKeyId());
+            handler.onSuccess(request, new EncryptResult().withCiphertextBlob(ByteBuffer.wrap(ciphertext)));
+            return null;
+        }).when(kmsAsyncClient).encryptAsync(any(EncryptRequest.class), any(AsyncHandler.class));
+
+        IamRoleAuthResponse result = authenticationService
+                .authenticateAsync(iamPrincipalCredentials, Executors.newSingleThreadExecutor())
+                .get();
+
+        assertEquals(Base64.encodeBase64String(ciphertext), result.getAuthData());
+    }
+
+    @Test
+    public void test_that_authenticateCompactAsync_compresses_auth_response_instead_of_truncating_it() throws Exception {
+        String principalArn = "arn:aws:iam::1111111111:role/role";
+        String region = "us-west-2";
+        String iamRoleId = "iam role id";
+        byte[] ciphertext = "encrypted".getBytes();
+
+        IamPrincipalCredentials iamPrincipalCredentials = new IamPrincipalCredentials();
+        iamPrincipalCredentials.setIamPrincipalArn(principalArn);
+        iamPrincipalCredentials.setRegion(region);
+
+        Set<String> policies = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            policies.add("application-safe-deposit-box-" + i + "-read");
+        }
+        VaultAuthResponse vaultAuthResponse = new VaultAuthResponse()
+                .setClientToken("vault token")
+                .setLeaseDuration(3600)
+                .setMetadata(new HashMap<>())
+                .setPolicies(policies);
+        assertTrue(objectMapper.writeValueAsBytes(vaultAuthResponse).length > AuthenticationService.KMS_SIZE_LIMIT);
+
+        when(awsIamRoleDao.getIamRole(principalArn))
+                .thenReturn(Optional.of(new AwsIamRoleRecord().setAwsIamRoleArn(principalArn).setId(iamRoleId)));
+        when(awsIamRoleDao.getKmsKey(iamRoleId, region))
+                .thenReturn(Optional.of(new AwsIamRoleKmsKeyRecord().setAwsKmsKeyId("key id")));
+        when(awsIamRoleArnParser.isRoleArn(principalArn)).thenReturn(true);
+        when(vaultAdminClient.createOrphanToken(any(VaultTokenAuthRequest.class))).thenReturn(vaultAuthResponse);
+
+        List<byte[]> plaintexts = Lists.newArrayList();
+        AWSKMSAsync kmsAsyncClient = mock(AWSKMSAsync.class);
+        when(kmsClientFactory.getAsyncClient(any(Region.class))).thenReturn(kmsAsyncClient);
+        doAnswer(invocation -> {
+            EncryptRequest request = (EncryptRequest) invocation.getArguments()[0];
+            AsyncHandler<EncryptRequest, EncryptResult> handler =
+                    (AsyncHandler<EncryptRequest, EncryptResult>) invocation.getArguments()[1];
+            plaintexts.add(request.getPlaintext().array());
+            handler.onSuccess(request, new EncryptResult().withCiphertextBlob(ByteBuffer.wrap(ciphertext)));
+            return null;
+        }).when(kmsAsyncClient).encryptAsync(any(EncryptRequest.class), any(AsyncHandler.class));
+
+        IamPrincipalAuthResponseV3 result = authenticationService
+                .authenticateCompactAsync(iamPrincipalCredentials, Executors.newSingleThreadExecutor())
+                .get();
+
+        assertEquals(Base64.encodeBase64String(ciphertext), result.getAuthData());
+        assertEquals(IamPrincipalAuthResponseV3.PAYLOAD_ENCODING_GZIP, result.getPayloadEncoding());
+        assertEquals(1, plaintexts.size());
+        assertTrue(plaintexts.get(0).length <= AuthenticationService.KMS_SIZE_LIMIT);
+
+        VaultAuthResponse decrypted = objectMapper.readValue(
+                new GZIPInputStream(new ByteArrayInputStream(plaintexts.get(0))), VaultAuthResponse.class);
+        assertEquals(policies, decrypted.getPolicies());
+    }
+
+    @Test
+    public void test_that_authenticateAsync_reuses_token_issued_within_reuse_window_until_it_is_revoked() throws Exception {
+        String principalArn = "arn:aws:iam::1111111111:role/role";
+        String region = "us-west-2";
+        String iamRoleId = "iam role id";
+        byte[] ciphertext = "encrypted".getBytes();
+
+        IamPrincipalCredentials iamPrincipalCredentials = new IamPrincipalCredentials();
+        iamPrincipalCredentials.setIamPrincipalArn(principalArn);
+        iamPrincipalCredentials.setRegion(region);
+
+        when(awsIamRoleDao.getIamRole(principalArn))
+                .thenReturn(Optional.of(new AwsIamRoleRecord().setAwsIamRoleArn(principalArn).setId(iamRoleId)));
+        when(awsIamRoleDao.getKmsKey(iamRoleId, region))
+                .thenReturn(Optional.of(new AwsIamRoleKmsKeyRecord().setAwsKmsKeyId("key id")));
+        when(awsIamRoleArnParser.isRoleArn(principalArn)).thenReturn(true);
+        when(vaultAdminClient.createOrphanToken(any(VaultTokenAuthRequest.class)))
+                .thenReturn(new VaultAuthResponse().setClientToken("vault token").setLeaseDuration(3600));
+
+        AWSKMSAsync kmsAsyncClient = mock(AWSKMSAsync.class);
+        when(kmsClientFactory.getAsyncClient(any(Region.class))).thenReturn(kmsAsyncClient);
+        doAnswer(invocation -> {
+            EncryptRequest request = (EncryptRequest) invocation.getArguments()[0];
+            AsyncHandler<EncryptRequest, EncryptResult> handler =
+                    (AsyncHandler<EncryptRequest, EncryptResult>) invocation.getArguments()[1];
+            handler.onSuccess(request, new EncryptResult().withCiphertextBlob(ByteBuffer.wrap(ciphertext)));
+            return null;
+        }).when(kmsAsyncClient).encryptAsync(any(EncryptRequest.class), any(AsyncHandler.class));
+
+        Executor executor = Executors.newSingleThreadExecutor();
+        IamRoleAuthResponse first = authenticationService.authenticateAsync(iamPrincipalCredentials, executor).get();
+        IamRoleAuthResponse second = authenticationService.authenticateAsync(iamPrincipalCredentials, executor).get();
+
+        assertEquals(first.getAuthData(), second.getAuthData());
+        verify(vaultAdminClient, times(1)).createOrphanToken(any(VaultTokenAuthRequest.class));
+        verify(kmsAsyncClient, times(1)).encryptAsync(any(EncryptRequest.class), any(AsyncHandler.class));
+
+        authenticationService.revoke("vault token");
+        authenticationService.authenticateAsync(iamPrincipalCredentials, executor).get();
+
+        verify(vaultAdminClient, times(2)).createOrphanToken(any(VaultTokenAuthRequest.class));
+    }
+
+    @Test
+    public void test_that_multi_region_authenticateAsync_creates_one_token_and_encrypts_it_for_every_region() throws Exception {
+        String principalArn = "arn:aws:iam::1111111111:role/role";
+        String iamRoleId = "iam role id";
+
+        IamPrincipalMultiRegionCredentials credentials = new IamPrincipalMultiRegionCredentials();
+        credentials.setIamPrincipalArn(principalArn);
+        credentials.setRegions(Lists.newArrayList("us-west-2", "us-east-1"));
+
+        when(awsIamRoleDao.getIamRole(principalArn))
+                .thenReturn(Optional.of(new AwsIamRoleRecord().setAwsIamRoleArn(principalArn).setId(iamRoleId)));
+        when(awsIamRoleDao.getKmsKey(iamRoleId, "us-west-2"))
+                .thenReturn(Optional.of(new AwsIamRoleKmsKeyRecord().setAwsKmsKeyId("west key")));
+        when(awsIamRoleDao.getKmsKey(iamRoleId, "us-east-1"))
+                .thenReturn(Optional.of(new AwsIamRoleKmsKeyRecord().setAwsKmsKeyId("east key")));
+        when(awsIamRoleArnParser.isRoleArn(principalArn)).thenReturn(true);
+        when(vaultAdminClient.createOrphanToken(any(VaultTokenAuthRequest.class)))
+                .thenReturn(new VaultAuthResponse().setClientToken("vault token"));
+
+        AWSKMSAsync kmsAsyncClient = mock(AWSKMSAsync.class);
+        when(kmsClientFactory.getAsyncClient(any(Region.class))).thenReturn(kmsAsyncClient);
+        doAnswer(invocation -> {
+            EncryptRequest request = (EncryptRequest) invocation.getArguments()[0];
+            AsyncHandler<EncryptRequest, EncryptResult> handler =
+                    (AsyncHandler<EncryptRequest, EncryptResult>) invocation.getArguments()[1];
+            handler.onSuccess(request, new EncryptResult().withCiphertextBlob(ByteBuffer.wrap(request.getKeyId().getBytes())));
+            return null;
+        }).when(kmsAsyncClient).encryptAsync(any(EncryptRequest.class), any(AsyncHandler.class));
+
+        IamPrincipalMultiRegionAuthResponse result = authenticationService
+                .authenticateAsync(credentials, Executors.newFixedThreadPool(2))
+                .get();
+
+        assertEquals(Base64.encodeBase64String("west key".getBytes()), result.getAuthData().get("us-west-2"));
+        assertEquals(Base64.encodeBase64String("east key".getBytes()), result.getAuthData().get("us-east-1"));
+        verify(vaultAdminClient, times(1)).createOrphanToken(any(VaultTokenAuthRequest.class));
+    }
+
+    @Test
+    public void test_that_multi_region_authenticateAsync_does_not_create_token_for_unknown_principal() throws Exception {
+        String principalArn = "arn:aws:iam::1111111111:role/unknown";
+
+        IamPrincipalMultiRegionCredentials credentials = new IamPrincipalMultiRegionCredentials();
+        credentials.setIamPrincipalArn(principalArn);
+        credentials.setRegions(Lists.newArrayList("us-west-2", "us-east-1"));
+
+        when(awsIamRoleDao.getIamRole(principalArn)).thenReturn(Optional.empty());
+        when(awsIamRoleArnParser.isRoleArn(principalArn)).thenReturn(true);
+
+        try {
+            authenticationService.authenticateAsync(credentials, Executors.newFixedThreadPool(2)).get();
+            fail("expected the authentication to fail");
+        } catch (ExecutionException e) {
+            assertEquals(ApiException.class, e.getCause().getClass());
+        }
+
+        verify(vaultAdminClient, never()).createOrphanToken(any(VaultTokenAuthRequest.class));
+    }
+
+    @Test
+    public void test_that_multi_region_authenticateAsync_rejects_null_region() throws Exception {
+        IamPrincipalMultiRegionCredentials credentials = new IamPrincipalMultiRegionCredentials();
+        credentials.setIamPrincipalArn("arn:aws:iam::1111111111:role/role");
+        credentials.setRegions(Lists.newArrayList("us-west-2", null));
+
+        try {
+            authenticationService.authenticateAsync(credentials, Executors.newFixedThreadPool(2));
+            fail("expected the authentication to be rejected");
+        } catch (ApiException e) {
+            assertTrue(e.getApiErrors().contains(DefaultApiError.AUTHENTICATION_ERROR_INVALID_REGION));
+        }
+
+        verify(vaultAdminClient, never()).createOrphanToken(any(VaultTokenAuthRequest.class));
+    }
+
+    @Test
+    public void test_that_authenticateAsync_creates_vault_token_for_authenticated_user() throws Exception {
+        String username = "username";
+        AuthData authData = new AuthData().setUserId("user id").setUsername(username);
+        AuthResponse authResponse = new AuthResponse().setStatus(AuthStatus.SUCCESS).setData(authData);
+        VaultAuthResponse vaultAuthResponse = new VaultAuthResponse().setClientToken("vault token");
+
+        when(authConnector.authenticateAsync(any(String.class), any(String.class), any(Executor.class)))
+                .thenReturn(CompletableFuture.completedFuture(authResponse));
+        when(authConnector.getGroupsAsync(any(AuthData.class), any(Executor.class)))
+                .thenReturn(CompletableFuture.<Set<String>>completedFuture(Sets.newLinkedHashSet("group")));
+        when(vaultAdminClient.createOrphanToken(any(VaultTokenAuthRequest.class))).thenReturn(vaultAuthResponse);
+
+        AuthResponse result = authenticationService
+                .authenticateAsync(new UserCredentials(username, "password".getBytes()), Executors.newSingleThreadExecutor())
+                .get();
+
+        assertEquals(vaultAuthResponse, result.getData().getClientToken());
+    }
+
+    @Test
+    public void test_that_authenticateAsync_does_not_create_vault_token_when_mfa_is_required() throws Exception {
+        AuthResponse authResponse = new AuthResponse().setStatus(AuthStatus.MFA_REQUIRED).setData(new AuthData());
+
+        when(authConnector.authenticateAsync(any(String.class), any(String.class), any(Executor.class)))
+                .thenReturn(CompletableFuture.completedFuture(authResponse));
+
+        AuthResponse result = authenticationService
+                .authenticateAsync(new UserCredentials("username", "password".getBytes()), Executors.newSingleThreadExecutor())
+                .get();
+
+        assertEquals(authResponse, result);
+        verify(vaultAdminClient, never()).createOrphanToken(any(VaultTokenAuthRequest.class));
+    }
+
+    @Test
+    public void test_that_revoke_evicts_token_from_lookup_cache() {
+        String token = "vault token";
+
+        authenticationService.revoke(token);
+
+        InOrder inOrder = inOrder(vaultTokenLookupCache, vaultAdminClient);
+        inOrder.verify(vaultTokenLookupCache).evict(token);
+        inOrder.verify(vaultAdminClient).revokeOrphanToken(token);
+        inOrder.verify(vaultTokenLookupCache).evict(token);
+    }
+
+    @Test
+    public void test_that_refreshUserToken_revokes_old_token_in_background() {
+        Map<String, String> meta = new HashMap<>();
+        meta.put(VaultAuthPrincipal.METADATA_KEY_USERNAME, "username");
+        meta.put(VaultAuthPrincipal.METADATA_KEY_GROUPS, "group1,group2");
+        VaultAuthPrincipal authPrincipal = new VaultAuthPrincipal(new VaultClientTokenResponse().setId("old token").setMeta(meta));
+        VaultAuthResponse newToken = new VaultAuthResponse().setClientToken("new token");
+        when(vaultAdminClient.createOrphanToken(any(VaultTokenAuthRequest.class))).thenReturn(newToken);
+
+        AuthResponse result = authenticationService.refreshUserToken(authPrincipal);
+
+        assertEquals(newToken, result.getData().getClientToken());
+        verify(vaultTokenLookupCache, timeout(5000).times(2)).evict("old token");
+        verify(vaultAdminClient, timeout(5000)).revokeOrphanToken("old token");
+    }
+
+    @Test
+    public void test_that_renewToken_caps_increment_at_max_lifetime_and_evicts_token_from_lookup_cache() {
+        String token = "vault token";
+        OffsetDateTime now = OffsetDateTime.of(2017, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        when(dateTimeSupplier.get()).thenReturn(now);
+        authenticationService.tokenRenewalMaxTtlInSeconds = 7200;
+        authenticationService.tokenRenewalIncrementInSeconds = 3600;
+
+        Map<String, String> meta = new HashMap<>();
+        meta.put(VaultAuthPrincipal.METADATA_KEY_ISSUED_AT, String.valueOf(now.minusMinutes(90).toEpochSecond()));
+        VaultAuthPrincipal authPrincipal = new VaultAuthPrincipal(new VaultClientTokenResponse().setId(token).setMeta(meta)
+                .setPolicies(Sets.newLinkedHashSet(LOOKUP_SELF_POLICY)));
+        VaultAuthResponse renewed = new VaultAuthResponse().setClientToken(token).setLeaseDuration(1800);
+        when(vaultTokenRenewalClient.renewToken(token, 1800)).thenReturn(renewed);
+
+        VaultAuthResponse result = authenticationService.renewToken(authPrincipal);
+
+        assertEquals(renewed, result);
+        verify(vaultTokenLookupCache).evict(token);
+    }
+
+    @Test
+    public void test_that_renewToken_fails_once_max_lifetime_is_reached() {
+        OffsetDateTime now = OffsetDateTime.of(2017, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        when(dateTimeSupplier.get()).thenReturn(now);
+        authenticationService.tokenRenewalMaxTtlInSeconds = 7200;
+
+        Map<String, String> meta = new HashMap<>();
+        meta.put(VaultAuthPrincipal.METADATA_KEY_ISSUED_AT, String.valueOf(now.minusHours(2).toEpochSecond()));
+        VaultAuthPrincipal authPrincipal = new VaultAuthPrincipal(new VaultClientTokenResponse().setId("vault token").setMeta(meta));
+
+        try {
+            authenticationService.renewToken(authPrincipal);
+            fail("expected renewal to be refused");
+        } catch (ApiException e) {
+            assertTrue(e.getApiErrors().contains(DefaultApiError.AUTH_VAULT_TOKEN_RENEWAL_LIMIT_REACHED));
+        }
+        verify(vaultTokenRenewalClient, never()).renewToken(anyString(), anyLong());
+    }
+
+    @Test
+    public void test_that_renewToken_refuses_tokens_whose_policies_changed_since_issued() {
+        String roleArn = String.format(AWS_IAM_ROLE_ARN_TEMPLATE, "0000000000", "role/path");
+        OffsetDateTime now = OffsetDateTime.of(2017, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+        when(dateTimeSupplier.get()).thenReturn(now);
+        when(awsIamRoleArnParser.isRoleArn(roleArn)).thenReturn(true);
+        when(safeDepositBoxDao.getIamRoleAssociatedSafeDepositBoxRoles(roleArn)).thenReturn(Lists.newArrayList());
+
+        Map<String, String> meta = new HashMap<>();
+        meta.put(VaultAuthPrincipal.METADATA_KEY_ISSUED_AT, String.valueOf(now.minusMinutes(30).toEpochSecond()));
+        meta.put(VaultAuthPrincipal.METADATA_KEY_AWS_IAM_PRINCIPAL_ARN, roleArn);
+        VaultAuthPrincipal authPrincipal = new VaultAuthPrincipal(new VaultClientTokenResponse().setId("vault token")
+                .setMeta(meta).setPolicies(Sets.newLinkedHashSet("removed-sdb-read", LOOKUP_SELF_POLICY)));
+
+        try {
+            authenticationService.renewToken(authPrincipal);
+            fail("expected renewal to be refused");
+        } catch (ApiException e) {
+            assertTrue(e.getApiErrors().contains(DefaultApiError.AUTH_VAULT_TOKEN_PERMISSIONS_CHANGED));
+        }
+        verify(vaultTokenRenewalClient, never()).renewToken(anyString(), anyLong());
+    }
+
+    @Test
+    public void test_that_renewToken_refuses_tokens_not_issued_by_cms() {
+        VaultAuthPrincipal authPrincipal = new VaultAuthPrincipal(new VaultClientTokenResponse().setId("root token"));
+
+        try {
+            authenticationService.renewToken(authPrincipal);
+            fail("expected renewal to be refused");
+        } catch (ApiException e) {
+            assertTrue(e.getApiErrors().contains(DefaultApiError.AUTH_VAULT_TOKEN_NOT_RENEWABLE));
+        }
+    }
+}
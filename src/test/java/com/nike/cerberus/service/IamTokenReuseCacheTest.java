@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.service;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import com.nike.cerberus.security.VaultAuthPrincipal;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IamTokenReuseCacheTest {
+
+    private static final String ARN = "arn:aws:iam::1111111111:role/role";
+
+    private static final String FORMAT = "PRETTY_JSON";
+
+    private static final Map<String, String> METADATA = ImmutableMap.of(
+            VaultAuthPrincipal.METADATA_KEY_USERNAME, ARN,
+            VaultAuthPrincipal.METADATA_KEY_ISSUED_AT, "1483272000");
+
+    private final byte[] ciphertext = "encrypted".getBytes();
+
+    private IamTokenReuseCache subject;
+
+    @Before
+    public void setUp() throws Exception {
+        subject = new IamTokenReuseCache(new CodahaleMetricsCollector(), true, 10, 60);
+    }
+
+    @Test
+    public void test_that_buildKey_ignores_issued_at_metadata() {
+        final Map<String, String> laterMetadata = ImmutableMap.of(
+                VaultAuthPrincipal.METADATA_KEY_USERNAME, ARN,
+                VaultAuthPrincipal.METADATA_KEY_ISSUED_AT, "1483275600");
+
+        assertThat(subject.buildKey(ARN, "us-west-2", "key id", Sets.newHashSet("a", "b"), METADATA, FORMAT))
+                .isEqualTo(subject.buildKey(ARN, "us-west-2", "key id", Sets.newHashSet("b", "a"), laterMetadata, FORMAT));
+    }
+
+    @Test
+    public void test_that_buildKey_differs_by_policy_set_region_and_payload_format() {
+        final String key = subject.buildKey(ARN, "us-west-2", "key id", Sets.newHashSet("a", "b"), METADATA, FORMAT);
+
+        assertThat(subject.buildKey(ARN, "us-west-2", "key id", Sets.newHashSet("ab"), METADATA, FORMAT)).isNotEqualTo(key);
+        assertThat(subject.buildKey(ARN, "us-east-1", "key id", Sets.newHashSet("a", "b"), METADATA, FORMAT)).isNotEqualTo(key);
+        assertThat(subject.buildKey(ARN, "us-west-2", "key id", Sets.newHashSet("a", "b"), METADATA, "GZIP_JSON")).isNotEqualTo(key);
+    }
+
+    @Test
+    public void test_that_token_is_reused_until_it_is_evicted() {
+        final String key = subject.buildKey(ARN, "us-west-2", "key id", Sets.newHashSet("a"), METADATA, FORMAT);
+        subject.putEncryptedAuthResponse(key, "vault token", 3600, ciphertext);
+
+        assertThat(subject.getEncryptedAuthResponse(key)).contains(ciphertext);
+
+        subject.evictToken("vault token");
+
+        assertThat(subject.getEncryptedAuthResponse(key)).isEmpty();
+    }
+
+    @Test
+    public void test_that_token_is_not_reused_past_a_tenth_of_its_lease() throws Exception {
+        final String key = subject.buildKey(ARN, "us-west-2", "key id", Sets.newHashSet("a"), METADATA, FORMAT);
+        subject.putEncryptedAuthResponse(key, "vault token", 1, ciphertext);
+
+        Thread.sleep(150);
+
+        assertThat(subject.getEncryptedAuthResponse(key)).isEmpty();
+    }
+
+    @Test
+    public void test_that_nothing_is_reused_when_disabled() {
+        subject = new IamTokenReuseCache(new CodahaleMetricsCollector(), false, 10, 60);
+        final String key = subject.buildKey(ARN, "us-west-2", "key id", Sets.newHashSet("a"), METADATA, FORMAT);
+        subject.putEncryptedAuthResponse(key, "vault token", 3600, ciphertext);
+
+        assertThat(subject.getEncryptedAuthResponse(key)).isEmpty();
+    }
+}
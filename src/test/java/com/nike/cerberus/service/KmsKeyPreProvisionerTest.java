@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.service;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.nike.cerberus.dao.AwsIamRoleDao;
+import com.nike.cerberus.record.AwsIamRoleKmsKeyRecord;
+import com.nike.cerberus.record.AwsIamRolePermissionRecord;
+import com.nike.cerberus.record.AwsIamRoleRecord;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class KmsKeyPreProvisionerTest {
+
+    private final String safeDepositBoxId = "sdb id";
+
+    private final String iamRoleId = "iam role id";
+
+    private final String iamPrincipalArn = "arn:aws:iam::1111111111:role/role";
+
+    private KmsKeyProvisioningService kmsKeyProvisioningService;
+
+    private AwsIamRoleDao awsIamRoleDao;
+
+    @Before
+    public void setUp() throws Exception {
+        kmsKeyProvisioningService = mock(KmsKeyProvisioningService.class);
+        awsIamRoleDao = mock(AwsIamRoleDao.class);
+
+        when(awsIamRoleDao.getIamRole(iamPrincipalArn)).thenReturn(Optional.of(new AwsIamRoleRecord().setId(iamRoleId)));
+        when(awsIamRoleDao.getIamRolePermissions(safeDepositBoxId))
+                .thenReturn(ImmutableList.of(new AwsIamRolePermissionRecord().setAwsIamRoleId(iamRoleId)));
+        when(awsIamRoleDao.getKmsKey(anyString(), anyString())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    public void test_that_schedulePreProvisioning_provisions_key_in_each_configured_region() {
+        final KmsKeyPreProvisioner subject = new KmsKeyPreProvisioner(kmsKeyProvisioningService, awsIamRoleDao,
+                new CodahaleMetricsCollector(), "us-west-2, us-east-1", 3, 0);
+
+        subject.schedulePreProvisioning(safeDepositBoxId, ImmutableSet.of(iamPrincipalArn));
+
+        verify(kmsKeyProvisioningService, timeout(5000)).getOrProvisionKmsKey(iamRoleId, iamPrincipalArn, "us-west-2");
+        verify(kmsKeyProvisioningService, timeout(5000)).getOrProvisionKmsKey(iamRoleId, iamPrincipalArn, "us-east-1");
+    }
+
+    @Test
+    public void test_that_schedulePreProvisioning_retries_failed_provisioning() {
+        when(kmsKeyProvisioningService.getOrProvisionKmsKey(iamRoleId, iamPrincipalArn, "us-west-2"))
+                .thenThrow(new IllegalStateException("KMS unavailable"))
+                .thenReturn("kms key arn");
+        final KmsKeyPreProvisioner subject = new KmsKeyPreProvisioner(kmsKeyProvisioningService, awsIamRoleDao,
+                new CodahaleMetricsCollector(), "us-west-2", 3, 0);
+
+        subject.schedulePreProvisioning(safeDepositBoxId, ImmutableSet.of(iamPrincipalArn));
+
+        verify(kmsKeyProvisioningService, timeout(5000).times(2)).getOrProvisionKmsKey(iamRoleId, iamPrincipalArn, "us-west-2");
+    }
+
+    @Test
+    public void test_that_schedulePreProvisioning_does_not_provision_key_when_permission_no_longer_exists() throws Exception {
+        when(awsIamRoleDao.getIamRolePermissions(safeDepositBoxId)).thenReturn(ImmutableList.of());
+        final KmsKeyPreProvisioner subject = new KmsKeyPreProvisioner(kmsKeyProvisioningService, awsIamRoleDao,
+                new CodahaleMetricsCollector(), "us-west-2", 3, 0);
+
+        subject.schedulePreProvisioning(safeDepositBoxId, ImmutableSet.of(iamPrincipalArn));
+
+        verify(awsIamRoleDao, timeout(5000)).getIamRolePermissions(safeDepositBoxId);
+        Thread.sleep(100);
+        verify(kmsKeyProvisioningService, never()).getOrProvisionKmsKey(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void test_that_schedulePreProvisioning_does_not_provision_key_when_role_does_not_exist() throws Exception {
+        when(awsIamRoleDao.getIamRole(iamPrincipalArn)).thenReturn(Optional.empty());
+        final KmsKeyPreProvisioner subject = new KmsKeyPreProvisioner(kmsKeyProvisioningService, awsIamRoleDao,
+                new CodahaleMetricsCollector(), "us-west-2", 3, 0);
+
+        subject.schedulePreProvisioning(safeDepositBoxId, ImmutableSet.of(iamPrincipalArn));
+
+        verify(awsIamRoleDao, timeout(5000)).getIamRole(iamPrincipalArn);
+        Thread.sleep(100);
+        verify(kmsKeyProvisioningService, never()).getOrProvisionKmsKey(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void test_that_schedulePreProvisioning_skips_existing_keys() throws Exception {
+        when(awsIamRoleDao.getKmsKey(iamRoleId, "us-west-2")).thenReturn(Optional.of(new AwsIamRoleKmsKeyRecord()));
+        final KmsKeyPreProvisioner subject = new KmsKeyPreProvisioner(kmsKeyProvisioningService, awsIamRoleDao,
+                new CodahaleMetricsCollector(), "us-west-2", 3, 0);
+
+        subject.schedulePreProvisioning(safeDepositBoxId, ImmutableSet.of(iamPrincipalArn));
+
+        verify(awsIamRoleDao, timeout(5000)).getKmsKey(iamRoleId, "us-west-2");
+        Thread.sleep(100);
+        verify(kmsKeyProvisioningService, never()).getOrProvisionKmsKey(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void test_that_schedulePreProvisioning_does_nothing_when_no_regions_are_configured() throws Exception {
+        final KmsKeyPreProvisioner subject = new KmsKeyPreProvisioner(kmsKeyProvisioningService, awsIamRoleDao,
+                new CodahaleMetricsCollector(), "", 3, 0);
+
+        subject.schedulePreProvisioning(safeDepositBoxId, ImmutableSet.of(iamPrincipalArn));
+        Thread.sleep(100);
+
+        verify(kmsKeyProvisioningService, never()).getOrProvisionKmsKey(anyString(), anyString(), anyString());
+    }
+}
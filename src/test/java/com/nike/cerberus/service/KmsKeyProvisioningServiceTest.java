@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.service;
+
+import com.nike.cerberus.dao.AwsIamRoleDao;
+import com.nike.cerberus.record.AwsIamRoleKmsKeyRecord;
+import com.nike.cerberus.util.DateTimeSupplier;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.nike.cerberus.service.AuthenticationService.SYSTEM_USER;
+import static com.nike.cerberus.service.KmsKeyProvisioningService.METRIC_PROVISIONING_COALESCED;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class KmsKeyProvisioningServiceTest {
+
+    private final String iamRoleId = "iam role id";
+
+    private final String iamPrincipalArn = "arn:aws:iam::1111111111:role/role";
+
+    private final String awsRegion = "us-west-2";
+
+    private final String kmsKeyArn = "kms key arn";
+
+    private final OffsetDateTime now = OffsetDateTime.now();
+
+    private KmsService kmsService;
+
+    private AwsIamRoleDao awsIamRoleDao;
+
+    private DateTimeSupplier dateTimeSupplier;
+
+    private CodahaleMetricsCollector metricsCollector;
+
+    private KmsKeyProvisioningService subject;
+
+    @Before
+    public void setUp() throws Exception {
+        kmsService = mock(KmsService.class);
+        awsIamRoleDao = mock(AwsIamRoleDao.class);
+        dateTimeSupplier = mock(DateTimeSupplier.class);
+        metricsCollector = new CodahaleMetricsCollector();
+        when(dateTimeSupplier.get()).thenReturn(now);
+        when(awsIamRoleDao.getKmsKey(iamRoleId, awsRegion)).thenReturn(Optional.empty());
+
+        subject = new KmsKeyProvisioningService(kmsService, awsIamRoleDao,
+                new KmsKeyRecordCache(metricsCollector, true, 10, 60), dateTimeSupplier, metricsCollector);
+    }
+
+    @Test
+    public void test_that_getOrProvisionKmsKey_provisions_key_when_none_exists() {
+        when(kmsService.provisionKmsKey(anyString(), anyString(), anyString(), anyString(), any(OffsetDateTime.class)))
+                .thenReturn(kmsKeyArn);
+
+        assertThat(subject.getOrProvisionKmsKey(iamRoleId, iamPrincipalArn, awsRegion)).isEqualTo(kmsKeyArn);
+
+        verify(kmsService).provisionKmsKey(iamRoleId, iamPrincipalArn, awsRegion, SYSTEM_USER, now);
+    }
+
+    @Test
+    public void test_that_getOrProvisionKmsKey_returns_existing_key_without_provisioning() {
+        when(awsIamRoleDao.getKmsKey(iamRoleId, awsRegion))
+                .thenReturn(Optional.of(new AwsIamRoleKmsKeyRecord().setAwsKmsKeyId(kmsKeyArn)));
+
+        assertThat(subject.getOrProvisionKmsKey(iamRoleId, iamPrincipalArn, awsRegion)).isEqualTo(kmsKeyArn);
+
+        verify(kmsService, never()).provisionKmsKey(anyString(), anyString(), anyString(), anyString(), any(OffsetDateTime.class));
+    }
+
+    @Test
+    public void test_that_getOrProvisionKmsKey_returns_key_of_node_that_won_provisioning_race() {
+        when(kmsService.provisionKmsKey(anyString(), anyString(), anyString(), anyString(), any(OffsetDateTime.class)))
+                .thenThrow(new RuntimeException(new SQLIntegrityConstraintViolationException("Duplicate entry")));
+        when(awsIamRoleDao.getKmsKey(iamRoleId, awsRegion))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(new AwsIamRoleKmsKeyRecord().setAwsKmsKeyId(kmsKeyArn)));
+
+        assertThat(subject.getOrProvisionKmsKey(iamRoleId, iamPrincipalArn, awsRegion)).isEqualTo(kmsKeyArn);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void test_that_getOrProvisionKmsKey_rethrows_other_provisioning_failures() {
+        when(kmsService.provisionKmsKey(anyString(), anyString(), anyString(), anyString(), any(OffsetDateTime.class)))
+                .thenThrow(new IllegalStateException("boom"));
+
+        subject.getOrProvisionKmsKey(iamRoleId, iamPrincipalArn, awsRegion);
+    }
+
+    @Test
+    public void test_that_concurrent_provisioning_of_same_key_is_coalesced() throws Exception {
+        final CountDownLatch provisioningStarted = new CountDownLatch(1);
+        final CountDownLatch releaseProvisioning = new CountDownLatch(1);
+        when(kmsService.provisionKmsKey(anyString(), anyString(), anyString(), anyString(), any(OffsetDateTime.class)))
+                .thenAnswer(invocation -> {
+                    provisioningStarted.countDown();
+                    releaseProvisioning.await();
+                    return kmsKeyArn;
+                });
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        final Future<String> first = executor.submit(() -> subject.getOrProvisionKmsKey(iamRoleId, iamPrincipalArn, awsRegion));
+        provisioningStarted.await();
+        final Future<String> second = executor.submit(() -> subject.getOrProvisionKmsKey(iamRoleId, iamPrincipalArn, awsRegion));
+        while (metricsCollector.getMetricRegistry().counter(METRIC_PROVISIONING_COALESCED).getCount() == 0) {
+            Thread.sleep(5);
+        }
+        releaseProvisioning.countDown();
+
+        assertThat(first.get()).isEqualTo(kmsKeyArn);
+        assertThat(second.get()).isEqualTo(kmsKeyArn);
+        verify(kmsService, times(1)).provisionKmsKey(anyString(), anyString(), anyString(), anyString(), any(OffsetDateTime.class));
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.service;
+
+import com.nike.cerberus.record.AwsIamRoleKmsKeyRecord;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class KmsPolicyValidationSchedulerTest {
+
+    private final String iamPrincipalArn = "arn:aws:iam::1111111111:role/role";
+
+    private KmsService kmsService;
+
+    private AwsIamRoleKmsKeyRecord kmsKeyRecord;
+
+    @Before
+    public void setUp() throws Exception {
+        kmsService = mock(KmsService.class);
+        kmsKeyRecord = new AwsIamRoleKmsKeyRecord()
+                .setAwsIamRoleId("role id")
+                .setAwsRegion("us-west-2")
+                .setAwsKmsKeyId("key id");
+    }
+
+    @Test
+    public void test_that_validatePolicy_validates_inline_when_background_validation_is_disabled() {
+        final KmsPolicyValidationScheduler subject =
+                new KmsPolicyValidationScheduler(kmsService, new CodahaleMetricsCollector(), false, 1, 10, 10, 10);
+
+        subject.validatePolicy(kmsKeyRecord, iamPrincipalArn);
+
+        verify(kmsService).validatePolicy(kmsKeyRecord, iamPrincipalArn);
+    }
+
+    @Test
+    public void test_that_validatePolicy_validates_in_background_when_enabled() {
+        when(kmsService.kmsPolicyNeedsValidation(kmsKeyRecord)).thenReturn(true);
+        final KmsPolicyValidationScheduler subject =
+                new KmsPolicyValidationScheduler(kmsService, new CodahaleMetricsCollector(), true, 1, 10, 10, 10);
+
+        subject.validatePolicy(kmsKeyRecord, iamPrincipalArn);
+
+        verify(kmsService, timeout(5000)).validatePolicy(kmsKeyRecord, iamPrincipalArn);
+    }
+
+    @Test
+    public void test_that_validatePolicy_does_not_queue_keys_that_are_not_due() throws Exception {
+        when(kmsService.kmsPolicyNeedsValidation(kmsKeyRecord)).thenReturn(false);
+        final KmsPolicyValidationScheduler subject =
+                new KmsPolicyValidationScheduler(kmsService, new CodahaleMetricsCollector(), true, 1, 10, 10, 10);
+
+        subject.validatePolicy(kmsKeyRecord, iamPrincipalArn);
+        Thread.sleep(100);
+
+        verify(kmsService, never()).validatePolicy(kmsKeyRecord, iamPrincipalArn);
+    }
+}
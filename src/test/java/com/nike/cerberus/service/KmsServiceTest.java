@@ -9,14 +9,17 @@ import com.nike.cerberus.dao.AwsIamRoleDao;
 import com.nike.cerberus.record.AwsIamRoleKmsKeyRecord;
 import com.nike.cerberus.util.DateTimeSupplier;
 import com.nike.cerberus.util.UuidSupplier;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
 public class KmsServiceTest {
@@ -37,7 +40,8 @@ public class KmsServiceTest {
         kmsPolicyService = mock(KmsPolicyService.class);
         dateTimeSupplier = mock(DateTimeSupplier.class);
 
-        kmsService = new KmsService(awsIamRoleDao, uuidSupplier, kmsClientFactory, kmsPolicyService, dateTimeSupplier);
+        kmsService = new KmsService(awsIamRoleDao, uuidSupplier, kmsClientFactory, kmsPolicyService, dateTimeSupplier,
+                new KmsKeyRecordCache(new CodahaleMetricsCollector(), true, 10, 60));
     }
 
     @Test
@@ -93,6 +97,38 @@ public class KmsServiceTest {
         verify(awsIamRoleDao).createIamRoleKmsKey(awsIamRoleKmsKeyRecord);
     }
 
+    @Test
+    public void test_provisionKmsKey_schedules_deletion_of_unused_key_when_record_already_exists() {
+
+        String iamRoleId = "role-id";
+        String awsRegion = "aws-region";
+        String arn = "arn";
+        String awsIamRoleKmsKeyId = "awsIamRoleKmsKeyId";
+
+        when(uuidSupplier.get()).thenReturn(awsIamRoleKmsKeyId);
+        AWSKMSClient client = mock(AWSKMSClient.class);
+        when(kmsClientFactory.getClient(awsRegion)).thenReturn(client);
+
+        CreateKeyResult createKeyResult = mock(CreateKeyResult.class);
+        KeyMetadata metadata = mock(KeyMetadata.class);
+        when(metadata.getArn()).thenReturn(arn);
+        when(createKeyResult.getKeyMetadata()).thenReturn(metadata);
+        when(client.createKey(any(CreateKeyRequest.class))).thenReturn(createKeyResult);
+
+        RuntimeException duplicateKey = new RuntimeException(new SQLIntegrityConstraintViolationException("Duplicate entry"));
+        doThrow(duplicateKey).when(awsIamRoleDao).createIamRoleKmsKey(any(AwsIamRoleKmsKeyRecord.class));
+
+        try {
+            kmsService.provisionKmsKey(iamRoleId, arn, awsRegion, "user", OffsetDateTime.now());
+            fail("expected exception");
+        } catch (RuntimeException e) {
+            assertEquals(duplicateKey, e);
+        }
+
+        verify(client).deleteAlias(new DeleteAliasRequest().withAliasName(kmsService.getAliasName(awsIamRoleKmsKeyId)));
+        verify(client).scheduleKeyDeletion(new ScheduleKeyDeletionRequest().withKeyId(arn).withPendingWindowInDays(7));
+    }
+
     @Test
     public void test_getAliasName() {
         assertEquals("alias/cerberus/foo", kmsService.getAliasName("foo"));
@@ -17,6 +17,7 @@
 package com.nike.cerberus.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nike.backstopper.exception.ApiException;
 import com.nike.cerberus.domain.IamPrincipalPermission;
 import com.nike.cerberus.domain.Role;
 import com.nike.cerberus.domain.SDBMetadata;
@@ -35,6 +36,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.time.OffsetDateTime;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -43,6 +45,8 @@ import java.util.Optional;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
@@ -69,6 +73,9 @@ public class MetadataServiceTest {
     @Mock
     private UuidSupplier uuidSupplier;
 
+    @Mock
+    private SafeDepositBoxChangeService safeDepositBoxChangeService;
+
     @Before
     public void before() {
         initMocks(this);
@@ -116,6 +123,58 @@ public class MetadataServiceTest {
         assertEquals("expected total sdbs to equal the sdb total count", totalSDBs, actual.getTotalSDBCount());
     }
 
+    @Test
+    public void test_that_get_sdb_metadata_with_blank_cursor_returns_first_page_and_next_cursor() {
+        int limit = 2;
+        SafeDepositBoxV2 first = buildSdb("1", "2017-01-03T00:00:00Z");
+        SafeDepositBoxV2 second = buildSdb("2", "2017-01-02T00:00:00Z");
+        SafeDepositBoxV2 third = buildSdb("3", "2017-01-01T00:00:00Z");
+        when(safeDepositBoxService.getSafeDepositBoxes(limit + 1, 0)).thenReturn(Arrays.asList(first, second, third));
+
+        SDBMetadataResult actual = metadataService.getSDBMetadata(limit, "");
+
+        assertEquals("expected actual limit to be passed in limit", limit, actual.getLimit());
+        assertEquals("expected there to be another page of results", true, actual.isHasNext());
+        assertEquals("expected the extra sdb to be left out", 2, actual.getSdbCountInResult());
+        assertNotNull("expected a next cursor", actual.getNextCursor());
+        verify(safeDepositBoxService, times(0)).getTotalNumberOfSafeDepositBoxes();
+    }
+
+    @Test
+    public void test_that_get_sdb_metadata_with_cursor_pages_after_the_last_sdb_of_the_previous_page() {
+        int limit = 1;
+        SafeDepositBoxV2 first = buildSdb("1", "2017-01-03T00:00:00Z");
+        SafeDepositBoxV2 second = buildSdb("2", "2017-01-02T00:00:00Z");
+        when(safeDepositBoxService.getSafeDepositBoxes(limit + 1, 0)).thenReturn(Arrays.asList(first, second));
+        String cursor = metadataService.getSDBMetadata(limit, "").getNextCursor();
+
+        when(safeDepositBoxService.getSafeDepositBoxesAfter(limit + 1, first.getCreatedTs(), first.getId()))
+                .thenReturn(Collections.singletonList(second));
+
+        SDBMetadataResult actual = metadataService.getSDBMetadata(limit, cursor);
+
+        assertEquals("expected there to be no more pages", false, actual.isHasNext());
+        assertNull("expected no next cursor on the last page", actual.getNextCursor());
+        assertEquals("expected the sdb count to equal 1", 1, actual.getSdbCountInResult());
+        assertEquals("expected the sdb after the cursor", second.getName(),
+                actual.getSafeDepositBoxMetadata().get(0).getName());
+    }
+
+    @Test(expected = ApiException.class)
+    public void test_that_get_sdb_metadata_throws_on_invalid_cursor() {
+        metadataService.getSDBMetadata(1, "not-a-cursor");
+    }
+
+    private SafeDepositBoxV2 buildSdb(String id, String createdTs) {
+        SafeDepositBoxV2 sdb = new SafeDepositBoxV2();
+        sdb.setId(id);
+        sdb.setName("sdb " + id);
+        sdb.setCreatedTs(OffsetDateTime.parse(createdTs));
+        sdb.setUserGroupPermissions(new HashSet<>());
+        sdb.setIamPrincipalPermissions(new HashSet<>());
+        return sdb;
+    }
+
     @Test
     public void test_that_get_sdb_metadata_list_returns_valid_list() {
         String sdbId = "123";
@@ -239,6 +298,6 @@ public class MetadataServiceTest {
         expectedSdb.setUserGroupPermissions(userPerms);
         expectedSdb.setIamPrincipalPermissions(iamPerms);
 
-        verify(safeDepositBoxService, times(1)).restoreSafeDepositBox(expectedSdb, user);
+        verify(safeDepositBoxChangeService, times(1)).restoreSafeDepositBox(expectedSdb, user);
     }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.service;
+
+import com.google.common.collect.Sets;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PolicySetCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Supplier<Set<String>> policySetLoader = () -> {
+        loads.incrementAndGet();
+        return Sets.newHashSet("lookup-self", "app-sdb-read");
+    };
+
+    private PolicySetCache subject;
+
+    @Before
+    public void setUp() throws Exception {
+        subject = new PolicySetCache(new CodahaleMetricsCollector(), true, 10, 60);
+    }
+
+    @Test
+    public void test_that_getUserGroupPolicies_shares_entry_between_equal_group_sets() {
+        assertThat(subject.getUserGroupPolicies(Sets.newLinkedHashSet(Sets.newHashSet("a", "b")), policySetLoader))
+                .containsOnly("lookup-self", "app-sdb-read");
+        assertThat(subject.getUserGroupPolicies(Sets.newTreeSet(Sets.newHashSet("b", "a")), policySetLoader))
+                .containsOnly("lookup-self", "app-sdb-read");
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void test_that_getUserGroupPolicies_does_not_share_entry_between_different_group_sets() {
+        subject.getUserGroupPolicies(Sets.newHashSet("ab"), policySetLoader);
+        subject.getUserGroupPolicies(Sets.newHashSet("a", "b"), policySetLoader);
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void test_that_invalidateAll_drops_user_group_policy_sets() {
+        subject.getUserGroupPolicies(Sets.newHashSet("a"), policySetLoader);
+        subject.invalidateAll();
+        subject.getUserGroupPolicies(Sets.newHashSet("a"), policySetLoader);
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void test_that_invalidateIamPrincipalPolicies_drops_only_iam_principal_policy_sets() {
+        subject.getIamPrincipalPolicies("arn:aws:iam::1111111111:role/role", policySetLoader);
+        subject.getUserGroupPolicies(Sets.newHashSet("a"), policySetLoader);
+        subject.invalidateIamPrincipalPolicies();
+        subject.getIamPrincipalPolicies("arn:aws:iam::1111111111:role/role", policySetLoader);
+        subject.getUserGroupPolicies(Sets.newHashSet("a"), policySetLoader);
+
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void test_that_invalidateUserGroupPolicies_drops_only_user_group_policy_sets() {
+        subject.getIamPrincipalPolicies("arn:aws:iam::1111111111:role/role", policySetLoader);
+        subject.getUserGroupPolicies(Sets.newHashSet("a"), policySetLoader);
+        subject.invalidateUserGroupPolicies();
+        subject.getIamPrincipalPolicies("arn:aws:iam::1111111111:role/role", policySetLoader);
+        subject.getUserGroupPolicies(Sets.newHashSet("a"), policySetLoader);
+
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void test_that_getIamPrincipalPolicies_does_not_cache_policy_set_loaded_across_an_invalidation() {
+        final String arn = "arn:aws:iam::1111111111:role/role";
+        subject.getIamPrincipalPolicies(arn, () -> {
+            // permissions change while the policy set is being loaded
+            subject.invalidateAll();
+            return Sets.newHashSet("lookup-self", "stale-sdb-read");
+        });
+
+        assertThat(subject.getIamPrincipalPolicies(arn, policySetLoader)).containsOnly("lookup-self", "app-sdb-read");
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void test_that_getUserGroupPolicies_does_not_cache_policy_set_loaded_across_an_invalidation() {
+        subject.getUserGroupPolicies(Sets.newHashSet("a"), () -> {
+            // permissions change while the policy set is being loaded
+            subject.invalidateUserGroupPolicies();
+            return Sets.newHashSet("lookup-self", "stale-sdb-read");
+        });
+
+        assertThat(subject.getUserGroupPolicies(Sets.newHashSet("a"), policySetLoader))
+                .containsOnly("lookup-self", "app-sdb-read");
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void test_that_getUserGroupPolicies_returns_mutable_copy_of_cached_policies() {
+        subject.getUserGroupPolicies(Sets.newHashSet("a"), policySetLoader);
+        final Set<String> policies = subject.getUserGroupPolicies(Sets.newHashSet("a"), policySetLoader);
+        policies.add("another-policy");
+
+        assertThat(subject.getUserGroupPolicies(Sets.newHashSet("a"), policySetLoader))
+                .containsOnly("lookup-self", "app-sdb-read");
+    }
+}
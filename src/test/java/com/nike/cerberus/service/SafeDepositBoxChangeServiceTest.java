@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.service;
+
+import com.google.common.collect.ImmutableSet;
+import com.nike.cerberus.domain.IamPrincipalPermission;
+import com.nike.cerberus.domain.IamRolePermission;
+import com.nike.cerberus.domain.SafeDepositBoxV1;
+import com.nike.cerberus.domain.SafeDepositBoxV2;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SafeDepositBoxChangeServiceTest {
+
+    private final String safeDepositBoxId = "sdb id";
+
+    private final String iamPrincipalArn = "arn:aws:iam::1111111111:role/role";
+
+    private SafeDepositBoxService safeDepositBoxService;
+
+    private PolicySetCache policySetCache;
+
+    private KmsKeyPreProvisioner kmsKeyPreProvisioner;
+
+    private SafeDepositBoxChangeService subject;
+
+    @Before
+    public void setUp() throws Exception {
+        safeDepositBoxService = mock(SafeDepositBoxService.class);
+        policySetCache = mock(PolicySetCache.class);
+        kmsKeyPreProvisioner = mock(KmsKeyPreProvisioner.class);
+
+        subject = new SafeDepositBoxChangeService(safeDepositBoxService, policySetCache, kmsKeyPreProvisioner);
+    }
+
+    @Test
+    public void test_that_createSafeDepositBoxV1_follows_up_with_role_arns_once_committed() {
+        final SafeDepositBoxV1 safeDepositBox = new SafeDepositBoxV1();
+        safeDepositBox.setIamRolePermissions(ImmutableSet.of(
+                new IamRolePermission().withAccountId("1111111111").withIamRoleName("role")));
+        when(safeDepositBoxService.createSafeDepositBoxV1(safeDepositBox, "user")).thenReturn(safeDepositBoxId);
+
+        assertEquals(safeDepositBoxId, subject.createSafeDepositBoxV1(safeDepositBox, "user"));
+
+        final InOrder inOrder = inOrder(safeDepositBoxService, policySetCache, kmsKeyPreProvisioner);
+        inOrder.verify(safeDepositBoxService).createSafeDepositBoxV1(safeDepositBox, "user");
+        inOrder.verify(policySetCache).invalidateAll();
+        inOrder.verify(kmsKeyPreProvisioner).schedulePreProvisioning(safeDepositBoxId, ImmutableSet.of(iamPrincipalArn));
+    }
+
+    @Test
+    public void test_that_restoreSafeDepositBox_follows_up_with_principal_arns_once_committed() {
+        final SafeDepositBoxV2 safeDepositBox = new SafeDepositBoxV2();
+        safeDepositBox.setId(safeDepositBoxId);
+        safeDepositBox.setIamPrincipalPermissions(ImmutableSet.of(
+                new IamPrincipalPermission().withIamPrincipalArn(iamPrincipalArn)));
+
+        subject.restoreSafeDepositBox(safeDepositBox, "admin");
+
+        final InOrder inOrder = inOrder(safeDepositBoxService, policySetCache, kmsKeyPreProvisioner);
+        inOrder.verify(safeDepositBoxService).restoreSafeDepositBox(safeDepositBox, "admin");
+        inOrder.verify(policySetCache).invalidateAll();
+        inOrder.verify(kmsKeyPreProvisioner).schedulePreProvisioning(safeDepositBoxId, ImmutableSet.of(iamPrincipalArn));
+    }
+
+    @Test
+    public void test_that_deleteSafeDepositBox_invalidates_policy_sets_once_committed() {
+        subject.deleteSafeDepositBox(ImmutableSet.of("group"), safeDepositBoxId);
+
+        final InOrder inOrder = inOrder(safeDepositBoxService, policySetCache, kmsKeyPreProvisioner);
+        inOrder.verify(safeDepositBoxService).deleteSafeDepositBox(ImmutableSet.of("group"), safeDepositBoxId);
+        inOrder.verify(policySetCache).invalidateAll();
+        inOrder.verify(kmsKeyPreProvisioner).schedulePreProvisioning(safeDepositBoxId, Collections.emptySet());
+    }
+}
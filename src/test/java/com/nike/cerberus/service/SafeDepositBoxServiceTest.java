@@ -20,15 +20,18 @@ import com.nike.cerberus.dao.SafeDepositBoxDao;
 import com.nike.cerberus.dao.UserGroupDao;
 import com.nike.cerberus.domain.IamPrincipalPermission;
 import com.nike.cerberus.domain.IamRolePermission;
+import com.nike.cerberus.domain.Role;
 import com.nike.cerberus.domain.SafeDepositBoxV1;
 import com.nike.cerberus.domain.SafeDepositBoxV2;
 import com.nike.cerberus.domain.UserGroupPermission;
+import com.nike.cerberus.record.RoleRecord;
 import com.nike.cerberus.record.SafeDepositBoxRecord;
 import com.nike.cerberus.util.AwsIamRoleArnParser;
 import com.nike.cerberus.util.DateTimeSupplier;
 import com.nike.cerberus.util.Slugger;
 import com.nike.cerberus.util.UuidSupplier;
 import com.nike.vault.client.VaultAdminClient;
+import org.assertj.core.util.Lists;
 import org.assertj.core.util.Sets;
 import org.junit.Before;
 import org.junit.Test;
@@ -36,14 +39,19 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 
 import java.time.OffsetDateTime;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -88,6 +96,9 @@ public class SafeDepositBoxServiceTest {
     @Mock
     private AwsIamRoleArnParser awsIamRoleArnParser;
 
+    @Mock
+    private PolicySetCache policySetCache;
+
     @InjectMocks
     private SafeDepositBoxService safeDepositBoxService;
 
@@ -333,4 +344,50 @@ public class SafeDepositBoxServiceTest {
         assertEquals(expectedSdbV2, resultantSDBV1);
     }
 
+    @Test
+    public void test_that_getSafeDepositBoxes_loads_permissions_of_the_whole_page_at_once() {
+        String ownerRoleId = "owner role id";
+        String readRoleId = "read role id";
+
+        SafeDepositBoxRecord box1 = new SafeDepositBoxRecord();
+        box1.setId("box 1");
+        SafeDepositBoxRecord box2 = new SafeDepositBoxRecord();
+        box2.setId("box 2");
+        when(safeDepositBoxDao.getSafeDepositBoxes(2, 0)).thenReturn(Lists.newArrayList(box1, box2));
+
+        Set<UserGroupPermission> box1UserPerms = Sets.newHashSet();
+        box1UserPerms.add(new UserGroupPermission().withName("box-1-owner").withRoleId(ownerRoleId));
+        box1UserPerms.add(new UserGroupPermission().withName("box-1-reader").withRoleId(readRoleId));
+        Set<UserGroupPermission> box2UserPerms = Sets.newHashSet();
+        box2UserPerms.add(new UserGroupPermission().withName("box-2-owner").withRoleId(ownerRoleId));
+        Map<String, Set<UserGroupPermission>> userPerms = new HashMap<>();
+        userPerms.put("box 1", box1UserPerms);
+        userPerms.put("box 2", box2UserPerms);
+        when(userGroupPermissionService.getUserGroupPermissions(Lists.newArrayList("box 1", "box 2"))).thenReturn(userPerms);
+
+        Set<IamPrincipalPermission> box2IamPerms = Sets.newHashSet();
+        box2IamPerms.add(new IamPrincipalPermission().withIamPrincipalArn("arn:aws:iam::1111111111:role/role").withRoleId(readRoleId));
+        Map<String, Set<IamPrincipalPermission>> iamPerms = new HashMap<>();
+        iamPerms.put("box 2", box2IamPerms);
+        when(iamPrincipalPermissionService.getIamPrincipalPermissions(Lists.newArrayList("box 1", "box 2"))).thenReturn(iamPerms);
+
+        when(roleService.getRoleByName(RoleRecord.ROLE_OWNER)).thenReturn(Optional.of(new Role().setId(ownerRoleId)));
+
+        List<SafeDepositBoxV2> result = safeDepositBoxService.getSafeDepositBoxes(2, 0);
+
+        assertEquals(2, result.size());
+        assertEquals("box 1", result.get(0).getId());
+        assertEquals("box-1-owner", result.get(0).getOwner());
+        assertEquals(1, result.get(0).getUserGroupPermissions().size());
+        assertEquals(0, result.get(0).getIamPrincipalPermissions().size());
+        assertEquals("box 2", result.get(1).getId());
+        assertEquals("box-2-owner", result.get(1).getOwner());
+        assertEquals(0, result.get(1).getUserGroupPermissions().size());
+        assertEquals(box2IamPerms, result.get(1).getIamPrincipalPermissions());
+
+        verify(userGroupPermissionService, never()).getUserGroupPermissions(anyString());
+        verify(iamPrincipalPermissionService, never()).getIamPrincipalPermissions(anyString());
+        verify(roleService, times(1)).getRoleByName(RoleRecord.ROLE_OWNER);
+    }
+
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2017 Nike, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.nike.cerberus.service;
+
+import com.google.common.collect.Lists;
+import com.nike.cerberus.security.VaultTokenLookupCache;
+import com.nike.riposte.metrics.codahale.CodahaleMetricsCollector;
+import com.nike.vault.client.VaultAdminClient;
+import com.nike.vault.client.VaultClientException;
+import com.nike.vault.client.VaultServerException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class TokenRevocationQueueTest {
+
+    private VaultAdminClient vaultAdminClient;
+
+    private VaultTokenLookupCache vaultTokenLookupCache;
+
+    private TokenRevocationQueue subject;
+
+    @Before
+    public void setUp() throws Exception {
+        vaultAdminClient = mock(VaultAdminClient.class);
+        vaultTokenLookupCache = mock(VaultTokenLookupCache.class);
+        subject = new TokenRevocationQueue(vaultAdminClient, vaultTokenLookupCache, new CodahaleMetricsCollector(),
+                true, 2, 10, 3, 10);
+    }
+
+    @Test
+    public void test_that_revokeLater_retries_transient_failures() {
+        doThrow(new VaultClientException("Failure"))
+                .doThrow(new VaultServerException(503, Lists.newArrayList()))
+                .doNothing()
+                .when(vaultAdminClient).revokeOrphanToken("token");
+
+        subject.revokeLater("token");
+
+        verify(vaultAdminClient, timeout(5000).times(3)).revokeOrphanToken("token");
+    }
+
+    @Test
+    public void test_that_revokeLater_does_not_retry_permission_failures() throws Exception {
+        doThrow(new VaultServerException(403, Lists.newArrayList())).when(vaultAdminClient).revokeOrphanToken("token");
+
+        subject.revokeLater("token");
+
+        verify(vaultAdminClient, timeout(5000)).revokeOrphanToken("token");
+        Thread.sleep(100);
+        verify(vaultAdminClient, times(1)).revokeOrphanToken("token");
+    }
+
+    @Test
+    public void test_that_revokeLater_keeps_revoking_after_unexpected_failure() {
+        doThrow(new IllegalStateException("Failure")).when(vaultAdminClient).revokeOrphanToken("token 1");
+
+        subject.revokeLater("token 1");
+        subject.revokeLater("token 2");
+        subject.revokeLater("token 3");
+
+        verify(vaultAdminClient, timeout(5000)).revokeOrphanToken("token 2");
+        verify(vaultAdminClient, timeout(5000)).revokeOrphanToken("token 3");
+    }
+
+    @Test
+    public void test_that_revokeNow_ignores_tokens_vault_no_longer_knows() {
+        doThrow(new VaultServerException(400, Lists.newArrayList())).when(vaultAdminClient).revokeOrphanToken("token");
+
+        subject.revokeNow("token");
+
+        verify(vaultAdminClient).revokeOrphanToken("token");
+        verify(vaultTokenLookupCache).evict("token");
+    }
+
+    @Test
+    public void test_that_revokeLater_revokes_every_queued_token() {
+        for (int i = 0; i < 20; i++) {
+            subject.revokeLater("token " + i);
+        }
+
+        for (int i = 0; i < 20; i++) {
+            verify(vaultAdminClient, timeout(5000)).revokeOrphanToken("token " + i);
+        }
+    }
+}